@@ -0,0 +1,35 @@
+package edu.ntnu.stud;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks with the allocation profiler enabled, so every result reports the
+ * number of bytes allocated per operation next to the time it took. Takes the same command line
+ * options as JMH itself.
+ *
+ * @author Jonathan Hubertz
+ * @version 0.1
+ * @since 17. october 2026
+ */
+public class BenchmarkRunner {
+
+  /**
+   * Runs the benchmarks.
+   *
+   * @param args JMH command line options.
+   * @throws CommandLineOptionException if the options are invalid.
+   * @throws RunnerException            if the benchmarks could not be run.
+   */
+  public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+    new Runner(new OptionsBuilder()
+        .parent(new CommandLineOptions(args))
+        .addProfiler(GCProfiler.class)
+        .build())
+        .run();
+  }
+}
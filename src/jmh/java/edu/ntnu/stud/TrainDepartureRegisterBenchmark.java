@@ -0,0 +1,198 @@
+package edu.ntnu.stud;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput and latency of the operations of TrainDepartureRegister, for different
+ * register sizes and persistence implementations.
+ *
+ * @author Jonathan Hubertz
+ * @version 0.1
+ * @since 17. october 2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrainDepartureRegisterBenchmark {
+
+  @Param({"100", "500", "998"})
+  private int size;
+
+  @Param({"csv", "journal", "mapped"})
+  private String persistenceType;
+
+  private Path directory;
+  private TrainDeparturePersistence persistence;
+  private TrainDepartureRegister register;
+  private int nextTrainNumber;
+  private int nextDestination;
+  private boolean delayed;
+  private final DepartureBoardRenderer renderer = new DepartureBoardRenderer();
+  private final Writer boardOutput = Writer.nullWriter();
+
+  private static final int FREE_TRAIN_NUMBER = TrainDeparture.MAX_TRAIN_NUMBER;
+  private static final LocalTime NO_DELAY = LocalTime.of(0, 0);
+  private static final LocalTime DELAY = LocalTime.of(0, 5);
+  private static final LocalTime BOARD_TIME = LocalTime.of(12, 0);
+  private static final String[] DESTINATIONS = {"spikkestad", "lillestrøm", "gardermoen",
+      "tromsø", "skien", "drammen", "bergen", "trondheim"};
+
+  /**
+   * Fills a new register with departures spread over the day.
+   *
+   * @throws IOException if the persistence could not be written.
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("departure-benchmark");
+    persistence = createPersistence();
+    persistence.clearDepartures();
+
+    List<TrainDeparture> departures = new ArrayList<>(size);
+    for (int trainNumber = 1; trainNumber <= size; trainNumber++) {
+      departures.add(createDeparture(trainNumber));
+    }
+    register = new TrainDepartureRegister(persistence);
+    register.addTrainDepartures(departures);
+  }
+
+  /**
+   * Deletes the files written by the benchmark.
+   *
+   * @throws IOException if the files could not be deleted.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  // Benchmarks
+
+  @Benchmark
+  public TrainDeparture searchByTrainNumber() throws IOException {
+    return register.searchByTrainNumber(nextTrainNumber());
+  }
+
+  @Benchmark
+  public List<TrainDeparture> searchByDestination() throws IOException {
+    nextDestination = (nextDestination + 1) % DESTINATIONS.length;
+    return register.searchByDestination(DESTINATIONS[nextDestination]);
+  }
+
+  @Benchmark
+  public String toSortedTable() throws IOException {
+    return register.toSortedTable(BOARD_TIME);
+  }
+
+  @Benchmark
+  public DeparturePage getNextDepartures() throws IOException {
+    return register.getNextDepartures(DepartureCursor.after(BOARD_TIME), 20);
+  }
+
+  @Benchmark
+  public void writeSortedTable() throws IOException {
+    register.writeSortedTable(BOARD_TIME, renderer, boardOutput);
+  }
+
+  @Benchmark
+  public void setDelay() throws IOException {
+    delayed = !delayed;
+    register.setDelay(nextTrainNumber(), delayed ? DELAY : NO_DELAY);
+  }
+
+  /**
+   * Adds and removes the same departure, so that the register keeps its size between calls.
+   *
+   * @throws IOException if the persistence could not be written.
+   */
+  @Benchmark
+  public void addThenRemoveDeparture() throws IOException {
+    register.addTrainDeparture(BOARD_TIME, "R10", FREE_TRAIN_NUMBER, "drammen", 3, NO_DELAY);
+    register.removeDeparture(FREE_TRAIN_NUMBER);
+  }
+
+  /**
+   * Loads a new register from the persistence, which measures how fast the persistence is read.
+   *
+   * @return the number of departures that were loaded.
+   * @throws IOException if the persistence could not be read.
+   */
+  @Benchmark
+  public int loadRegister() throws IOException {
+    return new TrainDepartureRegister(persistence).getNumberOfDepartures();
+  }
+
+  // Helper methods
+
+  /**
+   * Creates the persistence implementation given by the persistenceType parameter.
+   *
+   * @return the persistence.
+   * @throws IOException if the file of the persistence could not be created.
+   */
+  private TrainDeparturePersistence createPersistence() throws IOException {
+    String pathOfFile = directory.toString() + File.separator;
+    return switch (persistenceType) {
+      case "csv" -> {
+        Files.createFile(directory.resolve("departures.csv"));
+        yield new CsvTrainDeparturePersistence(pathOfFile, "departures.csv");
+      }
+      case "journal" -> new JournalTrainDeparturePersistence(pathOfFile, "departures.journal");
+      case "mapped" -> new MappedTrainDeparturePersistence(pathOfFile, "departures.bin");
+      default -> throw new IllegalArgumentException("unknown persistence: " + persistenceType);
+    };
+  }
+
+  /**
+   * Creates a departure for the register, spread evenly over the day by its train number.
+   *
+   * @param trainNumber the train number.
+   * @return the departure.
+   */
+  private TrainDeparture createDeparture(int trainNumber) {
+    int minuteOfDay = trainNumber * (24 * 60 - 1) / size;
+    return new TrainDeparture(LocalTime.of(minuteOfDay / 60, minuteOfDay % 60),
+        "L" + trainNumber % 20, trainNumber, DESTINATIONS[trainNumber % DESTINATIONS.length],
+        trainNumber % 19 + 1, NO_DELAY);
+  }
+
+  /**
+   * Cycles through the train numbers in the register.
+   *
+   * @return the next train number.
+   */
+  private int nextTrainNumber() {
+    nextTrainNumber = nextTrainNumber % size + 1;
+    return nextTrainNumber;
+  }
+}
@@ -0,0 +1,70 @@
+package edu.ntnu.stud;
+
+/**
+ * A change to one row of a departure board, as found by a {@link DepartureBoardTracker}.
+ *
+ * @author Jonathan Hubertz
+ * @version 0.1
+ * @since 17. october 2026
+ */
+public final class BoardRowChange {
+
+  /**
+   * The kinds of change to a row.
+   */
+  public enum Kind {
+    /** A row that was removed, for example because the train left before the system time. */
+    DROPPED,
+    /** A new row, or a row that moved because its departure time with delay changed. */
+    INSERTED,
+    /** A row that stayed in place, but whose track or other values changed. */
+    CHANGED
+  }
+
+  private final Kind kind;
+  private final int position;
+  private final TrainDeparture departure;
+
+  /**
+   * Constructor for BoardRowChange.
+   *
+   * @param kind      the kind of change.
+   * @param position  the position of the row.
+   * @param departure the departure of the row.
+   */
+  BoardRowChange(Kind kind, int position, TrainDeparture departure) {
+    this.kind = kind;
+    this.position = position;
+    this.departure = departure;
+  }
+
+  // Getters
+
+  /**
+   * Gets the kind of change.
+   *
+   * @return the kind of change.
+   */
+  public Kind getKind() {
+    return kind;
+  }
+
+  /**
+   * Gets the position of the row at the moment the change is applied, when the changes are
+   * applied one by one in the order they were found.
+   *
+   * @return the position of the row, starting at 0.
+   */
+  public int getPosition() {
+    return position;
+  }
+
+  /**
+   * Gets the departure of the row. For a dropped row, this is the departure as it was shown.
+   *
+   * @return the read-only departure.
+   */
+  public TrainDeparture getDeparture() {
+    return departure;
+  }
+}
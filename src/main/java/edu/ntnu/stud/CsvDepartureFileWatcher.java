@@ -0,0 +1,435 @@
+package edu.ntnu.stud;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Watches a departure csv file for edits made by other programs and applies them to the in-memory
+ * state of a TrainDepartureRegister, without writing them back to the file.
+ *
+ * <p>The watcher remembers how many bytes of complete lines it has read, a checksum of the last
+ * few kilobytes of those bytes, and the size and modification time of the file as it last read it.
+ * When the file has grown, it checks whether lines were only appended: if the bytes just before
+ * the remembered end still have the same checksum, only the bytes after it are read and parsed.
+ * Otherwise, or if the file changed without growing, the whole file is parsed and compared with
+ * the departures it held last time. Either way, the file is streamed from disk rather than loaded
+ * into memory, and only the departures that were added, changed or removed are handed to the
+ * register, which leaves out those it already holds, such as its own writes.
+ *
+ * <p>A file whose size and modification time haven't changed is only skipped when it was last
+ * modified well before it was last read, since a rewrite within the resolution of the
+ * modification time would otherwise be missed. An appended line without a line break is left
+ * until the file stops changing, and is then applied as it is.
+ *
+ * <p>The register's write stamp is taken before the file is read. If the register writes to the
+ * file while it is being read, the read is thrown away and the file is read again, so an old read
+ * never overwrites a newer change in memory.
+ *
+ * <p>Changes can be picked up by calling {@link #refresh()}, or by calling {@link #start()}, which
+ * watches the file with a {@link WatchService} on a background thread.
+ *
+ * @author Jonathan Hubertz
+ * @version 0.1
+ * @since 17. october 2026
+ */
+public class CsvDepartureFileWatcher implements Closeable {
+
+  private final Path path;
+  private final TrainDepartureRegister register;
+  private final Map<Integer, TrainDeparture> knownDepartures;
+  private long knownSize;
+  private long knownFingerprint;
+  private long knownLength;
+  private long knownModified;
+  private long knownReadAt;
+  private boolean tailApplied;
+  private WatchService watchService;
+  private Thread watchThread;
+  private static final String ERROR = "Error: ";
+  private static final long MODIFIED_TIME_RESOLUTION_MILLIS = 2000;
+  private static final long SETTLE_MILLIS = 500;
+  private static final int MAX_ATTEMPTS = 3;
+  private static final int FINGERPRINT_BYTES = 4096;
+
+  /**
+   * Constructor for CsvDepartureFileWatcher.
+   *
+   * @param pathOfFile the path of the csv file.
+   * @param fileName   the name of the csv file.
+   * @param register   the register to apply the changes to.
+   */
+  public CsvDepartureFileWatcher(String pathOfFile, String fileName,
+      TrainDepartureRegister register) {
+    this.path = Paths.get(pathOfFile, fileName).toAbsolutePath();
+    this.register = register;
+    this.knownDepartures = new HashMap<>();
+    this.knownSize = -1;
+    this.knownLength = -1;
+    this.knownModified = -1;
+  }
+
+  /**
+   * Starts watching the file on a background thread. The file is read once right away, so the
+   * register is in step with the file when this method returns.
+   *
+   * @throws IOException if the file could not be read, or the directory could not be watched.
+   */
+  public synchronized void start() throws IOException {
+    if (watchService != null) {
+      return;
+    }
+    refresh();
+
+    watchService = FileSystems.getDefault().newWatchService();
+    path.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+        StandardWatchEventKinds.ENTRY_MODIFY);
+    watchThread = new Thread(this::watch, "departure-file-watcher");
+    watchThread.setDaemon(true);
+    watchThread.start();
+  }
+
+  /**
+   * Stops watching the file.
+   *
+   * @throws IOException if the watch service could not be closed.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (watchService == null) {
+      return;
+    }
+    watchService.close();
+    watchService = null;
+    watchThread.interrupt();
+    watchThread = null;
+  }
+
+  /**
+   * Checks the file for changes since it was last read and applies them to the register. If the
+   * register writes to the file while it is being read, the file is read again.
+   *
+   * @return true if any departures were added, changed or removed.
+   * @throws IOException if the file could not be read.
+   */
+  public synchronized boolean refresh() throws IOException {
+    for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+      if (!Files.exists(path)) {
+        return false;
+      }
+      long size = Files.size(path);
+      long modified = Files.getLastModifiedTime(path).toMillis();
+      boolean settled = size == knownLength && modified == knownModified;
+      if (settled && knownReadAt - modified > MODIFIED_TIME_RESOLUTION_MILLIS
+          && !hasPendingTail()) {
+        return false;
+      }
+
+      long writeStamp = register.getWriteStamp();
+      long readAt = System.currentTimeMillis();
+      long length;
+      Boolean changed;
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+        length = channel.size();
+        boolean appended = knownSize > 0 && length >= knownSize
+            && (length > knownLength || settled)
+            && fingerprint(channel, knownSize) == knownFingerprint;
+        changed = appended
+            ? applyAppendedLines(channel, length, settled, writeStamp)
+            : applyWholeFile(channel, length, writeStamp);
+      }
+      if (changed != null) {
+        knownLength = length;
+        knownModified = modified;
+        knownReadAt = readAt;
+        return changed;
+      }
+    }
+    return false;
+  }
+
+  // Helper methods
+
+  /**
+   * Waits for events from the watch service and refreshes the register when the file changes.
+   * While an appended line without a line break is waiting, the file is also refreshed when no
+   * event has come for a while, so the line is applied once the file stops changing.
+   */
+  private void watch() {
+    WatchService service = watchService;
+    try {
+      while (true) {
+        WatchKey key = hasPendingTail()
+            ? service.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)
+            : service.take();
+        boolean fileChanged = key == null;
+        if (key != null) {
+          for (WatchEvent<?> event : key.pollEvents()) {
+            fileChanged |= event.kind() == StandardWatchEventKinds.OVERFLOW
+                || path.getFileName().equals(event.context());
+          }
+          key.reset();
+        }
+        if (fileChanged) {
+          try {
+            refresh();
+          } catch (IOException e) {
+            System.out.println(ERROR + "couldn't reload " + path + " - " + e.getMessage());
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ClosedWatchServiceException e) {
+      // The watcher was closed.
+    }
+  }
+
+  /**
+   * Checks whether the file ended with a line without a line break when it was last read, and
+   * that line hasn't been applied yet.
+   *
+   * @return true if a line is waiting for the file to stop changing.
+   */
+  private synchronized boolean hasPendingTail() {
+    return knownLength > knownSize && !tailApplied;
+  }
+
+  /**
+   * Parses only the lines appended since the file was last read. A line without a line break is
+   * only parsed once the file has stopped changing, since it may still be being written.
+   *
+   * @param channel    the open file.
+   * @param length     the size of the file.
+   * @param settled    whether the file is unchanged since it was last read.
+   * @param writeStamp the write stamp of the register, taken before the file was read.
+   * @return whether any departures were added or changed, or null if the register wrote to the
+   *         file while it was being read.
+   * @throws IOException if the file could not be read.
+   */
+  private Boolean applyAppendedLines(FileChannel channel, long length, boolean settled,
+      long writeStamp) throws IOException {
+    long completeLength = lastLineBreak(channel, knownSize, length) + 1;
+    long end = settled ? length : completeLength;
+
+    List<TrainDeparture> changed = new ArrayList<>();
+    Map<Integer, TrainDeparture> parsed = new HashMap<>();
+    if (end > knownSize) {
+      CsvDepartureParser parser = new CsvDepartureParser(reader(channel, knownSize, end), false);
+      for (TrainDeparture departure = parser.next(); departure != null;
+          departure = parser.next()) {
+        if (!TrainDeparture.sameValues(knownDepartures.get(departure.getTrainNumber()),
+            departure)) {
+          changed.add(departure);
+        }
+        parsed.put(departure.getTrainNumber(), departure);
+      }
+    }
+
+    if (!changed.isEmpty() && !register.applyExternalChanges(changed, List.of(), writeStamp)) {
+      return null;
+    }
+    knownDepartures.putAll(parsed);
+    remember(channel, completeLength, end > completeLength);
+    return !changed.isEmpty();
+  }
+
+  /**
+   * Parses the whole file and compares it with the departures it held when it was last read.
+   *
+   * @param channel    the open file.
+   * @param length     the size of the file.
+   * @param writeStamp the write stamp of the register, taken before the file was read.
+   * @return whether any departures were added, changed or removed, or null if the register wrote
+   *         to the file while it was being read.
+   * @throws IOException if the file could not be read.
+   */
+  private Boolean applyWholeFile(FileChannel channel, long length, long writeStamp)
+      throws IOException {
+    Map<Integer, TrainDeparture> departures = new HashMap<>();
+    CsvDepartureParser parser = new CsvDepartureParser(reader(channel, 0, length), true);
+    for (TrainDeparture departure = parser.next(); departure != null; departure = parser.next()) {
+      departures.put(departure.getTrainNumber(), departure);
+    }
+
+    List<TrainDeparture> changed = new ArrayList<>();
+    for (TrainDeparture departure : departures.values()) {
+      if (!TrainDeparture.sameValues(knownDepartures.get(departure.getTrainNumber()), departure)) {
+        changed.add(departure);
+      }
+    }
+    List<Integer> removed = new ArrayList<>();
+    for (int trainNumber : knownDepartures.keySet()) {
+      if (!departures.containsKey(trainNumber)) {
+        removed.add(trainNumber);
+      }
+    }
+
+    if ((!changed.isEmpty() || !removed.isEmpty())
+        && !register.applyExternalChanges(changed, removed, writeStamp)) {
+      return null;
+    }
+    knownDepartures.clear();
+    knownDepartures.putAll(departures);
+    long completeLength = lastLineBreak(channel, 0, length) + 1;
+    remember(channel, completeLength, completeLength < length);
+    return !changed.isEmpty() || !removed.isEmpty();
+  }
+
+  /**
+   * Remembers how many bytes of complete lines were read and the fingerprint of their end.
+   *
+   * @param channel        the open file.
+   * @param completeLength the number of bytes up to and including the last line break.
+   * @param tailApplied    whether a line after the last line break was applied.
+   * @throws IOException if the file could not be read.
+   */
+  private void remember(FileChannel channel, long completeLength, boolean tailApplied)
+      throws IOException {
+    knownSize = completeLength;
+    knownFingerprint = fingerprint(channel, completeLength);
+    this.tailApplied = tailApplied;
+  }
+
+  /**
+   * Computes the checksum of the last few kilobytes before a position in the file.
+   *
+   * @param channel the open file.
+   * @param end     the position to end at.
+   * @return the checksum, or -1 if the file is shorter than the given position.
+   * @throws IOException if the file could not be read.
+   */
+  private static long fingerprint(FileChannel channel, long end) throws IOException {
+    long start = Math.max(0, end - FINGERPRINT_BYTES);
+    ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, start + buffer.position()) < 0) {
+        return -1;
+      }
+    }
+    CRC32 crc = new CRC32();
+    crc.update(buffer.flip());
+    return crc.getValue();
+  }
+
+  /**
+   * Finds the last line break in a range of the file, reading backwards a block at a time.
+   *
+   * @param channel the open file.
+   * @param start   the position to search from.
+   * @param end     the position to search up to.
+   * @return the position of the last line break, or start - 1 if there is none.
+   * @throws IOException if the file could not be read.
+   */
+  private static long lastLineBreak(FileChannel channel, long start, long end)
+      throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(FINGERPRINT_BYTES);
+    for (long blockEnd = end; blockEnd > start; ) {
+      long blockStart = Math.max(start, blockEnd - FINGERPRINT_BYTES);
+      buffer.clear().limit((int) (blockEnd - blockStart));
+      while (buffer.hasRemaining()
+          && channel.read(buffer, blockStart + buffer.position()) >= 0) {
+        // Keep reading until the block is full or the file ends.
+      }
+      for (int i = buffer.position() - 1; i >= 0; i--) {
+        if (buffer.get(i) == '\n') {
+          return blockStart + i;
+        }
+      }
+      blockEnd = blockStart;
+    }
+    return start - 1;
+  }
+
+  /**
+   * Creates a reader for a range of the file.
+   *
+   * @param channel the open file.
+   * @param start   the position to start reading at.
+   * @param end     the position to stop reading at.
+   * @return the reader.
+   */
+  private static Reader reader(FileChannel channel, long start, long end) {
+    return new InputStreamReader(new RangeInputStream(channel, start, end),
+        StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Reads a range of a file through positional reads, so the range can be parsed as a stream
+   * without moving the position of the channel or reading past the end of the range.
+   */
+  private static final class RangeInputStream extends InputStream {
+
+    private final FileChannel channel;
+    private final long end;
+    private long position;
+
+    /**
+     * Constructor for RangeInputStream.
+     *
+     * @param channel the open file.
+     * @param start   the position to start reading at.
+     * @param end     the position to stop reading at.
+     */
+    RangeInputStream(FileChannel channel, long start, long end) {
+      this.channel = channel;
+      this.position = start;
+      this.end = end;
+    }
+
+    /**
+     * Reads one byte of the range.
+     *
+     * @return the byte, or -1 at the end of the range.
+     * @throws IOException if the file could not be read.
+     */
+    @Override
+    public int read() throws IOException {
+      byte[] one = new byte[1];
+      return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+    }
+
+    /**
+     * Reads bytes of the range into an array.
+     *
+     * @param bytes  the array to read into.
+     * @param offset the index to start writing at.
+     * @param length the maximum number of bytes to read.
+     * @return the number of bytes read, or -1 at the end of the range or the file.
+     * @throws IOException if the file could not be read.
+     */
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+      if (position >= end) {
+        return -1;
+      }
+      int count = (int) Math.min(length, end - position);
+      int read = channel.read(ByteBuffer.wrap(bytes, offset, count), position);
+      if (read > 0) {
+        position += read;
+      }
+      return read;
+    }
+  }
+}
@@ -0,0 +1,289 @@
+package edu.ntnu.stud;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Streams TrainDeparture objects out of csv text, one at a time. The text is read through a
+ * reusable char buffer and each line is split into fields by their offsets, so no String is
+ * created for a line or for its numeric fields. Times in the form HH:mm or HH:mm:ss and integers
+ * are decoded straight from the buffer. Only the line and destination of a departure become new
+ * String objects.
+ *
+ * <p>Lines are handled the same way as before: blank lines are ignored, an optional header line is
+ * skipped, trailing empty fields are dropped, and lines with the wrong number of fields or values
+ * that can't be parsed are reported and skipped.
+ *
+ * @author Jonathan Hubertz
+ * @version 0.1
+ * @since 17. october 2026
+ */
+class CsvDepartureParser {
+
+  private final Reader reader;
+  private final char[] readBuffer;
+  private int readPosition;
+  private int readLimit;
+  private char[] line;
+  private int lineLength;
+  private int lineNumber;
+  private boolean headerSkipped;
+  private final int[] fieldStarts;
+  private final int[] fieldEnds;
+  private static final String ERROR = "Error ";
+  private static final int DEPARTURE_DATA_LENGTH = 6;
+  private static final int BUFFER_SIZE = 8192;
+
+  /**
+   * Constructor for CsvDepartureParser.
+   *
+   * @param reader    the reader to parse departures from. The caller is responsible for closing
+   *                  it.
+   * @param hasHeader whether the first non-blank line is a header that should be skipped.
+   */
+  CsvDepartureParser(Reader reader, boolean hasHeader) {
+    this.reader = reader;
+    this.readBuffer = new char[BUFFER_SIZE];
+    this.line = new char[128];
+    this.headerSkipped = !hasHeader;
+    this.fieldStarts = new int[DEPARTURE_DATA_LENGTH + 1];
+    this.fieldEnds = new int[DEPARTURE_DATA_LENGTH + 1];
+  }
+
+  /**
+   * Parses the next valid departure. Invalid lines on the way are reported and skipped.
+   *
+   * @return the next departure, or null if there are no more departures.
+   * @throws IOException if the text could not be read.
+   */
+  TrainDeparture next() throws IOException {
+    while (readLine()) {
+      if (isBlank()) {
+        continue;
+      }
+      if (!headerSkipped) {
+        headerSkipped = true;
+        continue;
+      }
+
+      if (splitFields() != DEPARTURE_DATA_LENGTH) {
+        System.out.println("Skipping invalid line: " + new String(line, 0, lineLength));
+        continue;
+      }
+
+      try {
+        LocalTime departureTime = parseTime(0);
+        String trainLine = new String(line, fieldStarts[1], fieldEnds[1] - fieldStarts[1]);
+        int trainNumber = parseInt(2);
+        String destination = new String(line, fieldStarts[3], fieldEnds[3] - fieldStarts[3]);
+        int track = parseInt(4);
+        int delayMinutes = parseMinutes(5);
+
+        TrainDeparture departure = new TrainDeparture(departureTime, trainLine, trainNumber,
+            destination, track, LocalTime.MIDNIGHT);
+        departure.setDelayMinutes(delayMinutes);
+        return departure;
+      } catch (DateTimeParseException | IllegalArgumentException e) {
+        System.out.println(
+            ERROR + "parsing line " + lineNumber + ": " + new String(line, 0, lineLength));
+      }
+    }
+    return null;
+  }
+
+  // Helper methods
+
+  /**
+   * Reads the next line into the line buffer, without its line terminator.
+   *
+   * @return true if a line was read, false at the end of the text.
+   * @throws IOException if the text could not be read.
+   */
+  private boolean readLine() throws IOException {
+    lineLength = 0;
+    boolean readAnything = false;
+
+    while (true) {
+      if (readPosition == readLimit) {
+        readLimit = reader.read(readBuffer, 0, readBuffer.length);
+        readPosition = 0;
+        if (readLimit <= 0) {
+          readLimit = 0;
+          if (readAnything) {
+            lineNumber++;
+          }
+          return readAnything;
+        }
+      }
+
+      char c = readBuffer[readPosition++];
+      readAnything = true;
+      if (c == '\n') {
+        lineNumber++;
+        return true;
+      }
+      if (c == '\r') {
+        if (readPosition == readLimit) {
+          readLimit = reader.read(readBuffer, 0, readBuffer.length);
+          readPosition = 0;
+          readLimit = Math.max(readLimit, 0);
+        }
+        if (readPosition < readLimit && readBuffer[readPosition] == '\n') {
+          readPosition++;
+        }
+        lineNumber++;
+        return true;
+      }
+
+      if (lineLength == line.length) {
+        char[] larger = new char[line.length * 2];
+        System.arraycopy(line, 0, larger, 0, lineLength);
+        line = larger;
+      }
+      line[lineLength++] = c;
+    }
+  }
+
+  /**
+   * Checks whether the current line only holds whitespace.
+   *
+   * @return true if the line is blank.
+   */
+  private boolean isBlank() {
+    for (int i = 0; i < lineLength; i++) {
+      if (!Character.isWhitespace(line[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Finds the offsets of the fields of the current line. Trailing empty fields are dropped.
+   *
+   * @return the number of fields, or a number above the expected one if there are too many.
+   */
+  private int splitFields() {
+    int fields = 0;
+    int start = 0;
+    for (int i = 0; i <= lineLength; i++) {
+      if (i == lineLength || line[i] == ',') {
+        if (fields == fieldStarts.length) {
+          return fields + 1;
+        }
+        fieldStarts[fields] = start;
+        fieldEnds[fields] = i;
+        fields++;
+        start = i + 1;
+      }
+    }
+    while (fields > 0 && fieldStarts[fields - 1] == fieldEnds[fields - 1]) {
+      fields--;
+    }
+    return fields;
+  }
+
+  /**
+   * Decodes an integer field, with an optional leading minus sign.
+   *
+   * @param field the index of the field.
+   * @return the decoded integer.
+   * @throws NumberFormatException if the field is not an integer.
+   */
+  private int parseInt(int field) {
+    int position = fieldStarts[field];
+    int end = fieldEnds[field];
+    boolean negative = position < end && line[position] == '-';
+    if (negative) {
+      position++;
+    }
+    if (position == end || end - position > 9) {
+      throw new NumberFormatException("invalid number");
+    }
+
+    int value = 0;
+    for (; position < end; position++) {
+      int digit = line[position] - '0';
+      if (digit < 0 || digit > 9) {
+        throw new NumberFormatException("invalid number");
+      }
+      value = value * 10 + digit;
+    }
+    return negative ? -value : value;
+  }
+
+  /**
+   * Decodes a time field in the form HH:mm or HH:mm:ss. Any other form is left to
+   * {@link LocalTime#parse(CharSequence)}.
+   *
+   * @param field the index of the field.
+   * @return the decoded time.
+   * @throws DateTimeParseException if the field is not a time.
+   */
+  private LocalTime parseTime(int field) {
+    int start = fieldStarts[field];
+    int length = fieldEnds[field] - start;
+
+    if ((length == 5 || length == 8) && line[start + 2] == ':'
+        && (length == 5 || line[start + 5] == ':')) {
+      int hour = twoDigits(start);
+      int minute = twoDigits(start + 3);
+      int second = length == 8 ? twoDigits(start + 6) : 0;
+      if (hour >= 0 && hour < 24 && minute >= 0 && minute < 60 && second >= 0 && second < 60) {
+        return LocalTime.of(hour, minute, second);
+      }
+    }
+    return LocalTime.parse(new String(line, start, length));
+  }
+
+  /**
+   * Decodes a delay field in the form HH:mm or HH:mm:ss into minutes. The hours may have more
+   * than two digits and go beyond 23, since a delay can last a day or more. Seconds are ignored.
+   *
+   * @param field the index of the field.
+   * @return the decoded number of minutes.
+   * @throws IllegalArgumentException if the field is not in the form HH:mm or HH:mm:ss.
+   */
+  private int parseMinutes(int field) {
+    int start = fieldStarts[field];
+    int end = fieldEnds[field];
+    int colon = start;
+    int hours = 0;
+    while (colon < end && line[colon] != ':' && colon - start < 6) {
+      int digit = line[colon] - '0';
+      if (digit < 0 || digit > 9) {
+        break;
+      }
+      hours = hours * 10 + digit;
+      colon++;
+    }
+
+    int length = end - colon;
+    if (colon == start || colon == end || line[colon] != ':' || (length != 3 && length != 6)
+        || (length == 6 && (line[colon + 3] != ':' || twoDigits(colon + 4) < 0))) {
+      throw new IllegalArgumentException("invalid delay");
+    }
+    int minutes = twoDigits(colon + 1);
+    if (minutes < 0 || minutes > 59) {
+      throw new IllegalArgumentException("invalid delay");
+    }
+    return hours * 60 + minutes;
+  }
+
+  /**
+   * Decodes two decimal digits.
+   *
+   * @param position the position of the first digit.
+   * @return the decoded number, or -1 if the characters are not digits.
+   */
+  private int twoDigits(int position) {
+    int tens = line[position] - '0';
+    int ones = line[position + 1] - '0';
+    if (tens < 0 || tens > 9 || ones < 0 || ones > 9) {
+      return -1;
+    }
+    return tens * 10 + ones;
+  }
+}
@@ -1,16 +1,23 @@
 package edu.ntnu.stud;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
-import java.time.LocalTime;
-import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Stream;
 
 /**
@@ -28,7 +35,6 @@ public class CsvTrainDeparturePersistence implements TrainDeparturePersistence {
   private static final String ERROR = "Error ";
   private static final String CSV_HEADER = "Departure time,Line,Train number,"
       + "Destination,Track,Delay,";
-  private static final int DEPARTURE_DATA_LENGTH = 6;
 
   /**
    * Constructor for CsvTrainDeparturePersistence.
@@ -50,22 +56,33 @@ public class CsvTrainDeparturePersistence implements TrainDeparturePersistence {
    */
   @Override
   public void writeDeparture(TrainDeparture departure) throws IOException {
+    writeDepartures(Collections.singletonList(departure));
+  }
+
+  /**
+   * Writes several new TrainDeparture objects to the csv file with a single append, which is
+   * forced to disk before the method returns.
+   *
+   * @param departures the departures to write to file.
+   * @throws IOException if the file could not be written.
+   */
+  @Override
+  public void writeDepartures(List<TrainDeparture> departures) throws IOException {
     Path path = Paths.get(pathOfFile + fileName);
-    String formattedDeparture = departure.getDepartureTime() + "," + departure
-        .getLine() + "," + departure.getTrainNumber() + "," + departure
-        .getDestination() + "," + departure.getTrack() + "," + departure.getDelay() + ",";
+    List<String> lines = new ArrayList<>(departures.size() + 1);
 
     try {
       if (!Files.exists(path) || Files.size(path) == 0) {
-        Files.write(path, Collections.singletonList(CSV_HEADER), StandardOpenOption.CREATE);
+        lines.add(CSV_HEADER);
+      }
+      for (TrainDeparture departure : departures) {
+        lines.add(format(departure) + ",");
       }
 
-      Files.write(path, Collections.singletonList(formattedDeparture), StandardOpenOption.APPEND);
+      writeLines(path, lines, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
     } catch (IOException e) {
       throw new IOException(ERROR + "writing to file: " + path, e);
     }
-
-
   }
 
   /**
@@ -83,10 +100,11 @@ public class CsvTrainDeparturePersistence implements TrainDeparturePersistence {
     }
 
     // SonarLint suggested this code --
+    String removed = String.valueOf(trainNumber);
     List<String> lines;
     try (Stream<String> stream = Files.lines(path)) {
       lines = stream
-          .filter(line -> !line.contains("," + trainNumber + ","))
+          .filter(line -> !trainNumberField(line).equals(removed))
           .toList();
     } catch (IOException e) {
       throw new IOException(ERROR + "reading file: " + path);
@@ -113,11 +131,7 @@ public class CsvTrainDeparturePersistence implements TrainDeparturePersistence {
       throw new IOException(FILE_DOES_NOT_EXIST + path);
     }
 
-    String updatedLine =
-        departure.getDepartureTime() + "," + departure.getLine() + ","
-            + departure.getTrainNumber() + ","
-            + departure.getDestination() + "," + departure.getTrack() + ","
-            + departure.getDelay();
+    String updatedLine = format(departure);
 
     // SonarLint suggested this code --
     List<String> lines;
@@ -138,10 +152,82 @@ public class CsvTrainDeparturePersistence implements TrainDeparturePersistence {
     Files.write(path, lines, StandardOpenOption.TRUNCATE_EXISTING);
   }
 
+  /**
+   * Removes several TrainDeparture objects from the csv file with a single rewrite, which is
+   * forced to disk before the method returns.
+   *
+   * @param trainNumbers the train numbers of the departures to remove.
+   * @throws IOException if the file does not exist.
+   */
+  @Override
+  public void removeDepartures(Collection<Integer> trainNumbers) throws IOException {
+    Path path = Paths.get(pathOfFile, fileName);
+    if (!Files.exists(path)) {
+      throw new IOException(FILE_DOES_NOT_EXIST + path);
+    }
+
+    Set<String> removed = new HashSet<>();
+    for (int trainNumber : trainNumbers) {
+      removed.add(String.valueOf(trainNumber));
+    }
+
+    List<String> lines;
+    try (Stream<String> stream = Files.lines(path)) {
+      lines = stream
+          .filter(line -> !removed.contains(trainNumberField(line)))
+          .toList();
+    } catch (IOException e) {
+      throw new IOException(ERROR + "reading file: " + path, e);
+    }
+
+    try {
+      writeLines(path, lines, StandardOpenOption.TRUNCATE_EXISTING);
+    } catch (IOException e) {
+      throw new IOException(ERROR + "writing to file: " + path, e);
+    }
+  }
+
+  /**
+   * Updates several TrainDeparture objects in the csv file with a single rewrite, which is
+   * forced to disk before the method returns.
+   *
+   * @param departures the departures to update.
+   * @throws IOException if the file does not exist.
+   */
+  @Override
+  public void updateDepartures(List<TrainDeparture> departures) throws IOException {
+    Path path = Paths.get(pathOfFile, fileName);
+    if (!Files.exists(path)) {
+      throw new IOException(FILE_DOES_NOT_EXIST + path);
+    }
+
+    Map<String, String> updatedLines = new HashMap<>();
+    for (TrainDeparture departure : departures) {
+      updatedLines.put(String.valueOf(departure.getTrainNumber()), format(departure));
+    }
+
+    List<String> lines;
+    try (Stream<String> stream = Files.lines(path)) {
+      lines = stream
+          .map(line -> updatedLines.getOrDefault(trainNumberField(line), line))
+          .toList();
+    } catch (IOException e) {
+      throw new IOException(ERROR + "reading file: " + path, e);
+    }
+
+    try {
+      writeLines(path, lines, StandardOpenOption.TRUNCATE_EXISTING);
+    } catch (IOException e) {
+      throw new IOException(ERROR + "writing to file: " + path, e);
+    }
+  }
+
   // Methods that read or scans a csv file
 
   /**
    * Reads the csv file and adds the TrainDeparture object to the TrainDepartureRegister object.
+   * The file is streamed through a {@link CsvDepartureParser}, so the departures are parsed one at
+   * a time without holding the lines of the whole file in memory.
    *
    * @throws IOException if the file does not exist.
    */
@@ -154,36 +240,12 @@ public class CsvTrainDeparturePersistence implements TrainDeparturePersistence {
 
     List<TrainDeparture> departures = new ArrayList<>();
 
-    // SonarLint suggested this code --
-    try (Stream<String> lines = Files.lines(path)) {
-      List<String[]> departuresList = lines
-          .filter(line -> !line.trim().isEmpty())
-          .map(line -> line.split(","))
-          .toList();
-      // --
-
-      for (int i = 1; i < departuresList.size(); i++) {
-        String[] departureData = departuresList.get(i);
-
-        if (departureData.length != DEPARTURE_DATA_LENGTH) {
-          System.out.println("Skipping invalid line: " + Arrays.toString(departureData));
-          continue;
-        }
-
-        try {
-          LocalTime departureTime = LocalTime.parse(departureData[0]);
-          String line = departureData[1];
-          int trainNumber = Integer.parseInt(departureData[2]);
-          String destination = departureData[3];
-          int track = Integer.parseInt(departureData[4]);
-          LocalTime delay = LocalTime.parse(departureData[5]);
-
-          departures.add(
-              new TrainDeparture(departureTime, line, trainNumber, destination, track, delay));
-        } catch (DateTimeParseException | NumberFormatException e) {
-          System.out.println(
-              ERROR + "parsing line " + (i + 1) + ": " + Arrays.toString(departureData));
-        }
+    try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      CsvDepartureParser parser = new CsvDepartureParser(reader, true);
+      TrainDeparture departure = parser.next();
+      while (departure != null) {
+        departures.add(departure);
+        departure = parser.next();
       }
     }
 
@@ -207,4 +269,80 @@ public class CsvTrainDeparturePersistence implements TrainDeparturePersistence {
 
     Files.write(path, Collections.singletonList(CSV_HEADER), StandardOpenOption.TRUNCATE_EXISTING);
   }
+
+  /**
+   * Creates the csv file with only the header if it doesn't exist yet.
+   *
+   * @throws IOException if the file could not be created.
+   */
+  @Override
+  public void createStore() throws IOException {
+    Path path = Paths.get(pathOfFile, fileName);
+    if (Files.exists(path)) {
+      return;
+    }
+    try {
+      Files.write(path, Collections.singletonList(CSV_HEADER), StandardCharsets.UTF_8,
+          StandardOpenOption.CREATE_NEW);
+    } catch (IOException e) {
+      throw new IOException(ERROR + "creating file: " + path, e);
+    }
+  }
+
+  // Helper methods
+
+  /**
+   * Formats a departure as a line in the csv file, without a trailing comma.
+   *
+   * @param departure the departure to format.
+   * @return the formatted departure.
+   */
+  static String format(TrainDeparture departure) {
+    return departure.getDepartureTime() + "," + departure.getLine() + ","
+        + departure.getTrainNumber() + "," + departure.getDestination() + ","
+        + departure.getTrack() + ","
+        + TrainDeparture.formatMinutes(departure.getDelayMinutes());
+  }
+
+  /**
+   * Writes lines to a file through a FileChannel and forces them to disk once, so a whole batch
+   * costs a single sync.
+   *
+   * @param path    the path of the file.
+   * @param lines   the lines to write.
+   * @param options how the file is opened, besides for writing.
+   * @throws IOException if the file could not be written.
+   */
+  static void writeLines(Path path, List<String> lines, StandardOpenOption... options)
+      throws IOException {
+    StringBuilder text = new StringBuilder(lines.size() * 48);
+    for (String line : lines) {
+      text.append(line).append(System.lineSeparator());
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+
+    Set<StandardOpenOption> openOptions = EnumSet.of(StandardOpenOption.WRITE, options);
+    try (FileChannel channel = FileChannel.open(path, openOptions)) {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(true);
+    }
+  }
+
+  /**
+   * Finds the train number field of a line in the csv file.
+   *
+   * @param line the line.
+   * @return the train number field, or an empty String if the line has no such field.
+   */
+  private static String trainNumberField(String line) {
+    int first = line.indexOf(',');
+    int second = first < 0 ? -1 : line.indexOf(',', first + 1);
+    if (second < 0) {
+      return "";
+    }
+    int third = line.indexOf(',', second + 1);
+    return line.substring(second + 1, third < 0 ? line.length() : third);
+  }
 }
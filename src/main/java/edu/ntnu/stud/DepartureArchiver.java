@@ -0,0 +1,286 @@
+package edu.ntnu.stud;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Moves departures that left long ago out of a register and into an archive file, so the live
+ * store only holds the trains that still matter. A departure is archived when its departure time
+ * with delay is more than a horizon before the system time.
+ *
+ * <p>The archive is append-only. Each run adds one block: the length of the compressed data, the
+ * length of the data before compression, and the data compressed with a {@link Deflater}. The
+ * data is the departures as lines in the csv format, so the archive can be read back with
+ * {@link #readArchive(Path)}.
+ *
+ * <p>Archiving doesn't block the dispatcher's writes. The departures to archive are found in a
+ * snapshot of the register, which takes no lock, and they are compressed and appended to the
+ * archive without any lock either. Only then does the register remove the ones nobody changed in
+ * the meantime, in one short batch. A changed departure stays in the register and is archived
+ * again, as it is then, in a later run, so the archive may hold a train number more than once;
+ * {@link #readArchive(Path)} keeps the last copy. A crash between the append and the removal
+ * leaves the departures in both places, and the next run appends them again.
+ *
+ * <p>Departures handed to {@link #archiveRemoved(List)} are appended while the register holds its
+ * write lock, since the register decides which trains have left under that lock, and the block
+ * must be on disk before they leave the persistence.
+ *
+ * <p>A {@link DepartureClock} that removes departed trains takes them out of the register as soon
+ * as they leave, long before the horizon. Such a clock must be given the archiver, so it hands the
+ * departed trains to {@link #archiveRemoved(List)} instead of dropping them.
+ *
+ * @author Jonathan Hubertz
+ * @version 0.1
+ * @since 17. october 2026
+ */
+public class DepartureArchiver implements Closeable {
+
+  private final TrainDepartureRegister register;
+  private final Path archive;
+  private final long horizonSeconds;
+  private final Deflater deflater;
+  private byte[] buffer;
+  private boolean closed;
+  private final ScheduledExecutorService scheduler;
+
+  private static final String ERROR = "Error: ";
+  private static final int HEADER_BYTES = 2 * Integer.BYTES;
+
+  /**
+   * Constructor for DepartureArchiver.
+   *
+   * @param register the register to archive departures from.
+   * @param archive  the archive file. It is created on the first run if it doesn't exist.
+   * @param horizon  how long before the system time a departure must have left to be archived.
+   * @throws IllegalArgumentException if the horizon is negative.
+   */
+  public DepartureArchiver(TrainDepartureRegister register, Path archive, Duration horizon) {
+    if (horizon.isNegative()) {
+      throw new IllegalArgumentException("horizon cannot be negative");
+    }
+    this.register = register;
+    this.archive = archive;
+    this.horizonSeconds = horizon.getSeconds();
+    this.deflater = new Deflater(Deflater.BEST_SPEED);
+    this.buffer = new byte[8192];
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+      Thread thread = new Thread(task, "departure-archiver");
+      thread.setDaemon(true);
+      thread.setPriority(Thread.MIN_PRIORITY);
+      return thread;
+    });
+  }
+
+  /**
+   * Gets the register the archiver archives departures from.
+   *
+   * @return the register.
+   */
+  TrainDepartureRegister getRegister() {
+    return register;
+  }
+
+  /**
+   * Starts archiving in the background, once per period.
+   *
+   * @param period the time between two runs.
+   */
+  public void start(Duration period) {
+    long millis = Math.max(1, period.toMillis());
+    scheduler.scheduleWithFixedDelay(this::runQuietly, millis, millis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stops archiving in the background, after the run that is going on, if any, and releases the
+   * native memory of the deflater. Archiving after the archiver is closed fails with an
+   * IOException.
+   */
+  @Override
+  public void close() {
+    scheduler.shutdown();
+    try {
+      scheduler.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    synchronized (deflater) {
+      closed = true;
+      deflater.end();
+    }
+  }
+
+  /**
+   * Archives the departures that left more than the horizon before the system time.
+   *
+   * @return the number of departures that were removed from the register.
+   * @throws IOException if the archive could not be written, or the departures could not be
+   *                     removed from the persistence.
+   */
+  public synchronized int archive() throws IOException {
+    DepartureBoardSnapshot board = register.getSnapshot();
+    long cutoff = board.getSystemTime().toSecondOfDay() - horizonSeconds;
+    if (cutoff < 0) {
+      return 0;
+    }
+    List<TrainDeparture> old = board.getDeparturesBetween(0, cutoff);
+    if (old.isEmpty()) {
+      return 0;
+    }
+
+    appendBlock(compress(old));
+    return register.removeUnchanged(old, departures -> { }).size();
+  }
+
+  /**
+   * Archives departures that the register is about to remove by itself, such as the departed
+   * trains a {@link DepartureClock} removes. Used as the
+   * {@link DepartureRemovalHook} of the register, so the departures are in the archive before they
+   * leave the persistence. The block is appended while the register holds its write lock.
+   *
+   * @param departures the departures to archive.
+   * @throws IOException if the archive could not be written.
+   */
+  void archiveRemoved(List<TrainDeparture> departures) throws IOException {
+    appendBlock(compress(departures));
+  }
+
+  /**
+   * Reads every departure in an archive, in the order they were archived. A train number that was
+   * archived more than once, because it changed before it could be removed from the register, is
+   * only read from its last copy.
+   *
+   * @param archive the archive file.
+   * @return the departures, or an empty list if the archive doesn't exist.
+   * @throws IOException if the archive could not be read or is damaged.
+   */
+  public static List<TrainDeparture> readArchive(Path archive) throws IOException {
+    Map<Integer, TrainDeparture> departures = new LinkedHashMap<>();
+    if (!Files.exists(archive)) {
+      return new ArrayList<>();
+    }
+    Inflater inflater = new Inflater();
+    try (DataInputStream in = new DataInputStream(Files.newInputStream(archive))) {
+      while (true) {
+        int compressedLength;
+        try {
+          compressedLength = in.readInt();
+        } catch (EOFException e) {
+          break;
+        }
+        byte[] data = new byte[in.readInt()];
+        byte[] compressed = in.readNBytes(compressedLength);
+        if (compressed.length != compressedLength) {
+          throw new IOException("archive ends in the middle of a block: " + archive);
+        }
+        inflater.reset();
+        inflater.setInput(compressed);
+        if (inflater.inflate(data) != data.length) {
+          throw new IOException("archive block has the wrong length: " + archive);
+        }
+        try (Reader reader = new InputStreamReader(new ByteArrayInputStream(data),
+            StandardCharsets.UTF_8)) {
+          CsvDepartureParser parser = new CsvDepartureParser(reader, false);
+          TrainDeparture departure = parser.next();
+          while (departure != null) {
+            departures.remove(departure.getTrainNumber());
+            departures.put(departure.getTrainNumber(), departure);
+            departure = parser.next();
+          }
+        }
+      }
+    } catch (DataFormatException e) {
+      throw new IOException("archive block could not be inflated: " + archive, e);
+    } finally {
+      inflater.end();
+    }
+    return new ArrayList<>(departures.values());
+  }
+
+  // Helper methods
+
+  /**
+   * Runs the archiving from the background thread, where exceptions are only reported.
+   */
+  private void runQuietly() {
+    try {
+      archive();
+    } catch (IOException | RuntimeException e) {
+      System.out.println(ERROR + "didn't archive departures - " + e.getMessage());
+    }
+  }
+
+  /**
+   * Compresses departures into one block of the archive. The deflater is shared, so only one
+   * block is compressed at a time.
+   *
+   * @param departures the departures to compress.
+   * @return the block, with its header.
+   * @throws IOException if the archiver is closed.
+   */
+  private byte[] compress(List<TrainDeparture> departures) throws IOException {
+    StringBuilder lines = new StringBuilder(departures.size() * 48);
+    for (TrainDeparture departure : departures) {
+      lines.append(CsvTrainDeparturePersistence.format(departure)).append(",\n");
+    }
+    byte[] data = lines.toString().getBytes(StandardCharsets.UTF_8);
+
+    synchronized (deflater) {
+      if (closed) {
+        throw new IOException("the archiver is closed: " + archive);
+      }
+      deflater.reset();
+      deflater.setInput(data);
+      deflater.finish();
+      int length = HEADER_BYTES;
+      while (!deflater.finished()) {
+        if (length == buffer.length) {
+          buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        length += deflater.deflate(buffer, length, buffer.length - length);
+      }
+      ByteBuffer.wrap(buffer).putInt(0, length - HEADER_BYTES).putInt(Integer.BYTES, data.length);
+      return Arrays.copyOf(buffer, length);
+    }
+  }
+
+  /**
+   * Appends a block to the archive and forces it to disk, before the departures in it are removed
+   * from the register.
+   *
+   * @param block the block to append.
+   * @throws IOException if the archive could not be written.
+   */
+  private void appendBlock(byte[] block) throws IOException {
+    ByteBuffer remaining = ByteBuffer.wrap(block);
+    try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+      while (remaining.hasRemaining()) {
+        channel.write(remaining);
+      }
+      channel.force(false);
+    }
+  }
+}
@@ -0,0 +1,235 @@
+package edu.ntnu.stud;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Renders departure boards as fixed-width text tables. Rows are written field by field into a
+ * reusable buffer, with padding appended from a constant string of spaces, so rendering a row
+ * makes no String objects and calls no formatter. The header and separator are made once, when
+ * the class is loaded.
+ *
+ * <p>A board is streamed to its output in chunks of about {@value #FLUSH_THRESHOLD} characters.
+ * When the output is a {@link Writer}, the chunks are handed over as a reusable char array, so the
+ * buffer is never copied into a String.
+ *
+ * <p>A renderer keeps its buffer between boards, so an instance should not be shared between
+ * threads. The static methods can be used from any thread.
+ *
+ * @author Jonathan Hubertz
+ * @version 0.1
+ * @since 17. october 2026
+ */
+public final class DepartureBoardRenderer {
+
+  private final StringBuilder buffer;
+  private char[] chars;
+
+  private static final int FLUSH_THRESHOLD = 8192;
+  private static final String LINE_SEPARATOR = System.lineSeparator();
+  private static final String SPACES = " ".repeat(18);
+
+  // Help from ChatGPT --
+  private static final String ROW_FORMAT = "%-4s | %-15s | %-18s | %-5s | %-5s%n";
+  private static final String HEADER = String.format(ROW_FORMAT,
+      "Nr", "Departure Time", "Destination", "Track", "Delay")
+      + String.format(ROW_FORMAT,
+      "----", "---------------", "------------------", "-----", "-----");
+  // --
+
+  /**
+   * Constructor for DepartureBoardRenderer.
+   */
+  public DepartureBoardRenderer() {
+    this.buffer = new StringBuilder(FLUSH_THRESHOLD + 256);
+    this.chars = new char[FLUSH_THRESHOLD + 256];
+  }
+
+  /**
+   * Writes a board with a header and one row per departure.
+   *
+   * @param systemTime the system time to show in the header.
+   * @param departures the departures to show, in the order they should be shown.
+   * @param out        the output to write the board to.
+   * @throws IOException if the board could not be written.
+   */
+  public void writeBoard(LocalTime systemTime, List<TrainDeparture> departures, Appendable out)
+      throws IOException {
+    buffer.setLength(0);
+    appendHeader(buffer, systemTime);
+    for (int i = 0; i < departures.size(); i++) {
+      appendRow(buffer, departures.get(i));
+      if (buffer.length() >= FLUSH_THRESHOLD) {
+        flush(out);
+      }
+    }
+    flush(out);
+  }
+
+  /**
+   * Writes only the rows that changed, as found by a {@link DepartureBoardTracker}, one line per
+   * change. A line starts with "-" for a dropped row, "+" for an inserted row or "~" for a row
+   * that changed in place, followed by the position of the row. Inserted and changed rows are
+   * followed by a space and the row itself.
+   *
+   * @param changes the changes to write.
+   * @param out     the output to write the changes to.
+   * @throws IOException if the changes could not be written.
+   */
+  public void writeChanges(List<BoardRowChange> changes, Appendable out) throws IOException {
+    buffer.setLength(0);
+    for (int i = 0; i < changes.size(); i++) {
+      BoardRowChange change = changes.get(i);
+      switch (change.getKind()) {
+        case DROPPED -> buffer.append('-').append(change.getPosition()).append(LINE_SEPARATOR);
+        case INSERTED -> appendRow(buffer.append('+').append(change.getPosition()).append(' '),
+            change.getDeparture());
+        case CHANGED -> appendRow(buffer.append('~').append(change.getPosition()).append(' '),
+            change.getDeparture());
+        default -> throw new IllegalStateException("unknown change " + change.getKind());
+      }
+      if (buffer.length() >= FLUSH_THRESHOLD) {
+        flush(out);
+      }
+    }
+    flush(out);
+  }
+
+  /**
+   * Appends the header of a board: the system time, the column names and a separator line.
+   *
+   * @param builder    the builder to append to.
+   * @param systemTime the system time to show.
+   * @return the builder.
+   */
+  public static StringBuilder appendHeader(StringBuilder builder, LocalTime systemTime) {
+    builder.append("\nTime: ");
+    appendTime(builder, systemTime);
+    return builder.append('\n').append(HEADER);
+  }
+
+  /**
+   * Appends the row of a departure. A departure without a track, or without a delay, leaves that
+   * column blank. The first letter of the destination is upper cased.
+   *
+   * @param builder   the builder to append to.
+   * @param departure the departure.
+   * @return the builder.
+   */
+  public static StringBuilder appendRow(StringBuilder builder, TrainDeparture departure) {
+    int start = builder.length();
+    builder.append(departure.getTrainNumber());
+    pad(builder, start + 4);
+
+    builder.append(" | ");
+    start = builder.length();
+    appendTime(builder, departure.getDepartureTime());
+    pad(builder, start + 15);
+
+    builder.append(" | ");
+    start = builder.length();
+    String destination = departure.getDestination();
+    builder.append(departure.getLine()).append(' ')
+        .append(Character.toUpperCase(destination.charAt(0)))
+        .append(destination, 1, destination.length());
+    pad(builder, start + 18);
+
+    builder.append(" | ");
+    start = builder.length();
+    if (departure.getTrack() != -1) {
+      builder.append(departure.getTrack());
+    }
+    pad(builder, start + 5);
+
+    builder.append(" | ");
+    start = builder.length();
+    if (departure.getDelayMinutes() != 0) {
+      appendMinutes(builder, departure.getDelayMinutes());
+    }
+    pad(builder, start + 5);
+
+    return builder.append(LINE_SEPARATOR);
+  }
+
+  // Helper methods
+
+  /**
+   * Writes the buffer to the output and empties it.
+   *
+   * @param out the output.
+   * @throws IOException if the buffer could not be written.
+   */
+  private void flush(Appendable out) throws IOException {
+    int length = buffer.length();
+    if (out instanceof Writer writer) {
+      if (chars.length < length) {
+        chars = new char[length];
+      }
+      buffer.getChars(0, length, chars, 0);
+      writer.write(chars, 0, length);
+    } else {
+      out.append(buffer);
+    }
+    buffer.setLength(0);
+  }
+
+  /**
+   * Appends a time the same way as {@link LocalTime#toString()}.
+   *
+   * @param builder the builder to append to.
+   * @param time    the time.
+   */
+  private static void appendTime(StringBuilder builder, LocalTime time) {
+    if (time.getNano() != 0) {
+      builder.append(time);
+      return;
+    }
+    appendTwoDigits(builder, time.getHour());
+    builder.append(':');
+    appendTwoDigits(builder, time.getMinute());
+    if (time.getSecond() != 0) {
+      builder.append(':');
+      appendTwoDigits(builder, time.getSecond());
+    }
+  }
+
+  /**
+   * Appends a number of minutes the same way as {@link TrainDeparture#formatMinutes(int)}.
+   *
+   * @param builder the builder to append to.
+   * @param minutes the number of minutes.
+   */
+  private static void appendMinutes(StringBuilder builder, int minutes) {
+    appendTwoDigits(builder, minutes / 60);
+    builder.append(':');
+    appendTwoDigits(builder, minutes % 60);
+  }
+
+  /**
+   * Appends a number with at least two digits.
+   *
+   * @param builder the builder to append to.
+   * @param number  the number, which must not be negative.
+   */
+  private static void appendTwoDigits(StringBuilder builder, int number) {
+    if (number < 10) {
+      builder.append('0');
+    }
+    builder.append(number);
+  }
+
+  /**
+   * Appends spaces until the builder reaches a given length.
+   *
+   * @param builder the builder to append to.
+   * @param end     the length to reach.
+   */
+  private static void pad(StringBuilder builder, int end) {
+    int missing = end - builder.length();
+    if (missing > 0) {
+      builder.append(SPACES, 0, missing);
+    }
+  }
+}
@@ -0,0 +1,524 @@
+package edu.ntnu.stud;
+
+import java.time.LocalTime;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * An immutable snapshot of a departure board. It holds the departures in order of departure time
+ * with delay, together with the system time and a version number that grows with every change to
+ * the register.
+ *
+ * <p>The snapshot doesn't hold a TrainDeparture object per departure. Its rows are the chunks of
+ * the register's {@link DepartureTable}, which are never changed once a snapshot shares them, so
+ * the register keeps a single copy of every departure. The departures are handed out as read-only
+ * TrainDeparture objects that are made from the columns when they are asked for, and the lists the
+ * snapshot hands out make them as they are read.
+ *
+ * <p>The time order is an array of sort keys, holding the departure time with delay in seconds
+ * and the train number, so searches in time order compare longs instead of LocalTime objects, and
+ * a time filter or a page is a range of the array found by a binary search. A change moves a
+ * single key with one array copy instead of sorting again. The seconds don't wrap around at
+ * midnight, so a train that is delayed into the next day comes after every train of the day.
+ *
+ * <p>The snapshot also indexes the departures by folded destination, with the sort keys of the
+ * departures to each destination in time order. A change copies the map of the index and replaces
+ * the keys of the one or two destinations it touches.
+ *
+ * @author Jonathan Hubertz
+ * @version 0.1
+ * @since 17. october 2026
+ */
+public final class DepartureBoardSnapshot {
+
+  private final long version;
+  private final LocalTime systemTime;
+  private final DepartureTable.Chunk[] chunks;
+  private final long[] timeKeys;
+  private final Map<String, long[]> destinationKeys;
+
+  private static final int TRAIN_NUMBER_BITS = 10;
+  private static final long NO_KEY = -1;
+
+  /**
+   * The snapshot of an empty board at midnight.
+   */
+  static final DepartureBoardSnapshot EMPTY = new DepartureBoardSnapshot(0, LocalTime.of(0, 0),
+      new DepartureTable.Chunk[DepartureTable.NUMBER_OF_CHUNKS], new long[0], Map.of());
+
+  private DepartureBoardSnapshot(long version, LocalTime systemTime,
+      DepartureTable.Chunk[] chunks, long[] timeKeys, Map<String, long[]> destinationKeys) {
+    this.version = version;
+    this.systemTime = systemTime;
+    this.chunks = chunks;
+    this.timeKeys = timeKeys;
+    this.destinationKeys = destinationKeys;
+  }
+
+  // Getters
+
+  /**
+   * Gets the version of the snapshot. A newer snapshot of the same register always has a higher
+   * version.
+   *
+   * @return the version.
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Gets the system time of the register when the snapshot was made.
+   *
+   * @return the system time.
+   */
+  public LocalTime getSystemTime() {
+    return systemTime;
+  }
+
+  /**
+   * Gets the number of departures on the board.
+   *
+   * @return the number of departures.
+   */
+  public int size() {
+    return timeKeys.length;
+  }
+
+  /**
+   * Retrieves a departure by train number.
+   *
+   * @param trainNumber the train number.
+   * @return the read-only departure, or null if it isn't on the board.
+   */
+  public TrainDeparture get(int trainNumber) {
+    if (trainNumber <= 0 || trainNumber > TrainDeparture.MAX_TRAIN_NUMBER
+        || !DepartureTable.Chunk.contains(chunks, trainNumber)) {
+      return null;
+    }
+    return toDeparture(chunks, trainNumber);
+  }
+
+  /**
+   * Gets every departure on the board, in order of departure time with delay.
+   *
+   * @return an unmodifiable list of read-only departures.
+   */
+  public List<TrainDeparture> getDepartures() {
+    return new TimeOrder(0, timeKeys.length);
+  }
+
+  /**
+   * Gets the departures that leave after a given time, in order of departure time with delay.
+   * The first departure is found by a binary search, and the list is a view of the snapshot, so
+   * nothing is copied. Trains that are delayed past midnight leave after any time of the day.
+   *
+   * @param time the time the departures must leave after.
+   * @return an unmodifiable list of read-only departures.
+   */
+  public List<TrainDeparture> getDeparturesAfter(LocalTime time) {
+    return new TimeOrder(firstFrom(time.toSecondOfDay() + 1), timeKeys.length);
+  }
+
+  /**
+   * Gets the departures to a destination, in order of departure time with delay. The destination
+   * is matched the same way as by {@link TrainDepartureRegister#searchByDestination(String)}, and
+   * is folded once to look up its departures in the destination index.
+   *
+   * @param destination the destination.
+   * @return an unmodifiable list of read-only departures.
+   */
+  public List<TrainDeparture> getDeparturesTo(String destination) {
+    long[] keys = destinationKeys.get(TrainDepartureRegister.foldDestination(destination));
+    return keys == null ? List.of() : new TimeOrder(keys, 0, keys.length);
+  }
+
+  /**
+   * Gets the departures that leave between two points in time, both included, in order of
+   * departure time with delay. The points are given in seconds from the start of the day the
+   * trains are scheduled on, and may be a day or more, to find trains delayed past midnight.
+   * Like {@link #getDeparturesAfter(LocalTime)}, the list is a view of the snapshot.
+   *
+   * @param fromSecond the earliest departure time with delay, in seconds.
+   * @param toSecond   the latest departure time with delay, in seconds.
+   * @return an unmodifiable list of read-only departures.
+   */
+  public List<TrainDeparture> getDeparturesBetween(long fromSecond, long toSecond) {
+    int first = firstFrom(fromSecond);
+    int last = firstFrom(toSecond + 1);
+    return new TimeOrder(first, Math.max(first, last));
+  }
+
+  /**
+   * Gets the departure time with delay of the last departure on the board.
+   *
+   * @return the departure time with delay in seconds from the start of the day, or -1 if the
+   *         board is empty.
+   */
+  public long getLatestDepartureSecond() {
+    return timeKeys.length == 0 ? -1 : secondOf(timeKeys[timeKeys.length - 1]);
+  }
+
+  /**
+   * Gets a page of departures in order of departure time with delay. The start of the page is
+   * found by a binary search, so the cost of a page grows with its size, not with the size of the
+   * board.
+   *
+   * @param cursor the cursor the page starts after.
+   * @param limit  the largest number of departures on the page.
+   * @return the page.
+   * @throws IllegalArgumentException if the limit is negative.
+   */
+  public DeparturePage getPage(DepartureCursor cursor, int limit) {
+    if (limit < 0) {
+      throw new IllegalArgumentException("limit cannot be negative");
+    }
+    int first = firstAfterKey(cursor.getKey());
+    int end = (int) Math.min((long) first + limit, timeKeys.length);
+    DepartureCursor next = end == first ? cursor : new DepartureCursor(timeKeys[end - 1]);
+    return new DeparturePage(new TimeOrder(first, end), next, end < timeKeys.length);
+  }
+
+  // Methods that make new snapshots
+
+  /**
+   * Makes a snapshot of every row of a table at once, after a change to many rows.
+   *
+   * @param version    the version of the new snapshot.
+   * @param systemTime the system time of the new snapshot.
+   * @param chunks     the chunks shared by the table, as given by {@link DepartureTable#share()}.
+   * @return the new snapshot.
+   */
+  static DepartureBoardSnapshot of(long version, LocalTime systemTime,
+      DepartureTable.Chunk[] chunks) {
+    long[] keys = new long[TrainDeparture.MAX_TRAIN_NUMBER];
+    int size = 0;
+    for (int trainNumber = 1; trainNumber <= TrainDeparture.MAX_TRAIN_NUMBER; trainNumber++) {
+      if (DepartureTable.Chunk.contains(chunks, trainNumber)) {
+        keys[size++] = timeKeyOf(chunks, trainNumber);
+      }
+    }
+    long[] timeKeys = Arrays.copyOf(keys, size);
+    Arrays.sort(timeKeys);
+
+    Map<String, int[]> counts = new HashMap<>();
+    for (long key : timeKeys) {
+      counts.computeIfAbsent(foldedDestinationOf(chunks, trainNumberOf(key)), f -> new int[1])[0]++;
+    }
+    Map<String, long[]> destinationKeys = new HashMap<>();
+    for (Map.Entry<String, int[]> count : counts.entrySet()) {
+      destinationKeys.put(count.getKey(), new long[count.getValue()[0]]);
+      count.getValue()[0] = 0;
+    }
+    for (long key : timeKeys) {
+      String folded = foldedDestinationOf(chunks, trainNumberOf(key));
+      destinationKeys.get(folded)[counts.get(folded)[0]++] = key;
+    }
+    return new DepartureBoardSnapshot(version, systemTime, chunks, timeKeys, destinationKeys);
+  }
+
+  /**
+   * Makes a new snapshot where one row was added, changed or removed. Only the key of the row is
+   * moved in the time order, and the destination index is only copied if the row moved or got
+   * another destination.
+   *
+   * @param newVersion  the version of the new snapshot.
+   * @param newChunks   the chunks shared by the table after the change.
+   * @param trainNumber the train number of the row that changed.
+   * @return the new snapshot.
+   */
+  DepartureBoardSnapshot withRow(long newVersion, DepartureTable.Chunk[] newChunks,
+      int trainNumber) {
+    long oldKey = NO_KEY;
+    String oldFolded = null;
+    if (DepartureTable.Chunk.contains(chunks, trainNumber)) {
+      oldKey = timeKeyOf(chunks, trainNumber);
+      oldFolded = foldedDestinationOf(chunks, trainNumber);
+    }
+    long newKey = NO_KEY;
+    String newFolded = null;
+    if (DepartureTable.Chunk.contains(newChunks, trainNumber)) {
+      newKey = timeKeyOf(newChunks, trainNumber);
+      newFolded = foldedDestinationOf(newChunks, trainNumber);
+    }
+
+    long[] newTimeKeys = timeKeys;
+    Map<String, long[]> newDestinationKeys = destinationKeys;
+    if (oldKey != newKey || !Objects.equals(oldFolded, newFolded)) {
+      newDestinationKeys = new HashMap<>(destinationKeys);
+      if (oldKey != NO_KEY) {
+        newTimeKeys = remove(newTimeKeys, Arrays.binarySearch(newTimeKeys, oldKey));
+        removeKey(newDestinationKeys, oldFolded, oldKey);
+      }
+      if (newKey != NO_KEY) {
+        newTimeKeys = insert(newTimeKeys, newKey);
+        newDestinationKeys.put(newFolded,
+            insert(newDestinationKeys.getOrDefault(newFolded, new long[0]), newKey));
+      }
+    }
+    return new DepartureBoardSnapshot(newVersion, systemTime, newChunks, newTimeKeys,
+        newDestinationKeys);
+  }
+
+  /**
+   * Makes a new snapshot without the departures that leave at or before a given second. Those
+   * departures are the start of the time order, so they are cut off with one array copy, and so
+   * are the first keys of each destination they go to.
+   *
+   * @param newVersion the version of the new snapshot.
+   * @param newChunks  the chunks shared by the table after the departures were removed.
+   * @param second     the last departure time with delay to remove, in seconds.
+   * @return the new snapshot, or this snapshot if no departure leaves by then.
+   */
+  DepartureBoardSnapshot withoutDepartedBy(long newVersion, DepartureTable.Chunk[] newChunks,
+      long second) {
+    int count = firstFrom(second + 1);
+    if (count == 0) {
+      return this;
+    }
+    Map<String, long[]> newDestinationKeys = new HashMap<>(destinationKeys);
+    long lastKey = timeKeys[count - 1];
+    for (int i = 0; i < count; i++) {
+      String folded = foldedDestinationOf(chunks, trainNumberOf(timeKeys[i]));
+      long[] keys = newDestinationKeys.get(folded);
+      if (keys != null && keys[0] <= lastKey) {
+        int position = Arrays.binarySearch(keys, lastKey);
+        int cut = position >= 0 ? position + 1 : -position - 1;
+        if (cut == keys.length) {
+          newDestinationKeys.remove(folded);
+        } else {
+          newDestinationKeys.put(folded, Arrays.copyOfRange(keys, cut, keys.length));
+        }
+      }
+    }
+    return new DepartureBoardSnapshot(newVersion, systemTime, newChunks,
+        Arrays.copyOfRange(timeKeys, count, timeKeys.length), newDestinationKeys);
+  }
+
+  /**
+   * Makes a new snapshot with another system time. All the departures are shared with this
+   * snapshot.
+   *
+   * @param newVersion    the version of the new snapshot.
+   * @param newSystemTime the system time of the new snapshot.
+   * @return the new snapshot.
+   */
+  DepartureBoardSnapshot withSystemTime(long newVersion, LocalTime newSystemTime) {
+    return new DepartureBoardSnapshot(newVersion, newSystemTime, chunks, timeKeys,
+        destinationKeys);
+  }
+
+  // Helper methods
+
+  /**
+   * Makes a read-only departure out of the row of a train number.
+   *
+   * @param chunks      the chunks that hold the row.
+   * @param trainNumber the train number of a row in use.
+   * @return the read-only departure.
+   */
+  private static TrainDeparture toDeparture(DepartureTable.Chunk[] chunks, int trainNumber) {
+    return chunks[DepartureTable.Chunk.index(trainNumber)]
+        .toDeparture(DepartureTable.Chunk.slot(trainNumber), trainNumber);
+  }
+
+  /**
+   * Makes the sort key of the row of a train number.
+   *
+   * @param chunks      the chunks that hold the row.
+   * @param trainNumber the train number of a row in use.
+   * @return the sort key.
+   */
+  private static long timeKeyOf(DepartureTable.Chunk[] chunks, int trainNumber) {
+    return timeKey(chunks[DepartureTable.Chunk.index(trainNumber)]
+        .getDepartureSecondWithDelay(DepartureTable.Chunk.slot(trainNumber)), trainNumber);
+  }
+
+  /**
+   * Gets the folded destination of the row of a train number.
+   *
+   * @param chunks      the chunks that hold the row.
+   * @param trainNumber the train number of a row in use.
+   * @return the folded destination.
+   */
+  private static String foldedDestinationOf(DepartureTable.Chunk[] chunks, int trainNumber) {
+    return chunks[DepartureTable.Chunk.index(trainNumber)]
+        .foldedDestinations[DepartureTable.Chunk.slot(trainNumber)];
+  }
+
+  /**
+   * Makes a sort key out of a departure time with delay and a train number.
+   *
+   * @param second      the departure time with delay, in seconds.
+   * @param trainNumber the train number.
+   * @return the sort key.
+   */
+  static long timeKey(long second, int trainNumber) {
+    return second << TRAIN_NUMBER_BITS | trainNumber;
+  }
+
+  /**
+   * Gets the departure time with delay out of a sort key.
+   *
+   * @param timeKey the sort key.
+   * @return the departure time with delay, in seconds.
+   */
+  static long secondOf(long timeKey) {
+    return timeKey >> TRAIN_NUMBER_BITS;
+  }
+
+  /**
+   * Gets the train number out of a sort key.
+   *
+   * @param timeKey the sort key.
+   * @return the train number.
+   */
+  private static int trainNumberOf(long timeKey) {
+    return (int) (timeKey & ((1 << TRAIN_NUMBER_BITS) - 1));
+  }
+
+  /**
+   * Removes a sort key from the keys of a destination in a copy of the destination index.
+   *
+   * @param destinationKeys the copy of the index.
+   * @param folded          the folded destination.
+   * @param key             the sort key to remove.
+   */
+  private static void removeKey(Map<String, long[]> destinationKeys, String folded, long key) {
+    long[] keys = destinationKeys.get(folded);
+    if (keys.length == 1) {
+      destinationKeys.remove(folded);
+    } else {
+      destinationKeys.put(folded, remove(keys, Arrays.binarySearch(keys, key)));
+    }
+  }
+
+  /**
+   * Finds the position of the first departure whose sort key is higher than a given key.
+   *
+   * @param key the key.
+   * @return the position, or the number of departures if no key is higher.
+   */
+  private int firstAfterKey(long key) {
+    int position = Arrays.binarySearch(timeKeys, key);
+    return position >= 0 ? position + 1 : -position - 1;
+  }
+
+  /**
+   * Finds the position of the first departure that leaves at or after a given second.
+   *
+   * @param second the second, counted from the start of the day the trains are scheduled on.
+   * @return the position, or the number of departures if none leave at or after that second.
+   */
+  private int firstFrom(long second) {
+    if (second <= 0) {
+      return 0;
+    }
+    int position = Arrays.binarySearch(timeKeys, second << TRAIN_NUMBER_BITS);
+    return position >= 0 ? position : -position - 1;
+  }
+
+  /**
+   * Copies a sorted array of sort keys with one more key in its place.
+   *
+   * @param keys the array.
+   * @param key  the key to add, which must not be in the array.
+   * @return the new array.
+   */
+  private static long[] insert(long[] keys, long key) {
+    int position = -Arrays.binarySearch(keys, key) - 1;
+    long[] inserted = new long[keys.length + 1];
+    System.arraycopy(keys, 0, inserted, 0, position);
+    inserted[position] = key;
+    System.arraycopy(keys, position, inserted, position + 1, keys.length - position);
+    return inserted;
+  }
+
+  /**
+   * Copies an array of sort keys without one of its elements.
+   *
+   * @param keys     the array.
+   * @param position the position of the element to leave out.
+   * @return the new array.
+   */
+  private static long[] remove(long[] keys, int position) {
+    long[] removed = new long[keys.length - 1];
+    System.arraycopy(keys, 0, removed, 0, position);
+    System.arraycopy(keys, position + 1, removed, position, keys.length - position - 1);
+    return removed;
+  }
+
+  /**
+   * A range of sort keys of the snapshot as a list of departures. Each departure is made from
+   * the columns when it is read, so a range costs nothing until it is read.
+   */
+  private final class TimeOrder extends AbstractList<TrainDeparture> implements RandomAccess {
+
+    private final long[] keys;
+    private final int from;
+    private final int to;
+
+    /**
+     * Constructor for a range of the time order of the snapshot.
+     *
+     * @param from the position of the first departure.
+     * @param to   the position after the last departure.
+     */
+    TimeOrder(int from, int to) {
+      this(timeKeys, from, to);
+    }
+
+    /**
+     * Constructor for a range of sort keys.
+     *
+     * @param keys the sort keys, in time order.
+     * @param from the position of the first departure.
+     * @param to   the position after the last departure.
+     */
+    TimeOrder(long[] keys, int from, int to) {
+      this.keys = keys;
+      this.from = from;
+      this.to = to;
+    }
+
+    /**
+     * Makes the departure at a position of the range.
+     *
+     * @param index the position in the range.
+     * @return the read-only departure.
+     */
+    @Override
+    public TrainDeparture get(int index) {
+      Objects.checkIndex(index, to - from);
+      return toDeparture(chunks, trainNumberOf(keys[from + index]));
+    }
+
+    /**
+     * Gets the number of departures in the range.
+     *
+     * @return the number of departures.
+     */
+    @Override
+    public int size() {
+      return to - from;
+    }
+
+    /**
+     * Gets a part of the range as a range of its own, without copying.
+     *
+     * @param fromIndex the first position, included.
+     * @param toIndex   the last position, excluded.
+     * @return the part of the range.
+     */
+    @Override
+    public List<TrainDeparture> subList(int fromIndex, int toIndex) {
+      Objects.checkFromToIndex(fromIndex, toIndex, to - from);
+      return new TimeOrder(keys, from + fromIndex, from + toIndex);
+    }
+  }
+}
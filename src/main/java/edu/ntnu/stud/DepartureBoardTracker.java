@@ -0,0 +1,150 @@
+package edu.ntnu.stud;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tracks the departure board a display last showed, and finds the rows that changed since then,
+ * so the display can repaint only those rows.
+ *
+ * <p>The tracker doesn't need to be told about changes. Every change to the register publishes a
+ * new {@link DepartureBoardSnapshot}, and when the tracker reads a new board it keeps the
+ * departure it showed last for every row whose values haven't changed. A row is therefore dirty
+ * exactly when its departure is a different object than the one last shown, which is found with
+ * one pass over the two boards.
+ *
+ * <p>The changes are listed so that applying them one by one to the board last shown gives the
+ * new board: first the dropped rows from the bottom up, then the inserted rows from the top down,
+ * and last the rows that changed in place. A departure whose time with delay changed is dropped
+ * and inserted again, since it can move to another position.
+ *
+ * <p>A tracker belongs to one display, and should not be shared between threads.
+ *
+ * @author Jonathan Hubertz
+ * @version 0.1
+ * @since 17. october 2026
+ */
+public class DepartureBoardTracker {
+
+  private final TrainDepartureRegister register;
+  private DepartureBoardSnapshot shownSnapshot;
+  private List<TrainDeparture> shownBoard;
+  private final TrainDeparture[] shownDepartures;
+  private final TrainDeparture[] newDepartures;
+
+  /**
+   * Constructor for DepartureBoardTracker. The first refresh reports every row as inserted.
+   *
+   * @param register the register whose board is shown.
+   */
+  public DepartureBoardTracker(TrainDepartureRegister register) {
+    this.register = register;
+    this.shownSnapshot = null;
+    this.shownBoard = List.of();
+    this.shownDepartures = new TrainDeparture[TrainDeparture.MAX_TRAIN_NUMBER + 1];
+    this.newDepartures = new TrainDeparture[TrainDeparture.MAX_TRAIN_NUMBER + 1];
+  }
+
+  /**
+   * Gets the board as it was at the last refresh: the departures that leave after the system time,
+   * in order of departure time with delay.
+   *
+   * @return the read-only departures last shown.
+   */
+  public List<TrainDeparture> getShownBoard() {
+    return shownBoard;
+  }
+
+  /**
+   * Finds the rows that changed since the last refresh, and remembers the new board as shown.
+   *
+   * @return the changes, in the order they should be applied.
+   * @throws IOException if the register had to be loaded and the departures could not be read.
+   */
+  public List<BoardRowChange> refresh() throws IOException {
+    DepartureBoardSnapshot snapshot = register.getSnapshot();
+    if (snapshot == shownSnapshot) {
+      return List.of();
+    }
+    List<TrainDeparture> board = keepUnchanged(
+        snapshot.getDeparturesAfter(snapshot.getSystemTime()));
+    List<BoardRowChange> changes = diff(shownBoard, board);
+    shownSnapshot = snapshot;
+    shownBoard = board;
+    return changes;
+  }
+
+  // Helper methods
+
+  /**
+   * Reads a new board, keeping the departures last shown for the rows whose values are the same.
+   *
+   * @param board the new board, as read from the snapshot.
+   * @return the new board, where only the changed rows are new departures.
+   */
+  private List<TrainDeparture> keepUnchanged(List<TrainDeparture> board) {
+    Arrays.fill(shownDepartures, null);
+    for (TrainDeparture shown : shownBoard) {
+      shownDepartures[shown.getTrainNumber()] = shown;
+    }
+    List<TrainDeparture> kept = new ArrayList<>(board.size());
+    for (TrainDeparture departure : board) {
+      TrainDeparture shown = shownDepartures[departure.getTrainNumber()];
+      kept.add(TrainDeparture.sameValues(shown, departure) ? shown : departure);
+    }
+    return Collections.unmodifiableList(kept);
+  }
+
+  /**
+   * Finds the changes that turn one board into another. The departures of the old board must
+   * already be in the array of shown departures.
+   *
+   * @param oldBoard the board last shown.
+   * @param newBoard the new board.
+   * @return the changes, in the order they should be applied.
+   */
+  private List<BoardRowChange> diff(List<TrainDeparture> oldBoard,
+      List<TrainDeparture> newBoard) {
+    Arrays.fill(newDepartures, null);
+    for (TrainDeparture departure : newBoard) {
+      newDepartures[departure.getTrainNumber()] = departure;
+    }
+
+    List<BoardRowChange> changes = new ArrayList<>();
+    for (int i = oldBoard.size() - 1; i >= 0; i--) {
+      TrainDeparture shown = oldBoard.get(i);
+      if (moved(shown, newDepartures[shown.getTrainNumber()])) {
+        changes.add(new BoardRowChange(BoardRowChange.Kind.DROPPED, i, shown));
+      }
+    }
+
+    List<BoardRowChange> changedInPlace = new ArrayList<>();
+    for (int i = 0; i < newBoard.size(); i++) {
+      TrainDeparture departure = newBoard.get(i);
+      TrainDeparture shown = shownDepartures[departure.getTrainNumber()];
+      if (moved(departure, shown)) {
+        changes.add(new BoardRowChange(BoardRowChange.Kind.INSERTED, i, departure));
+      } else if (shown != departure) {
+        changedInPlace.add(new BoardRowChange(BoardRowChange.Kind.CHANGED, i, departure));
+      }
+    }
+    changes.addAll(changedInPlace);
+    return changes;
+  }
+
+  /**
+   * Checks whether a row can't stay in place, because its departure is only on one of the boards,
+   * or its departure time with delay changed.
+   *
+   * @param departure the departure on one board.
+   * @param other     the departure with the same train number on the other board, or null.
+   * @return true if the row has to be dropped or inserted.
+   */
+  private static boolean moved(TrainDeparture departure, TrainDeparture other) {
+    return other == null || (other != departure
+        && other.getDepartureSecondWithDelay() != departure.getDepartureSecondWithDelay());
+  }
+}
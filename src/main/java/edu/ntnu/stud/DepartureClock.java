@@ -0,0 +1,161 @@
+package edu.ntnu.stud;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Moves the system time of a register forward by itself, either in real time or faster, for
+ * simulations. On every tick the system time is set from the time that has passed since the clock
+ * was started, times the speed of the clock. The register then announces a departed event for
+ * each train that left since the last tick, and the clock can also remove those trains, so the
+ * register only holds the trains that are still to leave.
+ *
+ * <p>The departed trains are found in the time order of the register's snapshot, which is keyed
+ * on the departure time with delay. They are always at the start of that order, so a tick finds
+ * them by a binary search and then only touches the trains that actually left.
+ *
+ * <p>A clock that removes departed trains and a {@link DepartureArchiver} with a horizon exclude
+ * each other, since the trains are gone long before the archiver would see them. To keep an
+ * archive as well, give the clock the archiver instead, so every departed train is appended to
+ * the archive just before it is removed.
+ *
+ * <p>The clock stops at the end of the day, since the system time has no date.
+ *
+ * @author Jonathan Hubertz
+ * @version 0.1
+ * @since 17. october 2026
+ */
+public class DepartureClock implements Closeable {
+
+  private final TrainDepartureRegister register;
+  private final double speed;
+  private final boolean removeDeparted;
+  private final DepartureArchiver archiver;
+  private final LongSupplier nanoTime;
+  private final ScheduledExecutorService ticker;
+  private long originNanos;
+  private long originNanoOfDay;
+
+  private static final String ERROR = "Error: ";
+  private static final long TICK_MILLIS = 100;
+  private static final long LAST_NANO_OF_DAY =
+      LocalTime.MAX.truncatedTo(ChronoUnit.SECONDS).toNanoOfDay();
+
+  /**
+   * Constructor for DepartureClock. The clock doesn't move until it is started.
+   *
+   * @param register       the register whose system time to move.
+   * @param speed          how many seconds of system time pass per real second. 1 is real time.
+   * @param removeDeparted whether trains are removed from the register when they have left.
+   *                       They are not archived.
+   * @throws IllegalArgumentException if the speed is not positive.
+   */
+  public DepartureClock(TrainDepartureRegister register, double speed, boolean removeDeparted) {
+    this(register, speed, removeDeparted, null, System::nanoTime);
+  }
+
+  /**
+   * Constructor for a DepartureClock that moves departed trains into an archive. The trains are
+   * removed from the register of the archiver when they have left, whatever the horizon of the
+   * archiver is.
+   *
+   * @param archiver the archiver of the register whose system time to move.
+   * @param speed    how many seconds of system time pass per real second. 1 is real time.
+   * @throws IllegalArgumentException if the speed is not positive.
+   */
+  public DepartureClock(DepartureArchiver archiver, double speed) {
+    this(archiver.getRegister(), speed, true, archiver, System::nanoTime);
+  }
+
+  /**
+   * Constructor for DepartureClock with a source of real time.
+   *
+   * @param register       the register whose system time to move.
+   * @param speed          how many seconds of system time pass per real second.
+   * @param removeDeparted whether trains are removed from the register when they have left.
+   * @param archiver       the archiver to hand the removed trains to, or null.
+   * @param nanoTime       gives the real time in nanoseconds, like {@link System#nanoTime()}.
+   * @throws IllegalArgumentException if the speed is not positive.
+   */
+  DepartureClock(TrainDepartureRegister register, double speed, boolean removeDeparted,
+      DepartureArchiver archiver, LongSupplier nanoTime) {
+    if (!(speed > 0) || Double.isInfinite(speed)) {
+      throw new IllegalArgumentException("speed must be positive");
+    }
+    this.register = register;
+    this.speed = speed;
+    this.removeDeparted = removeDeparted;
+    this.archiver = archiver;
+    this.nanoTime = nanoTime;
+    this.ticker = Executors.newSingleThreadScheduledExecutor(task -> {
+      Thread thread = new Thread(task, "departure-clock");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Gets the speed of the clock.
+   *
+   * @return how many seconds of system time pass per real second.
+   */
+  public double getSpeed() {
+    return speed;
+  }
+
+  /**
+   * Starts moving the system time forward from what it is now.
+   */
+  public synchronized void start() {
+    originNanos = nanoTime.getAsLong();
+    originNanoOfDay = register.getSystemTime().toNanoOfDay();
+    ticker.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stops the clock. The system time stays where it is.
+   */
+  @Override
+  public void close() {
+    ticker.shutdownNow();
+  }
+
+  /**
+   * Moves the system time to where the clock is now, in whole seconds, and removes the trains
+   * that have left if the clock does that. Whether any train has left is checked on the latest
+   * snapshot first, so a tick where nothing left doesn't take the register's write lock. A system
+   * time that was set later than the clock by hand is left alone until the clock passes it.
+   */
+  synchronized void tick() {
+    double elapsed = (nanoTime.getAsLong() - originNanos) * speed;
+    long nanoOfDay = (long) Math.min(originNanoOfDay + elapsed, LAST_NANO_OF_DAY);
+    LocalTime now = LocalTime.ofNanoOfDay(nanoOfDay).truncatedTo(ChronoUnit.SECONDS);
+    if (now.isAfter(register.getSystemTime())) {
+      register.setSystemTime(now);
+    }
+    if (removeDeparted) {
+      try {
+        DepartureBoardSnapshot board = register.getSnapshot();
+        int second = board.getSystemTime().toSecondOfDay();
+        if (!board.getDeparturesBetween(0, second).isEmpty()) {
+          if (archiver == null) {
+            register.removeDeparted();
+          } else {
+            register.removeDeparted(archiver::archiveRemoved);
+          }
+        }
+      } catch (IOException e) {
+        System.out.println(ERROR + "didn't remove departed trains - " + e.getMessage());
+      }
+    }
+    if (nanoOfDay == LAST_NANO_OF_DAY) {
+      ticker.shutdown();
+    }
+  }
+}
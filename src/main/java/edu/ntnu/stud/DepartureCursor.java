@@ -0,0 +1,95 @@
+package edu.ntnu.stud;
+
+import java.time.LocalTime;
+
+/**
+ * A position on a departure board, used to page through the departures in order of departure
+ * time with delay. A cursor points between two departures by their time with delay and train
+ * number, not by an index, so paging goes on from the right place even if departures were added,
+ * removed or delayed since the last page.
+ *
+ * <p>A cursor can be turned into a short token with {@link #toToken()}, for example to hand it to
+ * a display, and turned back with {@link #fromToken(String)}.
+ *
+ * @author Jonathan Hubertz
+ * @version 0.1
+ * @since 17. october 2026
+ */
+public final class DepartureCursor {
+
+  private final long key;
+
+  /**
+   * Constructor for DepartureCursor.
+   *
+   * @param key the sort key the cursor is after. The next page starts with the first departure
+   *            whose sort key is higher.
+   */
+  DepartureCursor(long key) {
+    this.key = key;
+  }
+
+  /**
+   * Makes a cursor that starts with the departures leaving after a given time.
+   *
+   * @param time the time.
+   * @return the cursor.
+   */
+  public static DepartureCursor after(LocalTime time) {
+    return new DepartureCursor(DepartureBoardSnapshot.timeKey(time.toSecondOfDay() + 1L, 0) - 1);
+  }
+
+  /**
+   * Makes a cursor out of a token made by {@link #toToken()}.
+   *
+   * @param token the token.
+   * @return the cursor.
+   * @throws IllegalArgumentException if the token is not a valid cursor.
+   */
+  public static DepartureCursor fromToken(String token) {
+    try {
+      return new DepartureCursor(Long.parseLong(token, Character.MAX_RADIX));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("invalid cursor: " + token);
+    }
+  }
+
+  /**
+   * Turns the cursor into a short token.
+   *
+   * @return the token.
+   */
+  public String toToken() {
+    return Long.toString(key, Character.MAX_RADIX);
+  }
+
+  /**
+   * Gets the sort key the cursor is after.
+   *
+   * @return the sort key.
+   */
+  long getKey() {
+    return key;
+  }
+
+  /**
+   * Checks whether another object is a cursor at the same position.
+   *
+   * @param other the other object.
+   * @return true if the other object is a cursor at the same position.
+   */
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof DepartureCursor cursor && cursor.key == key;
+  }
+
+  /**
+   * Gets the hash code of the cursor.
+   *
+   * @return the hash code.
+   */
+  @Override
+  public int hashCode() {
+    return Long.hashCode(key);
+  }
+}
@@ -0,0 +1,108 @@
+package edu.ntnu.stud;
+
+/**
+ * A change to a departure in a register, as delivered by a {@link DepartureEventBus}.
+ *
+ * <p>Events are slots of a ring buffer that is allocated once and then reused, so an event object
+ * is only valid while it is being handled. A listener that wants to keep the values should copy
+ * them out; the departure itself is read-only and can be kept.
+ *
+ * @author Jonathan Hubertz
+ * @version 0.1
+ * @since 17. october 2026
+ */
+public final class DepartureEvent {
+
+  /**
+   * The kinds of change to a departure.
+   */
+  public enum Type {
+    /** A departure was added. */
+    ADDED,
+    /** The delay of a departure changed. */
+    DELAYED,
+    /** A departure was given a track, or moved to another track. */
+    TRACK_ASSIGNED,
+    /** A departure was removed. */
+    REMOVED,
+    /** The system time passed the departure time with delay of a departure. */
+    DEPARTED
+  }
+
+  private volatile long sequence;
+  private volatile Type type;
+  private volatile TrainDeparture departure;
+
+  /**
+   * Constructor for an empty DepartureEvent.
+   */
+  DepartureEvent() {
+    this.sequence = -1;
+  }
+
+  // Getters
+
+  /**
+   * Gets the sequence number of the event. Events are numbered from 0 in the order they were
+   * published.
+   *
+   * @return the sequence number.
+   */
+  public long getSequence() {
+    return sequence;
+  }
+
+  /**
+   * Gets the kind of change.
+   *
+   * @return the kind of change.
+   */
+  public Type getType() {
+    return type;
+  }
+
+  /**
+   * Gets the departure after the change. For a removed or departed train, this is the departure
+   * as it was last.
+   *
+   * @return the read-only departure.
+   */
+  public TrainDeparture getDeparture() {
+    return departure;
+  }
+
+  // Methods used by the event bus
+
+  /**
+   * Fills the event. The sequence number is cleared first and set last, so that a reader that
+   * sees the same sequence number before and after reading the other fields knows they belong
+   * together.
+   *
+   * @param sequence  the sequence number.
+   * @param type      the kind of change.
+   * @param departure the departure.
+   */
+  void set(long sequence, Type type, TrainDeparture departure) {
+    this.sequence = -1;
+    this.type = type;
+    this.departure = departure;
+    this.sequence = sequence;
+  }
+
+  /**
+   * Copies a published event into this one.
+   *
+   * @param event    the published event.
+   * @param expected the sequence number the published event should have.
+   * @return true if the copy is whole, false if the event was overwritten while it was copied.
+   */
+  boolean copyFrom(DepartureEvent event, long expected) {
+    if (event.sequence != expected) {
+      return false;
+    }
+    type = event.type;
+    departure = event.departure;
+    sequence = expected;
+    return event.sequence == expected;
+  }
+}
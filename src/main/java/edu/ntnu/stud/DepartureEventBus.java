@@ -0,0 +1,202 @@
+package edu.ntnu.stud;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Publishes the changes to a register as {@link DepartureEvent}s. The events are written into a
+ * ring buffer whose slots are allocated once, when the bus is made, so publishing an event makes
+ * no objects. Each subscription reads the ring on its own thread, in batches of every event that
+ * is available, and keeps its own position, so any number of listeners can follow the register
+ * without the writer handing anything to them.
+ *
+ * <p>When a listener falls a full ring behind, its {@link OverflowPolicy} decides what happens:
+ *
+ * <ul>
+ *   <li>{@link OverflowPolicy#BLOCK} makes the writer wait until the listener has caught up, so no
+ *   event is ever lost.</li>
+ *   <li>{@link OverflowPolicy#DROP} lets the writer go on, and the listener skips the events that
+ *   were overwritten.</li>
+ *   <li>{@link OverflowPolicy#COALESCE} is like DROP, but each batch is also reduced to the last
+ *   event of each train, so a slow listener only sees the latest change to a departure.</li>
+ * </ul>
+ *
+ * <p>A listener that was skipped past events is told how many through
+ * {@link DepartureEventListener#onMissed(long)}.
+ *
+ * @author Jonathan Hubertz
+ * @version 0.1
+ * @since 17. october 2026
+ */
+public final class DepartureEventBus {
+
+  /**
+   * What to do when a listener falls a full ring behind the writer.
+   */
+  public enum OverflowPolicy {
+    /** The writer waits for the listener. */
+    BLOCK,
+    /** The listener skips the events it missed. */
+    DROP,
+    /** The listener skips the events it missed and gets the last event of each train. */
+    COALESCE
+  }
+
+  private final DepartureEvent[] ring;
+  private final int mask;
+  private volatile long cursor;
+  private long gate;
+  private volatile DepartureEventSubscription[] subscriptions;
+
+  /** The number of slots in the ring of a bus made with the default constructor. */
+  public static final int DEFAULT_CAPACITY = 1024;
+
+  private static final long WAIT_NANOS = 50_000;
+
+  /**
+   * Constructor for a DepartureEventBus with {@value #DEFAULT_CAPACITY} slots.
+   */
+  public DepartureEventBus() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Constructor for a DepartureEventBus.
+   *
+   * @param capacity the number of slots in the ring, which must be a power of two.
+   * @throws IllegalArgumentException if the capacity is not a positive power of two.
+   */
+  public DepartureEventBus(int capacity) {
+    if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("capacity must be a positive power of two");
+    }
+    this.ring = new DepartureEvent[capacity];
+    for (int i = 0; i < capacity; i++) {
+      ring[i] = new DepartureEvent();
+    }
+    this.mask = capacity - 1;
+    this.cursor = -1;
+    this.gate = -1;
+    this.subscriptions = new DepartureEventSubscription[0];
+  }
+
+  // Getters
+
+  /**
+   * Gets the number of slots in the ring.
+   *
+   * @return the capacity.
+   */
+  public int getCapacity() {
+    return ring.length;
+  }
+
+  /**
+   * Gets the sequence number of the last event that was published.
+   *
+   * @return the sequence number, or -1 if no event was published yet.
+   */
+  public long getCursor() {
+    return cursor;
+  }
+
+  // Methods for subscribing
+
+  /**
+   * Starts delivering the events published from now on to a listener, on a new thread. A
+   * listener with {@link OverflowPolicy#BLOCK} holds up the publisher when it is slow. The register
+   * publishes after it has released its lock, so such a listener may still read and change the
+   * register.
+   *
+   * @param listener the listener.
+   * @param policy   what to do when the listener falls a full ring behind.
+   * @return the subscription, which must be closed to stop the thread.
+   * @throws IllegalArgumentException if the listener or policy is null.
+   */
+  public synchronized DepartureEventSubscription subscribe(DepartureEventListener listener,
+      OverflowPolicy policy) {
+    if (listener == null || policy == null) {
+      throw new IllegalArgumentException("listener and policy cannot be null");
+    }
+    DepartureEventSubscription subscription =
+        new DepartureEventSubscription(this, listener, policy, cursor);
+    DepartureEventSubscription[] current = subscriptions;
+    DepartureEventSubscription[] added = Arrays.copyOf(current, current.length + 1);
+    added[current.length] = subscription;
+    subscriptions = added;
+    gate = -1;
+    subscription.start();
+    return subscription;
+  }
+
+  // Methods used by the register and the subscriptions
+
+  /**
+   * Publishes an event. Publishers are serialized, and a publisher waits while a listener with
+   * {@link OverflowPolicy#BLOCK} is a full ring behind.
+   *
+   * @param type      the kind of change.
+   * @param departure the read-only departure.
+   */
+  synchronized void publish(DepartureEvent.Type type, TrainDeparture departure) {
+    long sequence = cursor + 1;
+    long wrapPoint = sequence - ring.length;
+    while (wrapPoint > gate) {
+      gate = slowestBlockingSequence();
+      if (wrapPoint > gate) {
+        LockSupport.parkNanos(this, WAIT_NANOS);
+      }
+    }
+    ring[(int) sequence & mask].set(sequence, type, departure);
+    cursor = sequence;
+    for (DepartureEventSubscription subscription : subscriptions) {
+      subscription.wake();
+    }
+  }
+
+  /**
+   * Gets the slot of a sequence number.
+   *
+   * @param sequence the sequence number.
+   * @return the slot, which may already hold a later event.
+   */
+  DepartureEvent slot(long sequence) {
+    return ring[(int) sequence & mask];
+  }
+
+  /**
+   * Stops publishing to a subscription.
+   *
+   * @param subscription the subscription.
+   */
+  synchronized void unsubscribe(DepartureEventSubscription subscription) {
+    DepartureEventSubscription[] current = subscriptions;
+    DepartureEventSubscription[] kept = new DepartureEventSubscription[current.length];
+    int count = 0;
+    for (DepartureEventSubscription other : current) {
+      if (other != subscription) {
+        kept[count++] = other;
+      }
+    }
+    subscriptions = Arrays.copyOf(kept, count);
+  }
+
+  // Helper methods
+
+  /**
+   * Finds the last event handled by the slowest open subscription with
+   * {@link OverflowPolicy#BLOCK}. Subscriptions that are closing are left out, so closing one
+   * never waits for a writer that waits for it.
+   *
+   * @return the sequence number, or {@link Long#MAX_VALUE} if there is no such subscription.
+   */
+  private long slowestBlockingSequence() {
+    long slowest = Long.MAX_VALUE;
+    for (DepartureEventSubscription subscription : subscriptions) {
+      if (subscription.isBlocking()) {
+        slowest = Math.min(slowest, subscription.getSequence());
+      }
+    }
+    return slowest;
+  }
+}
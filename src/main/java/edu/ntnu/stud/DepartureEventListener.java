@@ -0,0 +1,30 @@
+package edu.ntnu.stud;
+
+/**
+ * Receives the events of a {@link DepartureEventBus}. The events are handed over in batches, on
+ * the thread of the subscription.
+ *
+ * @author Jonathan Hubertz
+ * @version 0.1
+ * @since 17. october 2026
+ */
+public interface DepartureEventListener {
+
+  /**
+   * Handles an event. The event object is reused after this method returns.
+   *
+   * @param event      the event.
+   * @param endOfBatch true if this is the last event of the batch that was available.
+   */
+  void onEvent(DepartureEvent event, boolean endOfBatch);
+
+  /**
+   * Called when the listener fell so far behind that events were overwritten before it could read
+   * them. A listener that needs the full state can read a new snapshot of the register. Does
+   * nothing by default.
+   *
+   * @param count the number of events that were missed.
+   */
+  default void onMissed(long count) {
+  }
+}
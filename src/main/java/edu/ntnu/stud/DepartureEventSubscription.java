@@ -0,0 +1,219 @@
+package edu.ntnu.stud;
+
+import java.io.Closeable;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A listener that follows a {@link DepartureEventBus} on a thread of its own. The thread reads
+ * every event that is available into a batch that was allocated with the subscription, then hands
+ * the batch to the listener, so a slow listener never holds up reading and a fast one never waits
+ * for more than one event.
+ *
+ * @author Jonathan Hubertz
+ * @version 0.1
+ * @since 17. october 2026
+ */
+public final class DepartureEventSubscription implements Closeable {
+
+  private final DepartureEventBus bus;
+  private final DepartureEventListener listener;
+  private final DepartureEventBus.OverflowPolicy policy;
+  private final DepartureEvent[] batch;
+  private final int[] lastInBatch;
+  private final Thread thread;
+  private volatile long sequence;
+  private volatile long missed;
+  private volatile boolean running;
+  private volatile boolean waiting;
+
+  private static final String ERROR = "Error: ";
+  private static final long IDLE_NANOS = 10_000_000;
+
+  /**
+   * Constructor for DepartureEventSubscription.
+   *
+   * @param bus      the bus to follow.
+   * @param listener the listener.
+   * @param policy   what to do when the listener falls a full ring behind.
+   * @param sequence the sequence number of the last event the listener should not get.
+   */
+  DepartureEventSubscription(DepartureEventBus bus, DepartureEventListener listener,
+      DepartureEventBus.OverflowPolicy policy, long sequence) {
+    this.bus = bus;
+    this.listener = listener;
+    this.policy = policy;
+    this.batch = new DepartureEvent[bus.getCapacity()];
+    for (int i = 0; i < batch.length; i++) {
+      batch[i] = new DepartureEvent();
+    }
+    this.lastInBatch = new int[TrainDeparture.MAX_TRAIN_NUMBER + 1];
+    this.thread = new Thread(this::run, "departure-events");
+    this.thread.setDaemon(true);
+    this.sequence = sequence;
+    this.missed = 0;
+    this.running = true;
+  }
+
+  // Getters
+
+  /**
+   * Gets what happens when the listener falls a full ring behind.
+   *
+   * @return the overflow policy.
+   */
+  public DepartureEventBus.OverflowPolicy getPolicy() {
+    return policy;
+  }
+
+  /**
+   * Gets the sequence number of the last event the listener has been given or has skipped.
+   *
+   * @return the sequence number.
+   */
+  public long getSequence() {
+    return sequence;
+  }
+
+  /**
+   * Gets the number of events the listener has missed because it fell behind.
+   *
+   * @return the number of missed events.
+   */
+  public long getMissed() {
+    return missed;
+  }
+
+  /**
+   * Stops the subscription and waits for the listener to finish its current batch. Events that
+   * were not yet handed over are not delivered.
+   */
+  @Override
+  public void close() {
+    running = false;
+    LockSupport.unpark(thread);
+    bus.unsubscribe(this);
+    if (Thread.currentThread() != thread) {
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  // Methods used by the event bus
+
+  /**
+   * Starts the thread of the subscription.
+   */
+  void start() {
+    thread.start();
+  }
+
+  /**
+   * Checks whether the writer must wait for this subscription.
+   *
+   * @return true if the subscription is open and blocks the writer.
+   */
+  boolean isBlocking() {
+    return running && policy == DepartureEventBus.OverflowPolicy.BLOCK;
+  }
+
+  /**
+   * Wakes the thread of the subscription if it is waiting for events.
+   */
+  void wake() {
+    if (waiting) {
+      LockSupport.unpark(thread);
+    }
+  }
+
+  // Helper methods
+
+  /**
+   * Reads and delivers batches until the subscription is closed.
+   */
+  private void run() {
+    long next = sequence + 1;
+    while (running) {
+      long available = bus.getCursor();
+      if (available < next) {
+        idle(next);
+        continue;
+      }
+
+      long oldest = available - batch.length + 1;
+      if (next < oldest) {
+        skip(oldest - next);
+        next = oldest;
+      }
+
+      int count = 0;
+      while (next + count <= available
+          && batch[count].copyFrom(bus.slot(next + count), next + count)) {
+        count++;
+      }
+      if (count == 0) {
+        Thread.onSpinWait();
+        continue;
+      }
+
+      deliver(count);
+      next += count;
+      sequence = next - 1;
+    }
+  }
+
+  /**
+   * Waits until an event after a given one is published, or the subscription is closed.
+   *
+   * @param next the sequence number of the event to wait for.
+   */
+  private void idle(long next) {
+    waiting = true;
+    if (running && bus.getCursor() < next) {
+      LockSupport.parkNanos(this, IDLE_NANOS);
+    }
+    waiting = false;
+  }
+
+  /**
+   * Hands a batch to the listener. With {@link DepartureEventBus.OverflowPolicy#COALESCE}, only
+   * the last event of each train in the batch is handed over.
+   *
+   * @param count the number of events in the batch.
+   */
+  private void deliver(int count) {
+    boolean coalesce = policy == DepartureEventBus.OverflowPolicy.COALESCE;
+    if (coalesce) {
+      for (int i = 0; i < count; i++) {
+        lastInBatch[batch[i].getDeparture().getTrainNumber()] = i;
+      }
+    }
+    for (int i = 0; i < count; i++) {
+      DepartureEvent event = batch[i];
+      if (coalesce && lastInBatch[event.getDeparture().getTrainNumber()] != i) {
+        continue;
+      }
+      try {
+        listener.onEvent(event, i == count - 1);
+      } catch (RuntimeException e) {
+        System.out.println(ERROR + "departure event listener failed - " + e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Skips events that were overwritten before they could be read, and tells the listener.
+   *
+   * @param count the number of events skipped.
+   */
+  private void skip(long count) {
+    missed += count;
+    try {
+      listener.onMissed(count);
+    } catch (RuntimeException e) {
+      System.out.println(ERROR + "departure event listener failed - " + e.getMessage());
+    }
+  }
+}
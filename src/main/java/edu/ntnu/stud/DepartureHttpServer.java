@@ -0,0 +1,460 @@
+package edu.ntnu.stud;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the departures of a register as JSON over HTTP, so other systems can read the boards
+ * without the text user interface. Every answer is made from the in-memory snapshot of the
+ * register, and the server never changes the register.
+ *
+ * <p>The server answers GET requests on these paths:
+ *
+ * <ul>
+ *   <li>{@code /departures/{trainNumber}} gives one departure, or 404 if there is none.</li>
+ *   <li>{@code /departures?destination=...} gives the departures to a destination, in order of
+ *   departure time with delay.</li>
+ *   <li>{@code /board?limit=...&cursor=...} gives the next departures after the system time, one
+ *   page at a time. The {@code next} field of a page is the cursor of the page after it.</li>
+ * </ul>
+ *
+ * <p>Every answer carries the version of the snapshot it was made from, both in the ETag and in
+ * the {@code X-Board-Version} header. The version starts over in every new register, so the ETag
+ * also holds a random token made when the server starts, and an ETag from before a restart never
+ * matches. A client that sends the ETag back in {@code If-None-Match} gets an empty 304 as long
+ * as the register hasn't changed, and the answer is not even made. The request is checked first,
+ * so a bad request or an unknown resource never gets a 304. Every answer is made from the same
+ * snapshot its ETag comes from.
+ *
+ * <p>The board is relative to the system time of the register. The server never moves it, so
+ * the register must be driven by a {@link DepartureClock} or by hand for the board to move on.
+ *
+ * <p>Requests are handled on virtual threads when the JVM has them, and on a pool of platform
+ * threads otherwise.
+ *
+ * @author Jonathan Hubertz
+ * @version 0.1
+ * @since 17. october 2026
+ */
+public final class DepartureHttpServer implements Closeable {
+
+  private final TrainDepartureRegister register;
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final String instanceToken;
+
+  private static final int DEFAULT_LIMIT = 20;
+  private static final String JSON = "application/json; charset=utf-8";
+
+  /**
+   * Constructor for DepartureHttpServer. The server doesn't answer requests until it is started.
+   *
+   * @param register the register to serve.
+   * @param address  the address to listen on. Port 0 picks a free port.
+   * @throws IOException if the address could not be bound.
+   */
+  public DepartureHttpServer(TrainDepartureRegister register, InetSocketAddress address)
+      throws IOException {
+    this.register = register;
+    this.server = HttpServer.create(address, 0);
+    this.executor = newExecutor();
+    this.instanceToken = Long.toString(new SecureRandom().nextLong() >>> 1, 36);
+    server.setExecutor(executor);
+    server.createContext("/departures", this::handleDepartures);
+    server.createContext("/board", this::handleBoard);
+  }
+
+  /**
+   * Starts answering requests.
+   */
+  public void start() {
+    server.start();
+  }
+
+  /**
+   * Gets the port the server listens on.
+   *
+   * @return the port.
+   */
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * Stops the server. Requests that are being answered are given a second to finish.
+   */
+  @Override
+  public void close() {
+    server.stop(1);
+    executor.shutdown();
+  }
+
+  // Handlers
+
+  /**
+   * Answers {@code /departures/{trainNumber}} and {@code /departures?destination=...}.
+   *
+   * @param exchange the request and response.
+   * @throws IOException if the response could not be sent.
+   */
+  private void handleDepartures(HttpExchange exchange) throws IOException {
+    try {
+      if (!checkMethod(exchange)) {
+        return;
+      }
+      DepartureBoardSnapshot board = register.getSnapshot();
+      String path = exchange.getRequestURI().getPath();
+      if (path.equals("/departures") || path.equals("/departures/")) {
+        String destination = queryParameter(exchange, "destination");
+        if (destination == null) {
+          sendError(exchange, 400, "destination is missing");
+          return;
+        }
+        if (notModified(exchange, board)) {
+          return;
+        }
+        StringBuilder json = new StringBuilder();
+        appendDepartures(json, board.getDeparturesTo(destination));
+        send(exchange, 200, board, json);
+        return;
+      }
+      if (!path.startsWith("/departures/")) {
+        sendError(exchange, 404, "not found");
+        return;
+      }
+
+      TrainDeparture departure = board.get(parseInt(path.substring("/departures/".length()),
+          "train number"));
+      if (departure == null) {
+        sendError(exchange, 404, "train number not found");
+        return;
+      }
+      if (notModified(exchange, board)) {
+        return;
+      }
+      send(exchange, 200, board, appendDeparture(new StringBuilder(), departure));
+    } catch (IllegalArgumentException e) {
+      sendError(exchange, 400, e.getMessage());
+    } finally {
+      exchange.close();
+    }
+  }
+
+  /**
+   * Answers {@code /board?limit=...&cursor=...}.
+   *
+   * @param exchange the request and response.
+   * @throws IOException if the response could not be sent.
+   */
+  private void handleBoard(HttpExchange exchange) throws IOException {
+    try {
+      if (!checkMethod(exchange)) {
+        return;
+      }
+      String path = exchange.getRequestURI().getPath();
+      if (!path.equals("/board") && !path.equals("/board/")) {
+        sendError(exchange, 404, "not found");
+        return;
+      }
+      DepartureBoardSnapshot board = register.getSnapshot();
+      String limit = queryParameter(exchange, "limit");
+      String cursor = queryParameter(exchange, "cursor");
+      DeparturePage page = board.getPage(
+          cursor == null ? DepartureCursor.after(board.getSystemTime())
+              : DepartureCursor.fromToken(cursor),
+          limit == null ? DEFAULT_LIMIT : parseInt(limit, "limit"));
+      if (notModified(exchange, board)) {
+        return;
+      }
+
+      StringBuilder json = new StringBuilder();
+      json.append("{\"version\":").append(board.getVersion())
+          .append(",\"systemTime\":\"").append(board.getSystemTime()).append("\",\"departures\":");
+      appendDepartures(json, page.getDepartures());
+      json.append(",\"next\":");
+      if (page.hasMore()) {
+        json.append('"').append(page.getNext().toToken()).append('"');
+      } else {
+        json.append("null");
+      }
+      send(exchange, 200, board, json.append('}'));
+    } catch (IllegalArgumentException e) {
+      sendError(exchange, 400, e.getMessage());
+    } finally {
+      exchange.close();
+    }
+  }
+
+  // Helper methods
+
+  /**
+   * Makes the executor for the requests: a virtual thread per request if the JVM has virtual
+   * threads, found by reflection so the class still runs on older JVMs, or else a pool of
+   * platform threads.
+   *
+   * @return the executor.
+   */
+  private static ExecutorService newExecutor() {
+    try {
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
+    }
+  }
+
+  /**
+   * Answers 405 to anything but GET.
+   *
+   * @param exchange the request and response.
+   * @return true if the request is a GET.
+   * @throws IOException if the response could not be sent.
+   */
+  private static boolean checkMethod(HttpExchange exchange) throws IOException {
+    if (exchange.getRequestMethod().equals("GET")) {
+      return true;
+    }
+    exchange.getResponseHeaders().set("Allow", "GET");
+    sendError(exchange, 405, "only GET is allowed");
+    return false;
+  }
+
+  /**
+   * Answers 304 if the client already has the answer made from this snapshot.
+   *
+   * @param exchange the request and response.
+   * @param board    the snapshot the answer would be made from.
+   * @return true if 304 was sent.
+   * @throws IOException if the response could not be sent.
+   */
+  private boolean notModified(HttpExchange exchange, DepartureBoardSnapshot board)
+      throws IOException {
+    if (!matches(exchange.getRequestHeaders().get("If-None-Match"), etag(board))) {
+      return false;
+    }
+    setVersionHeaders(exchange, board);
+    exchange.sendResponseHeaders(304, -1);
+    return true;
+  }
+
+  /**
+   * Checks whether If-None-Match headers hold an ETag. Each header can hold a list of ETags
+   * separated by commas, and weak ETags, starting with W/, match as well, since the answers are
+   * compared by version only.
+   *
+   * @param ifNoneMatch the values of the If-None-Match headers, or null if there are none.
+   * @param etag        the ETag of the answer.
+   * @return true if one of the ETags is the ETag of the answer, or *.
+   */
+  static boolean matches(List<String> ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String header : ifNoneMatch) {
+      for (String tag : header.split(",")) {
+        tag = tag.strip();
+        if (tag.startsWith("W/")) {
+          tag = tag.substring(2);
+        }
+        if (tag.equals(etag) || tag.equals("*")) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Sends a JSON answer with the version of the snapshot it was made from.
+   *
+   * @param exchange the request and response.
+   * @param status   the status code.
+   * @param board    the snapshot the answer was made from.
+   * @param json     the answer.
+   * @throws IOException if the response could not be sent.
+   */
+  private void send(HttpExchange exchange, int status, DepartureBoardSnapshot board,
+      CharSequence json) throws IOException {
+    setVersionHeaders(exchange, board);
+    sendJson(exchange, status, json);
+  }
+
+  /**
+   * Sends an error as a JSON object with an error field.
+   *
+   * @param exchange the request and response.
+   * @param status   the status code.
+   * @param message  the error message.
+   * @throws IOException if the response could not be sent.
+   */
+  private static void sendError(HttpExchange exchange, int status, String message)
+      throws IOException {
+    StringBuilder json = new StringBuilder("{\"error\":");
+    appendString(json, message == null ? "bad request" : message);
+    sendJson(exchange, status, json.append('}'));
+  }
+
+  /**
+   * Sends a JSON body.
+   *
+   * @param exchange the request and response.
+   * @param status   the status code.
+   * @param json     the body.
+   * @throws IOException if the response could not be sent.
+   */
+  private static void sendJson(HttpExchange exchange, int status, CharSequence json)
+      throws IOException {
+    byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", JSON);
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  /**
+   * Sets the ETag, X-Board-Version and Cache-Control headers of a snapshot. Cache-Control asks
+   * clients to check the ETag every time instead of keeping the answer for a while.
+   *
+   * @param exchange the request and response.
+   * @param board    the snapshot.
+   */
+  private void setVersionHeaders(HttpExchange exchange, DepartureBoardSnapshot board) {
+    exchange.getResponseHeaders().set("ETag", etag(board));
+    exchange.getResponseHeaders().set("X-Board-Version", Long.toString(board.getVersion()));
+    exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+  }
+
+  /**
+   * The ETag of a snapshot.
+   *
+   * @param board the snapshot.
+   * @return the token of the server and the version of the snapshot, in quotes.
+   */
+  private String etag(DepartureBoardSnapshot board) {
+    return "\"" + instanceToken + "-" + board.getVersion() + "\"";
+  }
+
+  /**
+   * Finds a parameter in the query of a request.
+   *
+   * @param exchange the request.
+   * @param name     the name of the parameter.
+   * @return the decoded value of the first parameter with the name, or null if there is none.
+   */
+  private static String queryParameter(HttpExchange exchange, String name) {
+    String query = exchange.getRequestURI().getRawQuery();
+    if (query == null) {
+      return null;
+    }
+    for (String parameter : query.split("&")) {
+      int equals = parameter.indexOf('=');
+      String key = equals < 0 ? parameter : parameter.substring(0, equals);
+      if (URLDecoder.decode(key, StandardCharsets.UTF_8).equals(name)) {
+        return equals < 0 ? "" : URLDecoder.decode(parameter.substring(equals + 1),
+            StandardCharsets.UTF_8);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Parses a whole number from a request.
+   *
+   * @param text the text to parse.
+   * @param name the name of the number, for the error message.
+   * @return the number.
+   * @throws IllegalArgumentException if the text is not a whole number.
+   */
+  private static int parseInt(String text, String name) {
+    try {
+      return Integer.parseInt(text);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(name + " must be a whole number");
+    }
+  }
+
+  /**
+   * Appends a list of departures as a JSON array.
+   *
+   * @param json       the builder to append to.
+   * @param departures the departures.
+   */
+  private static void appendDepartures(StringBuilder json, List<TrainDeparture> departures) {
+    json.append('[');
+    for (int i = 0; i < departures.size(); i++) {
+      if (i > 0) {
+        json.append(',');
+      }
+      appendDeparture(json, departures.get(i));
+    }
+    json.append(']');
+  }
+
+  /**
+   * Appends a departure as a JSON object. A departure without a track has a null track.
+   *
+   * @param json      the builder to append to.
+   * @param departure the departure.
+   * @return the builder.
+   */
+  static StringBuilder appendDeparture(StringBuilder json, TrainDeparture departure) {
+    json.append("{\"trainNumber\":").append(departure.getTrainNumber())
+        .append(",\"line\":");
+    appendString(json, departure.getLine());
+    json.append(",\"destination\":");
+    appendString(json, departure.getDestination());
+    json.append(",\"departureTime\":\"").append(departure.getDepartureTime())
+        .append("\",\"delay\":\"")
+        .append(TrainDeparture.formatMinutes(departure.getDelayMinutes()))
+        .append("\",\"delayMinutes\":").append(departure.getDelayMinutes())
+        .append(",\"departureTimeWithDelay\":\"").append(departure.getDepartureTimeWithDelay())
+        .append("\",\"track\":");
+    if (departure.getTrack() == -1) {
+      json.append("null");
+    } else {
+      json.append(departure.getTrack());
+    }
+    return json.append('}');
+  }
+
+  /**
+   * Appends a string as a JSON string, escaping quotes, backslashes and control characters.
+   *
+   * @param json the builder to append to.
+   * @param text the string.
+   */
+  static void appendString(StringBuilder json, String text) {
+    json.append('"');
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      switch (c) {
+        case '"' -> json.append("\\\"");
+        case '\\' -> json.append("\\\\");
+        case '\n' -> json.append("\\n");
+        case '\r' -> json.append("\\r");
+        case '\t' -> json.append("\\t");
+        default -> {
+          if (c < 0x20) {
+            json.append("\\u00");
+            json.append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xf, 16));
+          } else {
+            json.append(c);
+          }
+        }
+      }
+    }
+    json.append('"');
+  }
+}
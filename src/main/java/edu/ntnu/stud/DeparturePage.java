@@ -0,0 +1,60 @@
+package edu.ntnu.stud;
+
+import java.util.List;
+
+/**
+ * One page of departures in order of departure time with delay, together with the cursor of the
+ * next page.
+ *
+ * @author Jonathan Hubertz
+ * @version 0.1
+ * @since 17. october 2026
+ */
+public final class DeparturePage {
+
+  private final List<TrainDeparture> departures;
+  private final DepartureCursor next;
+  private final boolean more;
+
+  /**
+   * Constructor for DeparturePage.
+   *
+   * @param departures the departures of the page.
+   * @param next       the cursor of the next page.
+   * @param more       whether there are departures after the page.
+   */
+  DeparturePage(List<TrainDeparture> departures, DepartureCursor next, boolean more) {
+    this.departures = departures;
+    this.next = next;
+    this.more = more;
+  }
+
+  // Getters
+
+  /**
+   * Gets the departures of the page.
+   *
+   * @return an unmodifiable list of read-only departures.
+   */
+  public List<TrainDeparture> getDepartures() {
+    return departures;
+  }
+
+  /**
+   * Gets the cursor of the next page, which starts right after the last departure of this page.
+   *
+   * @return the cursor of the next page.
+   */
+  public DepartureCursor getNext() {
+    return next;
+  }
+
+  /**
+   * Checks whether there were departures after this page when it was made.
+   *
+   * @return true if there are more departures.
+   */
+  public boolean hasMore() {
+    return more;
+  }
+}
@@ -0,0 +1,24 @@
+package edu.ntnu.stud;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Is called by a TrainDepartureRegister with departures that are about to be removed, before they
+ * are removed from the persistence, for example to archive them. The register holds its write
+ * lock while the hook runs, so the hook must not call the register.
+ *
+ * @author Jonathan Hubertz
+ * @version 0.1
+ * @since 17. october 2026
+ */
+interface DepartureRemovalHook {
+
+  /**
+   * Handles the departures that are about to be removed.
+   *
+   * @param departures the departures, as they are in the register.
+   * @throws IOException if the departures could not be handled. Nothing is removed then.
+   */
+  void beforeRemoving(List<TrainDeparture> departures) throws IOException;
+}
@@ -0,0 +1,543 @@
+package edu.ntnu.stud;
+
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Holds the departures of a register in columns instead of as TrainDeparture objects. The rows
+ * are split into chunks of 32 train numbers, and each chunk holds one array per column, so a row
+ * is found at a fixed index and a scan over a column reads contiguous memory.
+ *
+ * <p>The columns are:
+ *
+ * <ul>
+ *   <li>the departure time in seconds of the day, or -1 if the row is empty.</li>
+ *   <li>the delay in minutes.</li>
+ *   <li>the track.</li>
+ *   <li>the line.</li>
+ *   <li>the destination.</li>
+ *   <li>the destination folded as by {@link TrainDepartureRegister#foldDestination(String)}.</li>
+ * </ul>
+ *
+ * <p>Every distinct line, destination and folded destination is stored once in a dictionary, and
+ * the rows refer to that one string. Each dictionary entry also holds the set of train numbers
+ * that use it, so a search by line or destination reads that set instead of scanning the rows. An
+ * entry that no row uses any more is removed, so the dictionaries stay as small as the number of
+ * distinct values in the table.
+ *
+ * <p>The chunks are the only copy of the departures in the register. {@link #share()} hands them
+ * to a new {@link DepartureBoardSnapshot}, and from then on they are never changed: the next
+ * change to a row copies its chunk first. A change therefore copies at most one chunk, and the
+ * snapshots share every chunk that didn't change.
+ *
+ * <p>The table keeps a {@link TrackOccupancy} index of its rows up to date, so every change to a
+ * track or delay is also a change to the occupancy of the tracks.
+ *
+ * <p>The table is not thread safe. The register guards it with its lock.
+ *
+ * @author Jonathan Hubertz
+ * @version 0.1
+ * @since 17. october 2026
+ */
+final class DepartureTable {
+
+  private final Chunk[] chunks;
+  private final boolean[] shared;
+  private int size;
+
+  private final Dictionary lines;
+  private final Dictionary destinations;
+  private final Dictionary foldedDestinations;
+  private final TrackOccupancy occupancy;
+
+  private static final int EMPTY = -1;
+
+  /** The number of chunks it takes to hold every possible train number. */
+  static final int NUMBER_OF_CHUNKS =
+      (TrainDeparture.MAX_TRAIN_NUMBER + Chunk.SIZE) / Chunk.SIZE;
+
+  /**
+   * Constructor for an empty DepartureTable with the default dwell time.
+   */
+  DepartureTable() {
+    this(TrackOccupancy.DEFAULT_DWELL_SECONDS);
+  }
+
+  /**
+   * Constructor for an empty DepartureTable.
+   *
+   * @param dwellSeconds how long a departure holds its track before it leaves, in seconds.
+   */
+  DepartureTable(int dwellSeconds) {
+    this.chunks = new Chunk[NUMBER_OF_CHUNKS];
+    this.shared = new boolean[NUMBER_OF_CHUNKS];
+    this.lines = new Dictionary();
+    this.destinations = new Dictionary();
+    this.foldedDestinations = new Dictionary();
+    this.occupancy = new TrackOccupancy(dwellSeconds);
+  }
+
+  // Methods for reading rows
+
+  /**
+   * Gets the number of departures in the table.
+   *
+   * @return the number of departures.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Checks whether the table holds a departure with a given train number.
+   *
+   * @param trainNumber the train number.
+   * @return true if the row of the train number is in use.
+   */
+  boolean contains(int trainNumber) {
+    return trainNumber > 0 && trainNumber <= TrainDeparture.MAX_TRAIN_NUMBER
+        && Chunk.contains(chunks, trainNumber);
+  }
+
+  /**
+   * Makes a TrainDeparture object out of a row. Changing the object doesn't change the table.
+   *
+   * @param trainNumber the train number.
+   * @return a new departure with the values of the row, or null if the row is empty.
+   */
+  TrainDeparture get(int trainNumber) {
+    if (!contains(trainNumber)) {
+      return null;
+    }
+    Chunk chunk = chunks[Chunk.index(trainNumber)];
+    int slot = Chunk.slot(trainNumber);
+    TrainDeparture departure = new TrainDeparture(
+        LocalTime.ofSecondOfDay(chunk.departureSeconds[slot]), chunk.lines[slot], trainNumber,
+        chunk.destinations[slot], chunk.tracks[slot], LocalTime.MIDNIGHT);
+    departure.setDelayMinutes(chunk.delayMinutes[slot]);
+    return departure;
+  }
+
+  /**
+   * Hands the chunks of the table to a new snapshot. The chunks are not changed after this, since
+   * the next change to a row copies its chunk first.
+   *
+   * @return a copy of the top level of the table, which shares the chunks.
+   */
+  Chunk[] share() {
+    Arrays.fill(shared, true);
+    return chunks.clone();
+  }
+
+  /**
+   * Finds the departures to a destination in the index of the folded destination.
+   *
+   * @param foldedDestination the destination, folded as by
+   *                          {@link TrainDepartureRegister#foldDestination(String)}.
+   * @return the train numbers of the departures, in ascending order.
+   */
+  int[] findByDestination(String foldedDestination) {
+    return foldedDestinations.find(foldedDestination);
+  }
+
+  /**
+   * Finds the departures on a line in the index of the line.
+   *
+   * @param line the line, which must match exactly.
+   * @return the train numbers of the departures, in ascending order.
+   */
+  int[] findByLine(String line) {
+    return lines.find(line);
+  }
+
+  /**
+   * Gets the departure time of a row with its delay added, in seconds from the start of the day.
+   *
+   * @param trainNumber the train number of a row in use.
+   * @return the departure time with delay in seconds, which may be a day or more.
+   */
+  long getDepartureSecondWithDelay(int trainNumber) {
+    return chunks[Chunk.index(trainNumber)].getDepartureSecondWithDelay(Chunk.slot(trainNumber));
+  }
+
+  /**
+   * Gets the delay of a row.
+   *
+   * @param trainNumber the train number of a row in use.
+   * @return the delay in minutes.
+   */
+  int getDelayMinutes(int trainNumber) {
+    return chunks[Chunk.index(trainNumber)].delayMinutes[Chunk.slot(trainNumber)];
+  }
+
+  /**
+   * Gets the track occupancy of the rows.
+   *
+   * @return the occupancy index, which must not be changed by the caller.
+   */
+  TrackOccupancy getOccupancy() {
+    return occupancy;
+  }
+
+  // Methods for changing rows
+
+  /**
+   * Writes a departure into the row of its train number, replacing any departure already there.
+   *
+   * @param departure the departure to write.
+   */
+  void put(TrainDeparture departure) {
+    int trainNumber = departure.getTrainNumber();
+    Chunk chunk = writableChunk(trainNumber);
+    int slot = Chunk.slot(trainNumber);
+    if (chunk.departureSeconds[slot] == EMPTY) {
+      size++;
+    } else {
+      releaseValues(chunk, slot, trainNumber);
+    }
+    chunk.departureSeconds[slot] = departure.getDepartureTime().toSecondOfDay();
+    chunk.delayMinutes[slot] = departure.getDelayMinutes();
+    chunk.tracks[slot] = (short) departure.getTrack();
+    chunk.lines[slot] = lines.add(departure.getLine(), trainNumber);
+    addDestination(chunk, slot, trainNumber, departure.getDestination());
+    occupancy.put(trainNumber, chunk.tracks[slot], chunk.getDepartureSecondWithDelay(slot));
+  }
+
+  /**
+   * Empties the row of a train number.
+   *
+   * @param trainNumber the train number.
+   */
+  void remove(int trainNumber) {
+    if (contains(trainNumber)) {
+      Chunk chunk = writableChunk(trainNumber);
+      int slot = Chunk.slot(trainNumber);
+      releaseValues(chunk, slot, trainNumber);
+      chunk.departureSeconds[slot] = EMPTY;
+      chunk.lines[slot] = null;
+      chunk.destinations[slot] = null;
+      chunk.foldedDestinations[slot] = null;
+      size--;
+      occupancy.remove(trainNumber);
+    }
+  }
+
+  /**
+   * Sets the track of a row.
+   *
+   * @param trainNumber the train number.
+   * @param track       the track.
+   */
+  void setTrack(int trainNumber, int track) {
+    Chunk chunk = writableChunk(trainNumber);
+    int slot = Chunk.slot(trainNumber);
+    chunk.tracks[slot] = (short) track;
+    occupancy.put(trainNumber, track, chunk.getDepartureSecondWithDelay(slot));
+  }
+
+  /**
+   * Sets the delay of a row.
+   *
+   * @param trainNumber  the train number.
+   * @param delayMinutes the delay in minutes.
+   */
+  void setDelayMinutes(int trainNumber, int delayMinutes) {
+    Chunk chunk = writableChunk(trainNumber);
+    int slot = Chunk.slot(trainNumber);
+    chunk.delayMinutes[slot] = delayMinutes;
+    occupancy.put(trainNumber, chunk.tracks[slot], chunk.getDepartureSecondWithDelay(slot));
+  }
+
+  /**
+   * Empties every row and the dictionaries. The chunks are dropped rather than emptied, so the
+   * snapshots that share them keep their departures.
+   */
+  void clear() {
+    Arrays.fill(chunks, null);
+    size = 0;
+    lines.clear();
+    destinations.clear();
+    foldedDestinations.clear();
+    occupancy.clear();
+  }
+
+  /**
+   * Gets the number of entries in the line and destination dictionaries. Used for testing.
+   *
+   * @return the number of lines plus the number of destinations plus the number of folded
+   *         destinations.
+   */
+  int dictionarySize() {
+    return lines.size() + destinations.size() + foldedDestinations.size();
+  }
+
+  // Helper methods
+
+  /**
+   * Gets the chunk of a train number so that it can be changed, making it if it doesn't exist
+   * yet, and copying it first if a snapshot shares it.
+   *
+   * @param trainNumber the train number.
+   * @return the chunk, which no snapshot shares.
+   */
+  private Chunk writableChunk(int trainNumber) {
+    int index = Chunk.index(trainNumber);
+    if (chunks[index] == null) {
+      chunks[index] = new Chunk();
+    } else if (shared[index]) {
+      chunks[index] = chunks[index].copy();
+    }
+    shared[index] = false;
+    return chunks[index];
+  }
+
+  /**
+   * Adds the destination of a row and its folded form to the dictionaries. The folded form is
+   * only computed when no other row has the same destination.
+   *
+   * @param chunk       the chunk of the row.
+   * @param slot        the slot of the row in the chunk.
+   * @param trainNumber the train number of the row.
+   * @param destination the destination.
+   */
+  private void addDestination(Chunk chunk, int slot, int trainNumber, String destination) {
+    String stored = destinations.add(destination, trainNumber);
+    int sameDestination = destinations.anyTrain(stored, trainNumber);
+    String folded = sameDestination == EMPTY
+        ? TrainDepartureRegister.foldDestination(destination)
+        : chunks[Chunk.index(sameDestination)].foldedDestinations[Chunk.slot(sameDestination)];
+    chunk.destinations[slot] = stored;
+    chunk.foldedDestinations[slot] = foldedDestinations.add(folded, trainNumber);
+  }
+
+  /**
+   * Takes a row out of the dictionaries, removing the entries no other row uses.
+   *
+   * @param chunk       the chunk of a row in use.
+   * @param slot        the slot of the row in the chunk.
+   * @param trainNumber the train number of the row.
+   */
+  private void releaseValues(Chunk chunk, int slot, int trainNumber) {
+    lines.remove(chunk.lines[slot], trainNumber);
+    destinations.remove(chunk.destinations[slot], trainNumber);
+    foldedDestinations.remove(chunk.foldedDestinations[slot], trainNumber);
+  }
+
+  /**
+   * The columns of 32 rows of the table. A chunk that a snapshot shares is never changed, so a
+   * snapshot can read it without a lock.
+   */
+  static final class Chunk {
+
+    /** The number of bits of a train number that give its slot in a chunk. */
+    static final int BITS = 5;
+
+    /** The number of rows in a chunk. */
+    static final int SIZE = 1 << BITS;
+
+    final int[] departureSeconds;
+    final int[] delayMinutes;
+    final short[] tracks;
+    final String[] lines;
+    final String[] destinations;
+    final String[] foldedDestinations;
+
+    /**
+     * Constructor for a Chunk with only empty rows.
+     */
+    private Chunk() {
+      this.departureSeconds = new int[SIZE];
+      this.delayMinutes = new int[SIZE];
+      this.tracks = new short[SIZE];
+      this.lines = new String[SIZE];
+      this.destinations = new String[SIZE];
+      this.foldedDestinations = new String[SIZE];
+      Arrays.fill(departureSeconds, EMPTY);
+    }
+
+    /**
+     * Constructor that copies another Chunk.
+     *
+     * @param chunk the chunk to copy.
+     */
+    private Chunk(Chunk chunk) {
+      this.departureSeconds = chunk.departureSeconds.clone();
+      this.delayMinutes = chunk.delayMinutes.clone();
+      this.tracks = chunk.tracks.clone();
+      this.lines = chunk.lines.clone();
+      this.destinations = chunk.destinations.clone();
+      this.foldedDestinations = chunk.foldedDestinations.clone();
+    }
+
+    /**
+     * Copies the chunk.
+     *
+     * @return a new chunk with the same rows.
+     */
+    private Chunk copy() {
+      return new Chunk(this);
+    }
+
+    /**
+     * Checks whether a slot holds a departure.
+     *
+     * @param slot the slot.
+     * @return true if the slot is in use.
+     */
+    boolean isInUse(int slot) {
+      return departureSeconds[slot] != EMPTY;
+    }
+
+    /**
+     * Gets the departure time of a row with its delay added.
+     *
+     * @param slot the slot of a row in use.
+     * @return the departure time with delay in seconds, which may be a day or more.
+     */
+    long getDepartureSecondWithDelay(int slot) {
+      return departureSeconds[slot] + delayMinutes[slot] * 60L;
+    }
+
+    /**
+     * Makes a read-only departure out of a row.
+     *
+     * @param slot        the slot of a row in use.
+     * @param trainNumber the train number of the row.
+     * @return the read-only departure.
+     */
+    TrainDeparture toDeparture(int slot, int trainNumber) {
+      return TrainDeparture.readOnly(departureSeconds[slot], lines[slot], trainNumber,
+          destinations[slot], tracks[slot], delayMinutes[slot]);
+    }
+
+    /**
+     * Checks whether the row of a train number is in use in a set of chunks.
+     *
+     * @param chunks      the chunks.
+     * @param trainNumber a train number from 0 to {@link TrainDeparture#MAX_TRAIN_NUMBER}.
+     * @return true if the row is in use.
+     */
+    static boolean contains(Chunk[] chunks, int trainNumber) {
+      Chunk chunk = chunks[index(trainNumber)];
+      return chunk != null && chunk.isInUse(slot(trainNumber));
+    }
+
+    /**
+     * Gets the index of the chunk of a train number.
+     *
+     * @param trainNumber the train number.
+     * @return the index of the chunk.
+     */
+    static int index(int trainNumber) {
+      return trainNumber >>> BITS;
+    }
+
+    /**
+     * Gets the slot of a train number in its chunk.
+     *
+     * @param trainNumber the train number.
+     * @return the slot.
+     */
+    static int slot(int trainNumber) {
+      return trainNumber & (SIZE - 1);
+    }
+  }
+
+  /**
+   * A dictionary of strings, where each entry holds the one copy of its string that the rows refer
+   * to, and the set of train numbers that use it.
+   */
+  private static final class Dictionary {
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * Adds a train number to the entry of a value, adding the entry if it is new.
+     *
+     * @param value       the value.
+     * @param trainNumber the train number.
+     * @return the string of the entry, which equals the value.
+     */
+    String add(String value, int trainNumber) {
+      Entry entry = entries.computeIfAbsent(value, Entry::new);
+      entry.trains.set(trainNumber);
+      return entry.value;
+    }
+
+    /**
+     * Removes a train number from an entry, and removes the entry if no train uses it any more.
+     *
+     * @param value       the value of the entry.
+     * @param trainNumber the train number.
+     */
+    void remove(String value, int trainNumber) {
+      Entry entry = entries.get(value);
+      entry.trains.clear(trainNumber);
+      if (entry.trains.isEmpty()) {
+        entries.remove(value);
+      }
+    }
+
+    /**
+     * Finds the train numbers that use a value.
+     *
+     * @param value the value.
+     * @return the train numbers, in ascending order.
+     */
+    int[] find(String value) {
+      Entry entry = entries.get(value);
+      return entry == null ? new int[0] : entry.trains.stream().toArray();
+    }
+
+    /**
+     * Finds a train other than a given one that uses an entry.
+     *
+     * @param value       the value of the entry.
+     * @param trainNumber the train number to skip.
+     * @return another train number, or -1 if the given train is the only one.
+     */
+    int anyTrain(String value, int trainNumber) {
+      BitSet set = entries.get(value).trains;
+      int other = set.nextSetBit(0);
+      return other != trainNumber ? other : set.nextSetBit(trainNumber + 1);
+    }
+
+    /**
+     * Gets the number of entries.
+     *
+     * @return the number of entries.
+     */
+    int size() {
+      return entries.size();
+    }
+
+    /**
+     * Removes every entry.
+     */
+    void clear() {
+      entries.clear();
+    }
+
+    /**
+     * An entry of the dictionary.
+     */
+    private static final class Entry {
+
+      private final String value;
+      private final BitSet trains;
+
+      /**
+       * Constructor for an Entry that no train uses yet.
+       *
+       * @param value the value of the entry.
+       */
+      Entry(String value) {
+        this.value = value;
+        this.trains = new BitSet();
+      }
+    }
+  }
+}
@@ -0,0 +1,412 @@
+package edu.ntnu.stud;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * This class stores TrainDeparture objects as an append-only journal. Every change is appended to
+ * the end of the file as a single record, instead of rewriting the whole file:
+ *
+ * <ul>
+ *   <li>{@code A,<departure>} adds a departure.</li>
+ *   <li>{@code U,<departure>} replaces the departure with the same train number.</li>
+ *   <li>{@code R,<train number>} removes a departure.</li>
+ * </ul>
+ *
+ * <p>The departures are read by replaying the journal from the start. When the journal holds many
+ * more records than there are departures, it is compacted into one add record per departure. The
+ * train numbers in the journal are kept in memory from the last replay, so the number of
+ * departures is exact without replaying the journal on every write.
+ *
+ * <p>Every append is forced to disk before it returns, and so is the compacted journal before it
+ * replaces the old one. Compaction runs on the thread of the write that triggers it, so that write,
+ * and with a TrainDepartureRegister every other change, since the register holds its write lock,
+ * waits while the journal is replayed and rewritten. To choose when that pause happens, pass
+ * {@link Integer#MAX_VALUE} as the compaction threshold and call {@link #compact()} at a quiet
+ * time, while nothing else writes to the journal.
+ *
+ * @author Jonathan Hubertz
+ * @version 0.1
+ * @since 17. october 2026
+ */
+public class JournalTrainDeparturePersistence implements TrainDeparturePersistence {
+
+  private final String pathOfFile;
+  private final String fileName;
+  private final int compactionThreshold;
+  private int numberOfRecords;
+  private final BitSet trainNumbers;
+  private boolean counted;
+  private static final String FILE_DOES_NOT_EXIST = "File does not exist: ";
+  private static final String ERROR = "Error ";
+  private static final String ADD = "A";
+  private static final String UPDATE = "U";
+  private static final String REMOVE = "R";
+  private static final int DEPARTURE_DATA_LENGTH = 6;
+  private static final int DEFAULT_COMPACTION_THRESHOLD = 1000;
+
+  /**
+   * Constructor for JournalTrainDeparturePersistence with the default compaction threshold.
+   *
+   * @param pathOfFile the path of the journal file.
+   * @param fileName   the name of the journal file.
+   */
+  public JournalTrainDeparturePersistence(String pathOfFile, String fileName) {
+    this(pathOfFile, fileName, DEFAULT_COMPACTION_THRESHOLD);
+  }
+
+  /**
+   * Constructor for JournalTrainDeparturePersistence.
+   *
+   * @param pathOfFile          the path of the journal file.
+   * @param fileName            the name of the journal file.
+   * @param compactionThreshold the number of records the journal may hold before it is compacted,
+   *                            as long as it holds less than twice as many records as departures.
+   * @throws IllegalArgumentException if the compaction threshold is not positive.
+   */
+  public JournalTrainDeparturePersistence(String pathOfFile, String fileName,
+      int compactionThreshold) {
+    if (compactionThreshold <= 0) {
+      throw new IllegalArgumentException("compaction threshold must be positive");
+    }
+    this.pathOfFile = pathOfFile;
+    this.fileName = fileName;
+    this.compactionThreshold = compactionThreshold;
+    this.trainNumbers = new BitSet();
+    this.counted = false;
+  }
+
+  // Methods that append to the journal
+
+  /**
+   * Appends an add record for a new departure to the journal.
+   *
+   * @param departure the departure to write.
+   * @throws IOException if the journal could not be written.
+   */
+  @Override
+  public void writeDeparture(TrainDeparture departure) throws IOException {
+    writeDepartures(List.of(departure));
+  }
+
+  /**
+   * Appends an add record for each new departure to the journal, with a single append.
+   *
+   * @param departures the departures to write.
+   * @throws IOException if the journal could not be written.
+   */
+  @Override
+  public void writeDepartures(List<TrainDeparture> departures) throws IOException {
+    countRecords();
+    List<String> records = new ArrayList<>(departures.size());
+    for (TrainDeparture departure : departures) {
+      records.add(ADD + "," + CsvTrainDeparturePersistence.format(departure));
+    }
+    append(records);
+    for (TrainDeparture departure : departures) {
+      this.trainNumbers.set(departure.getTrainNumber());
+    }
+    compactIfNeeded();
+  }
+
+  /**
+   * Appends a remove record for a departure to the journal.
+   *
+   * @param trainNumber the train number of the departure to remove.
+   * @throws IOException if the journal does not exist or could not be written.
+   */
+  @Override
+  public void removeDeparture(int trainNumber) throws IOException {
+    removeDepartures(List.of(trainNumber));
+  }
+
+  /**
+   * Appends a remove record for each departure to the journal, with a single append.
+   *
+   * @param trainNumbers the train numbers of the departures to remove.
+   * @throws IOException if the journal does not exist or could not be written.
+   */
+  @Override
+  public void removeDepartures(Collection<Integer> trainNumbers) throws IOException {
+    requireExists();
+    countRecords();
+    List<String> records = new ArrayList<>(trainNumbers.size());
+    for (int trainNumber : trainNumbers) {
+      records.add(REMOVE + "," + trainNumber);
+    }
+    append(records);
+    for (int trainNumber : trainNumbers) {
+      this.trainNumbers.clear(trainNumber);
+    }
+    compactIfNeeded();
+  }
+
+  /**
+   * Appends an update record for a departure to the journal.
+   *
+   * @param departure the TrainDeparture object that's to be updated.
+   * @throws IOException if the journal does not exist or could not be written.
+   */
+  @Override
+  public void updateDeparture(TrainDeparture departure) throws IOException {
+    updateDepartures(List.of(departure));
+  }
+
+  /**
+   * Appends an update record for each departure to the journal, with a single append.
+   *
+   * @param departures the departures to update.
+   * @throws IOException if the journal does not exist or could not be written.
+   */
+  @Override
+  public void updateDepartures(List<TrainDeparture> departures) throws IOException {
+    requireExists();
+    countRecords();
+    List<String> records = new ArrayList<>(departures.size());
+    for (TrainDeparture departure : departures) {
+      records.add(UPDATE + "," + CsvTrainDeparturePersistence.format(departure));
+    }
+    append(records);
+    for (TrainDeparture departure : departures) {
+      this.trainNumbers.set(departure.getTrainNumber());
+    }
+    compactIfNeeded();
+  }
+
+  // Methods that read the journal
+
+  /**
+   * Replays the journal and returns the departures it describes, in the order they were added.
+   *
+   * @return the departures in the journal.
+   * @throws IOException if the journal does not exist or could not be read.
+   */
+  @Override
+  public List<TrainDeparture> readDepartures() throws IOException {
+    return new ArrayList<>(replay().values());
+  }
+
+  /**
+   * Removes every record from the journal. The journal is created if it doesn't exist.
+   *
+   * @throws IOException if the journal could not be written.
+   */
+  @Override
+  public void clearDepartures() throws IOException {
+    Path path = getPath();
+    try {
+      Files.write(path, new byte[0], StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING);
+    } catch (IOException e) {
+      throw new IOException(ERROR + "writing to file: " + path, e);
+    }
+    numberOfRecords = 0;
+    trainNumbers.clear();
+    counted = true;
+  }
+
+  /**
+   * Creates an empty journal if it doesn't exist yet.
+   *
+   * @throws IOException if the journal could not be created.
+   */
+  @Override
+  public void createStore() throws IOException {
+    Path path = getPath();
+    if (Files.exists(path)) {
+      return;
+    }
+    try {
+      Files.write(path, new byte[0], StandardOpenOption.CREATE_NEW);
+    } catch (IOException e) {
+      throw new IOException(ERROR + "creating file: " + path, e);
+    }
+  }
+
+  /**
+   * Rewrites the journal so that it holds exactly one add record per departure. The new journal
+   * is written to a temporary file and forced to disk first, and then moved over the old one, so
+   * a crash during compaction leaves either the old or the new journal intact. The directory is
+   * forced after the move, so the new journal is still in place after a crash.
+   *
+   * @throws IOException if the journal could not be read or written.
+   */
+  public void compact() throws IOException {
+    Map<Integer, TrainDeparture> departures = replay();
+    List<String> records = new ArrayList<>(departures.size());
+    for (TrainDeparture departure : departures.values()) {
+      records.add(ADD + "," + CsvTrainDeparturePersistence.format(departure));
+    }
+
+    Path path = getPath();
+    Path temporaryPath = Paths.get(pathOfFile, fileName + ".tmp");
+    try {
+      CsvTrainDeparturePersistence.writeLines(temporaryPath, records, StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING);
+      Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+      forceDirectory(path.toAbsolutePath().getParent());
+    } catch (IOException e) {
+      throw new IOException(ERROR + "compacting file: " + path, e);
+    }
+    numberOfRecords = records.size();
+    counted = true;
+  }
+
+  // Helper methods
+
+  /**
+   * Replays every record in the journal.
+   *
+   * @return the departures in the journal by train number, in the order they were added.
+   * @throws IOException if the journal does not exist or could not be read.
+   */
+  private Map<Integer, TrainDeparture> replay() throws IOException {
+    Path path = requireExists();
+    Map<Integer, TrainDeparture> departures = new LinkedHashMap<>();
+    int records = 0;
+
+    try (Stream<String> lines = Files.lines(path, StandardCharsets.UTF_8)) {
+      for (String line : (Iterable<String>) lines::iterator) {
+        if (line.isBlank()) {
+          continue;
+        }
+        records++;
+        String[] fields = line.split(",");
+        try {
+          switch (fields[0]) {
+            case ADD, UPDATE -> {
+              TrainDeparture departure = parse(fields);
+              departures.put(departure.getTrainNumber(), departure);
+            }
+            case REMOVE -> departures.remove(Integer.parseInt(fields[1]));
+            default -> System.out.println("Skipping invalid record: " + line);
+          }
+        } catch (DateTimeParseException | IllegalArgumentException
+                 | ArrayIndexOutOfBoundsException e) {
+          System.out.println(ERROR + "parsing record " + records + ": " + line);
+        }
+      }
+    }
+
+    numberOfRecords = records;
+    trainNumbers.clear();
+    for (int trainNumber : departures.keySet()) {
+      trainNumbers.set(trainNumber);
+    }
+    counted = true;
+    return departures;
+  }
+
+  /**
+   * Counts the records and departures in the journal the first time it is written to, so that
+   * the compaction threshold can be checked without replaying the journal on every write.
+   *
+   * @throws IOException if the journal could not be read.
+   */
+  private void countRecords() throws IOException {
+    if (!counted && Files.exists(getPath())) {
+      replay();
+    }
+    counted = true;
+  }
+
+  /**
+   * Compacts the journal once it holds more records than the threshold and at least twice as many
+   * records as departures. The compaction runs on the caller's thread.
+   *
+   * @throws IOException if the journal could not be compacted.
+   */
+  private void compactIfNeeded() throws IOException {
+    if (numberOfRecords >= compactionThreshold
+        && numberOfRecords >= 2 * trainNumbers.cardinality()) {
+      compact();
+    }
+  }
+
+  /**
+   * Forces the entries of a directory to disk, so a file moved into it survives a crash. Platforms
+   * that can't open a directory as a file are left to make the move durable on their own.
+   *
+   * @param directory the directory to force.
+   */
+  private static void forceDirectory(Path directory) {
+    try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+      channel.force(true);
+    } catch (IOException e) {
+      // The directory can't be opened on this platform, such as on Windows.
+    }
+  }
+
+  /**
+   * Appends records to the end of the journal with a single write, and forces them to disk.
+   *
+   * @param records the records to append.
+   * @throws IOException if the journal could not be written.
+   */
+  private void append(List<String> records) throws IOException {
+    Path path = getPath();
+    try {
+      CsvTrainDeparturePersistence.writeLines(path, records, StandardOpenOption.CREATE,
+          StandardOpenOption.APPEND);
+    } catch (IOException e) {
+      throw new IOException(ERROR + "writing to file: " + path, e);
+    }
+    numberOfRecords += records.size();
+  }
+
+  /**
+   * Parses the departure of an add or update record.
+   *
+   * @param fields the fields of the record, starting with the record type.
+   * @return the parsed departure.
+   * @throws IllegalArgumentException if the record doesn't hold a valid departure.
+   */
+  private static TrainDeparture parse(String[] fields) {
+    if (fields.length != DEPARTURE_DATA_LENGTH + 1) {
+      throw new IllegalArgumentException("wrong number of fields");
+    }
+    TrainDeparture departure = new TrainDeparture(LocalTime.parse(fields[1]), fields[2],
+        Integer.parseInt(fields[3]), fields[4], Integer.parseInt(fields[5]), LocalTime.MIDNIGHT);
+    departure.setDelayMinutes(TrainDeparture.parseMinutes(fields[6]));
+    return departure;
+  }
+
+  /**
+   * Gets the path of the journal and checks that it exists.
+   *
+   * @return the path of the journal.
+   * @throws IOException if the journal does not exist.
+   */
+  private Path requireExists() throws IOException {
+    Path path = getPath();
+    if (!Files.exists(path)) {
+      throw new IOException(FILE_DOES_NOT_EXIST + path);
+    }
+    return path;
+  }
+
+  /**
+   * Gets the path of the journal.
+   *
+   * @return the path of the journal.
+   */
+  private Path getPath() {
+    return Paths.get(pathOfFile, fileName);
+  }
+}
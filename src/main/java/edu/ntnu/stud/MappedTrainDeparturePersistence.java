@@ -0,0 +1,318 @@
+package edu.ntnu.stud;
+
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class stores TrainDeparture objects in a memory-mapped binary file. The file holds one
+ * fixed-width slot per possible train number, so a departure is always found at the same position
+ * and a change to its track or delay is a write of a few bytes into mapped memory.
+ *
+ * <p>Each slot is laid out as follows:
+ *
+ * <ul>
+ *   <li>1 byte telling whether the slot is in use.</li>
+ *   <li>4 bytes with the departure time in seconds of the day.</li>
+ *   <li>4 bytes with the delay in seconds.</li>
+ *   <li>2 bytes with the track.</li>
+ *   <li>1 byte with the length of the line, followed by up to 15 bytes of UTF-8.</li>
+ *   <li>1 byte with the length of the destination, followed by up to 47 bytes of UTF-8.</li>
+ * </ul>
+ *
+ * <p>A new departure is written into its slot while the slot is marked as empty, and the slot is
+ * only marked as in use after every other field, so a reader never sees a slot in use with the
+ * fields of an older departure. The track and delay of a slot in use are changed in place, one
+ * field at a time.
+ *
+ * <p>Version 2 of the file stores delays of a day or more. A version 1 file has the same layout,
+ * so it is upgraded in place when it is opened.
+ *
+ * <p>The file is created the first time it is used. Changes are visible to other processes mapping
+ * the same file right away. Every write forces the slot it changed to disk before it returns, so
+ * a departure the register has accepted survives a crash; {@link #flush()} forces the whole file.
+ *
+ * <p>Slots that can't be decoded are skipped when the file is read, and reported in one warning
+ * per read.
+ *
+ * @author Jonathan Hubertz
+ * @version 0.1
+ * @since 17. october 2026
+ */
+public class MappedTrainDeparturePersistence implements TrainDeparturePersistence {
+
+  private final String pathOfFile;
+  private final String fileName;
+  private MappedByteBuffer buffer;
+  private static final Logger LOGGER =
+      Logger.getLogger(MappedTrainDeparturePersistence.class.getName());
+  private static final String ERROR = "Error ";
+  private static final int MAGIC = 0x54444550;
+  private static final int VERSION = 2;
+  private static final int FIRST_VERSION = 1;
+  private static final int HEADER_SIZE = 16;
+  private static final int SLOT_SIZE = 80;
+  private static final int NUMBER_OF_SLOTS = TrainDeparture.MAX_TRAIN_NUMBER + 1;
+  private static final int FILE_SIZE = HEADER_SIZE + NUMBER_OF_SLOTS * SLOT_SIZE;
+  private static final int IN_USE_OFFSET = 0;
+  private static final int DEPARTURE_TIME_OFFSET = 1;
+  private static final int DELAY_OFFSET = 5;
+  private static final int TRACK_OFFSET = 9;
+  private static final int LINE_OFFSET = 11;
+  private static final int MAX_LINE_LENGTH = 15;
+  private static final int DESTINATION_OFFSET = LINE_OFFSET + 1 + MAX_LINE_LENGTH;
+  private static final int MAX_DESTINATION_LENGTH = 47;
+  private static final byte IN_USE = 1;
+  private static final byte EMPTY = 0;
+
+  /**
+   * Constructor for MappedTrainDeparturePersistence.
+   *
+   * @param pathOfFile the path of the binary file.
+   * @param fileName   the name of the binary file.
+   */
+  public MappedTrainDeparturePersistence(String pathOfFile, String fileName) {
+    this.pathOfFile = pathOfFile;
+    this.fileName = fileName;
+  }
+
+  // Methods that write to the mapped file
+
+  /**
+   * Writes a departure into the slot of its train number.
+   *
+   * @param departure the departure to write.
+   * @throws IOException              if the file could not be mapped.
+   * @throws IllegalArgumentException if the line or destination is too long for a slot.
+   */
+  @Override
+  public void writeDeparture(TrainDeparture departure) throws IOException {
+    byte[] line = encode(departure.getLine(), MAX_LINE_LENGTH, "line");
+    byte[] destination = encode(departure.getDestination(), MAX_DESTINATION_LENGTH,
+        "destination");
+    MappedByteBuffer mapped = getBuffer();
+    int slot = slotPosition(departure.getTrainNumber());
+
+    mapped.put(slot + IN_USE_OFFSET, EMPTY);
+    VarHandle.storeStoreFence();
+    mapped.putInt(slot + DEPARTURE_TIME_OFFSET, departure.getDepartureTime().toSecondOfDay());
+    mapped.putInt(slot + DELAY_OFFSET, departure.getDelayMinutes() * 60);
+    mapped.putShort(slot + TRACK_OFFSET, (short) departure.getTrack());
+    mapped.put(slot + LINE_OFFSET, (byte) line.length);
+    mapped.put(slot + LINE_OFFSET + 1, line);
+    mapped.put(slot + DESTINATION_OFFSET, (byte) destination.length);
+    mapped.put(slot + DESTINATION_OFFSET + 1, destination);
+    VarHandle.releaseFence();
+    mapped.put(slot + IN_USE_OFFSET, IN_USE);
+    mapped.force(slot, SLOT_SIZE);
+  }
+
+  /**
+   * Marks the slot of a train number as empty and forces it to disk.
+   *
+   * @param trainNumber the train number of the departure to remove.
+   * @throws IOException if the file could not be mapped.
+   */
+  @Override
+  public void removeDeparture(int trainNumber) throws IOException {
+    if (trainNumber <= 0 || trainNumber > TrainDeparture.MAX_TRAIN_NUMBER) {
+      return;
+    }
+    MappedByteBuffer mapped = getBuffer();
+    int slot = slotPosition(trainNumber);
+    mapped.put(slot + IN_USE_OFFSET, EMPTY);
+    mapped.force(slot, SLOT_SIZE);
+  }
+
+  /**
+   * Writes the track and delay of a departure into its slot and forces the slot to disk. The other
+   * values of a departure can't change, so they are left as they are. Nothing is written if the
+   * slot is empty.
+   *
+   * @param departure the TrainDeparture object that's to be updated.
+   * @throws IOException if the file could not be mapped.
+   */
+  @Override
+  public void updateDeparture(TrainDeparture departure) throws IOException {
+    MappedByteBuffer mapped = getBuffer();
+    int slot = slotPosition(departure.getTrainNumber());
+    if (mapped.get(slot + IN_USE_OFFSET) != IN_USE) {
+      return;
+    }
+    mapped.putInt(slot + DELAY_OFFSET, departure.getDelayMinutes() * 60);
+    mapped.putShort(slot + TRACK_OFFSET, (short) departure.getTrack());
+    mapped.force(slot, SLOT_SIZE);
+  }
+
+  // Methods that read the mapped file
+
+  /**
+   * Scans every slot of the mapped file and returns the departures in use, in order of train
+   * number. Slots that can't be decoded are skipped and reported in one warning.
+   *
+   * @return the departures in the file.
+   * @throws IOException if the file could not be mapped.
+   */
+  @Override
+  public List<TrainDeparture> readDepartures() throws IOException {
+    MappedByteBuffer mapped = getBuffer();
+    List<TrainDeparture> departures = new ArrayList<>();
+    int unreadable = 0;
+    RuntimeException firstFailure = null;
+
+    for (int trainNumber = 1; trainNumber < NUMBER_OF_SLOTS; trainNumber++) {
+      int slot = slotPosition(trainNumber);
+      if (mapped.get(slot + IN_USE_OFFSET) != IN_USE) {
+        continue;
+      }
+      VarHandle.acquireFence();
+      try {
+        TrainDeparture departure = new TrainDeparture(
+            LocalTime.ofSecondOfDay(mapped.getInt(slot + DEPARTURE_TIME_OFFSET)),
+            decode(mapped, slot + LINE_OFFSET),
+            trainNumber,
+            decode(mapped, slot + DESTINATION_OFFSET),
+            mapped.getShort(slot + TRACK_OFFSET),
+            LocalTime.MIDNIGHT);
+        departure.setDelayMinutes(mapped.getInt(slot + DELAY_OFFSET) / 60);
+        departures.add(departure);
+      } catch (RuntimeException e) {
+        if (unreadable++ == 0) {
+          firstFailure = e;
+        }
+      }
+    }
+    if (unreadable > 0) {
+      LOGGER.log(Level.WARNING, "Skipped " + unreadable + " unreadable slots in "
+          + Paths.get(pathOfFile, fileName), firstFailure);
+    }
+
+    return departures;
+  }
+
+  /**
+   * Marks every slot of the mapped file as empty and forces the file to disk.
+   *
+   * @throws IOException if the file could not be mapped.
+   */
+  @Override
+  public void clearDepartures() throws IOException {
+    MappedByteBuffer mapped = getBuffer();
+    for (int trainNumber = 1; trainNumber < NUMBER_OF_SLOTS; trainNumber++) {
+      mapped.put(slotPosition(trainNumber) + IN_USE_OFFSET, EMPTY);
+    }
+    mapped.force();
+  }
+
+  /**
+   * Creates the mapped file with an empty slot for every train number if it doesn't exist yet.
+   *
+   * @throws IOException if the file could not be mapped, or is not a departure store.
+   */
+  @Override
+  public void createStore() throws IOException {
+    getBuffer();
+  }
+
+  /**
+   * Forces the changes made to the mapped file to be written to disk.
+   *
+   * @throws IOException if the file could not be mapped.
+   */
+  public void flush() throws IOException {
+    getBuffer().force();
+  }
+
+  // Helper methods
+
+  /**
+   * Gets the mapped file, mapping it the first time it is needed. A new file is created with an
+   * empty slot for every train number.
+   *
+   * @return the mapped file.
+   * @throws IOException if the file could not be mapped, or is not a departure store.
+   */
+  private MappedByteBuffer getBuffer() throws IOException {
+    if (buffer != null) {
+      return buffer;
+    }
+
+    Path path = Paths.get(pathOfFile, fileName);
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      long size = channel.size();
+      if (size != 0 && size != FILE_SIZE) {
+        throw new IOException("Not a departure store: " + path);
+      }
+
+      MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+      if (size == 0) {
+        mapped.putInt(0, MAGIC);
+        mapped.putInt(4, VERSION);
+        mapped.putInt(8, SLOT_SIZE);
+        mapped.putInt(12, NUMBER_OF_SLOTS);
+        mapped.force(0, HEADER_SIZE);
+      } else if (mapped.getInt(0) != MAGIC
+          || (mapped.getInt(4) != VERSION && mapped.getInt(4) != FIRST_VERSION)) {
+        throw new IOException("Not a departure store: " + path);
+      } else if (mapped.getInt(4) == FIRST_VERSION) {
+        mapped.putInt(4, VERSION);
+        mapped.force(0, HEADER_SIZE);
+      }
+      buffer = mapped;
+    } catch (IOException e) {
+      throw new IOException(ERROR + "mapping file: " + path, e);
+    }
+    return buffer;
+  }
+
+  /**
+   * The position of the slot of a train number in the mapped file.
+   *
+   * @param trainNumber the train number.
+   * @return the position of the first byte of the slot.
+   */
+  private static int slotPosition(int trainNumber) {
+    return HEADER_SIZE + trainNumber * SLOT_SIZE;
+  }
+
+  /**
+   * Encodes a text as UTF-8 and checks that it fits its field.
+   *
+   * @param text      the text to encode.
+   * @param maxLength the maximum number of bytes.
+   * @param name      the name of the field, used in the error message.
+   * @return the encoded text.
+   * @throws IllegalArgumentException if the text doesn't fit the field.
+   */
+  private static byte[] encode(String text, int maxLength, String name) {
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length > maxLength) {
+      throw new IllegalArgumentException(name + " cannot be longer than " + maxLength + " bytes");
+    }
+    return bytes;
+  }
+
+  /**
+   * Decodes a length-prefixed UTF-8 text from the mapped file.
+   *
+   * @param mapped   the mapped file.
+   * @param position the position of the length byte.
+   * @return the decoded text.
+   */
+  private static String decode(MappedByteBuffer mapped, int position) {
+    byte[] bytes = new byte[mapped.get(position)];
+    mapped.get(position + 1, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
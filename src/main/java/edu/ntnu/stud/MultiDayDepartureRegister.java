@@ -0,0 +1,203 @@
+package edu.ntnu.stud;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+
+/**
+ * This class holds the train departures of several service days. Each day is a partition with its
+ * own TrainDepartureRegister, its own persistence and its own indexes, so a day can be loaded and
+ * dropped as a whole, and a query only touches the days it covers.
+ *
+ * <p>A departure belongs to the day it is scheduled on. A delay can make it leave after midnight,
+ * so a query that starts on a given day also looks at the days before.
+ *
+ * <p>The class is safe to use from several threads. The days are kept in a concurrent sorted map,
+ * so looking up a day and querying a range of days never blocks. A new day is loaded under a
+ * lock, so two threads asking for the same new day get the same register and its store is only
+ * created once.
+ *
+ * @author Jonathan Hubertz
+ * @version 0.1
+ * @since 17. october 2026
+ */
+public class MultiDayDepartureRegister {
+
+  private final Function<LocalDate, TrainDeparturePersistence> persistenceForDay;
+  private final ConcurrentNavigableMap<LocalDate, TrainDepartureRegister> days;
+  private final Object newDayLock;
+
+  private static final Comparator<ServiceDayDeparture> BY_DEPARTURE_TIME_WITH_DELAY =
+      Comparator.comparing(ServiceDayDeparture::getDepartureDateTimeWithDelay)
+          .thenComparing(departure -> departure.getDeparture().getTrainNumber());
+
+  // Constructor
+
+  /**
+   * Constructor for MultiDayDepartureRegister.
+   *
+   * @param persistenceForDay gives the persistence of each service day.
+   */
+  public MultiDayDepartureRegister(
+      Function<LocalDate, TrainDeparturePersistence> persistenceForDay) {
+    this.persistenceForDay = persistenceForDay;
+    this.days = new ConcurrentSkipListMap<>();
+    this.newDayLock = new Object();
+  }
+
+  /**
+   * Gives one csv file per service day, named departures-yyyy-mm-dd.csv.
+   *
+   * @param pathOfFile the path of the csv files.
+   * @return the persistence of each service day.
+   */
+  public static Function<LocalDate, TrainDeparturePersistence> csvFilePerDay(String pathOfFile) {
+    return date -> new CsvTrainDeparturePersistence(pathOfFile, "departures-" + date + ".csv");
+  }
+
+  // Methods for the service days
+
+  /**
+   * Gets the register of a service day, loading it the first time it is asked for. The store of a
+   * new day is created if it doesn't exist yet.
+   *
+   * @param serviceDate the service day.
+   * @return the register of the day.
+   * @throws IOException if the store of the day could not be created.
+   */
+  public TrainDepartureRegister getDay(LocalDate serviceDate) throws IOException {
+    TrainDepartureRegister day = days.get(serviceDate);
+    if (day != null) {
+      return day;
+    }
+    synchronized (newDayLock) {
+      day = days.get(serviceDate);
+      if (day == null) {
+        TrainDeparturePersistence persistence = persistenceForDay.apply(serviceDate);
+        persistence.createStore();
+        day = new TrainDepartureRegister(persistence);
+        days.put(serviceDate, day);
+      }
+      return day;
+    }
+  }
+
+  /**
+   * Gets the service days that are loaded.
+   *
+   * @return the loaded service days, in ascending order.
+   */
+  public List<LocalDate> getServiceDates() {
+    return List.copyOf(days.keySet());
+  }
+
+  /**
+   * Drops a service day from memory. Its persistence is left as it is.
+   *
+   * @param serviceDate the service day to drop.
+   * @return true if the day was loaded.
+   */
+  public boolean dropDay(LocalDate serviceDate) {
+    return days.remove(serviceDate) != null;
+  }
+
+  /**
+   * Drops every service day before a given day from memory. Their persistence is left as it is.
+   *
+   * @param serviceDate the first service day to keep.
+   * @return the number of days that were dropped.
+   */
+  public int dropDaysBefore(LocalDate serviceDate) {
+    int dropped = 0;
+    for (LocalDate oldDay : days.headMap(serviceDate, false).keySet()) {
+      if (days.remove(oldDay) != null) {
+        dropped++;
+      }
+    }
+    return dropped;
+  }
+
+  // Methods for the departures
+
+  /**
+   * Adds a train departure to a service day.
+   *
+   * @param serviceDate   the service day.
+   * @param departureTime the departure time.
+   * @param line          the line.
+   * @param trainNumber   the train number.
+   * @param destination   the destination.
+   * @param track         the track, or -1 if the departure has no track yet.
+   * @param delay         the delay.
+   * @throws IllegalArgumentException if the train number already exists on that day.
+   * @throws IOException              if the departure could not be written.
+   */
+  public void addTrainDeparture(LocalDate serviceDate, LocalTime departureTime, String line,
+      int trainNumber, String destination, int track, LocalTime delay)
+      throws IllegalArgumentException, IOException {
+    getDay(serviceDate).addTrainDeparture(departureTime, line, trainNumber, destination, track,
+        delay);
+  }
+
+  /**
+   * Retrieves a train departure of a service day by train number.
+   *
+   * @param serviceDate the service day.
+   * @param trainNumber the train number.
+   * @return the departure, or null if the day isn't loaded or has no such departure.
+   * @throws IOException if the day could not be read.
+   */
+  public TrainDeparture searchByTrainNumber(LocalDate serviceDate, int trainNumber)
+      throws IOException {
+    TrainDepartureRegister day = days.get(serviceDate);
+    return day == null ? null : day.searchByTrainNumber(trainNumber);
+  }
+
+  /**
+   * Retrieves the departures of the loaded days that leave within a time window, both ends
+   * included, in the order they leave. A long delay can move a departure days ahead, so a day
+   * before the window is only skipped when its last departure, with delay, leaves before the
+   * start of the window. Within each day the window is found by a binary search in its time
+   * order.
+   *
+   * @param from the start of the window.
+   * @param to   the end of the window.
+   * @return the departures in the window, sorted by the date and time they leave.
+   * @throws IOException if a day could not be read.
+   */
+  public List<ServiceDayDeparture> getDeparturesBetween(LocalDateTime from, LocalDateTime to)
+      throws IOException {
+    List<ServiceDayDeparture> departures = new ArrayList<>();
+    if (from.isAfter(to)) {
+      return departures;
+    }
+
+    for (Map.Entry<LocalDate, TrainDepartureRegister> day
+        : days.headMap(to.toLocalDate(), true).entrySet()) {
+      LocalDateTime dayStart = day.getKey().atStartOfDay();
+      Duration fromStart = Duration.between(dayStart, from);
+      long fromSecond = fromStart.getSeconds() + (fromStart.getNano() > 0 ? 1 : 0);
+      DepartureBoardSnapshot board = day.getValue().getSnapshot();
+      if (board.getLatestDepartureSecond() < fromSecond) {
+        continue;
+      }
+      long toSecond = Duration.between(dayStart, to).getSeconds();
+
+      for (TrainDeparture departure : board.getDeparturesBetween(fromSecond, toSecond)) {
+        departures.add(new ServiceDayDeparture(day.getKey(), departure));
+      }
+    }
+
+    departures.sort(BY_DEPARTURE_TIME_WITH_DELAY);
+    return departures;
+  }
+}
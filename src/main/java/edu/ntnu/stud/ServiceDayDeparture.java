@@ -0,0 +1,67 @@
+package edu.ntnu.stud;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A train departure together with the service day it belongs to. A departure belongs to the day
+ * it is scheduled on, even if a delay makes it leave after midnight.
+ *
+ * @author Jonathan Hubertz
+ * @version 0.1
+ * @since 17. october 2026
+ */
+public class ServiceDayDeparture {
+
+  private final LocalDate serviceDate;
+  private final TrainDeparture departure;
+
+  /**
+   * Constructor for ServiceDayDeparture.
+   *
+   * @param serviceDate the service day of the departure.
+   * @param departure   the departure.
+   * @throws IllegalArgumentException if the service day or departure is null.
+   */
+  public ServiceDayDeparture(LocalDate serviceDate, TrainDeparture departure) {
+    if (serviceDate == null) {
+      throw new IllegalArgumentException("service date cannot be null");
+    }
+    if (departure == null) {
+      throw new IllegalArgumentException("departure cannot be null");
+    }
+    this.serviceDate = serviceDate;
+    this.departure = departure;
+  }
+
+  // Getters
+
+  /**
+   * Gets the service day of the departure.
+   *
+   * @return the service day.
+   */
+  public LocalDate getServiceDate() {
+    return serviceDate;
+  }
+
+  /**
+   * Gets the departure.
+   *
+   * @return the departure.
+   */
+  public TrainDeparture getDeparture() {
+    return departure;
+  }
+
+  /**
+   * Gets the date and time the train leaves, with the delay added. Unlike
+   * {@link TrainDeparture#getDepartureTimeWithDelay()}, this moves on to the next day when the
+   * delay passes midnight.
+   *
+   * @return the date and time the train leaves.
+   */
+  public LocalDateTime getDepartureDateTimeWithDelay() {
+    return serviceDate.atStartOfDay().plusSeconds(departure.getDepartureSecondWithDelay());
+  }
+}
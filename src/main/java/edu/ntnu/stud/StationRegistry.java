@@ -0,0 +1,241 @@
+package edu.ntnu.stud;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Hosts the registers of many stations in one process. Each station has its own
+ * TrainDepartureRegister and its own persistence, and is pinned to one of a fixed number of
+ * shards. A shard is a single worker thread, so every task for a station runs on the same thread,
+ * one after the other, while the stations of different shards run in parallel across the cores.
+ *
+ * <p>Changes to a station should be made through {@link #submit(String, StationTask)}. Reads can
+ * also be made straight on the register from {@link #getStation(String)}, since the register
+ * serves them from its snapshot without waiting for the shard.
+ *
+ * @author Jonathan Hubertz
+ * @version 0.1
+ * @since 17. october 2026
+ */
+public class StationRegistry implements Closeable {
+
+  /**
+   * A piece of work on the register of one station.
+   *
+   * @param <T> the type of the result.
+   */
+  @FunctionalInterface
+  public interface StationTask<T> {
+
+    /**
+     * Runs the task on the shard of the station.
+     *
+     * @param register the register of the station.
+     * @return the result.
+     * @throws IOException if the register could not be read or written.
+     */
+    T run(TrainDepartureRegister register) throws IOException;
+  }
+
+  private final Function<String, TrainDeparturePersistence> persistenceForStation;
+  private final ExecutorService[] shards;
+  private final Map<String, TrainDepartureRegister> stations;
+
+  // Constructor
+
+  /**
+   * Constructor for StationRegistry.
+   *
+   * @param shardCount            the number of worker threads.
+   * @param persistenceForStation gives the persistence of each station.
+   * @throws IllegalArgumentException if the number of shards is not positive.
+   */
+  public StationRegistry(int shardCount,
+      Function<String, TrainDeparturePersistence> persistenceForStation) {
+    if (shardCount <= 0) {
+      throw new IllegalArgumentException("shard count must be positive");
+    }
+    this.persistenceForStation = persistenceForStation;
+    this.shards = new ExecutorService[shardCount];
+    for (int i = 0; i < shardCount; i++) {
+      String name = "station-shard-" + i;
+      shards[i] = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    this.stations = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Gives one csv file per station, named departures-station.csv. The station id becomes part of
+   * the file name, so ids that could point outside the path are rejected.
+   *
+   * @param pathOfFile the path of the csv files.
+   * @return the persistence of each station, which throws IllegalArgumentException for an id that
+   *         is empty or holds a path separator or "..".
+   */
+  public static Function<String, TrainDeparturePersistence> csvFilePerStation(String pathOfFile) {
+    return station -> {
+      if (station.isEmpty() || station.contains("/") || station.contains("\\")
+          || station.contains(File.separator) || station.contains("..")) {
+        throw new IllegalArgumentException("invalid station id: " + station);
+      }
+      return new CsvTrainDeparturePersistence(pathOfFile, "departures-" + station + ".csv");
+    };
+  }
+
+  // Methods for the stations
+
+  /**
+   * Loads several stations in parallel, each on its own shard, and waits until all are loaded.
+   * Stations that are already loaded are left as they are.
+   *
+   * @param stationIds the stations to load.
+   * @throws IOException if a station could not be loaded.
+   */
+  public void loadStations(Collection<String> stationIds) throws IOException {
+    List<CompletableFuture<Integer>> loading = new ArrayList<>(stationIds.size());
+    for (String stationId : stationIds) {
+      loading.add(submit(stationId, TrainDepartureRegister::getNumberOfDepartures));
+    }
+    for (CompletableFuture<Integer> station : loading) {
+      await(station);
+    }
+  }
+
+  /**
+   * Runs a task on the register of a station, on the shard of the station. The station is loaded
+   * first if it isn't yet, and its store is created if it doesn't exist.
+   *
+   * @param stationId the station.
+   * @param task      the task.
+   * @param <T>       the type of the result.
+   * @return the result of the task, which fails with the exception of the task if it threw one.
+   */
+  public <T> CompletableFuture<T> submit(String stationId, StationTask<T> task) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    shards[shardOf(stationId)].execute(() -> {
+      try {
+        result.complete(task.run(loadStation(stationId)));
+      } catch (Exception e) {
+        result.completeExceptionally(e);
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Gets the register of a loaded station.
+   *
+   * @param stationId the station.
+   * @return the register, or null if the station isn't loaded.
+   */
+  public TrainDepartureRegister getStation(String stationId) {
+    return stations.get(stationId);
+  }
+
+  /**
+   * Gets the stations that are loaded.
+   *
+   * @return the loaded stations, in ascending order.
+   */
+  public List<String> getStationIds() {
+    return List.copyOf(new TreeSet<>(stations.keySet()));
+  }
+
+  /**
+   * Gets the number of shards.
+   *
+   * @return the number of worker threads.
+   */
+  public int getShardCount() {
+    return shards.length;
+  }
+
+  /**
+   * Finds the shard a station is pinned to.
+   *
+   * @param stationId the station.
+   * @return the index of the shard.
+   */
+  public int shardOf(String stationId) {
+    return Math.floorMod(stationId.hashCode(), shards.length);
+  }
+
+  /**
+   * Stops the shards after the tasks already submitted have run.
+   */
+  @Override
+  public void close() {
+    for (ExecutorService shard : shards) {
+      shard.shutdown();
+    }
+    try {
+      for (ExecutorService shard : shards) {
+        shard.awaitTermination(1, TimeUnit.MINUTES);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // Helper methods
+
+  /**
+   * Gets the register of a station, loading it the first time. Only runs on the shard of the
+   * station, so a station is never loaded twice.
+   *
+   * @param stationId the station.
+   * @return the register of the station.
+   * @throws IOException if the store of the station could not be created or read.
+   */
+  private TrainDepartureRegister loadStation(String stationId) throws IOException {
+    TrainDepartureRegister station = stations.get(stationId);
+    if (station == null) {
+      TrainDeparturePersistence persistence = persistenceForStation.apply(stationId);
+      persistence.createStore();
+      station = new TrainDepartureRegister(persistence);
+      station.getSnapshot();
+      stations.put(stationId, station);
+    }
+    return station;
+  }
+
+  /**
+   * Waits for a task and rethrows what it failed with.
+   *
+   * @param task the task.
+   * @throws IOException if the task failed with one.
+   */
+  private static void await(CompletableFuture<?> task) throws IOException {
+    try {
+      task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("interrupted while loading stations", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException cause) {
+        throw cause;
+      }
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+}
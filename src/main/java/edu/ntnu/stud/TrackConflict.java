@@ -0,0 +1,99 @@
+package edu.ntnu.stud;
+
+import java.util.Objects;
+
+/**
+ * Two departures that use the same track at the same time, as found by a
+ * {@link TrackOccupancy}. The train that leaves first is always the first train.
+ *
+ * @author Jonathan Hubertz
+ * @version 0.1
+ * @since 17. october 2026
+ */
+public final class TrackConflict {
+
+  private final int track;
+  private final int firstTrainNumber;
+  private final int secondTrainNumber;
+
+  /**
+   * Constructor for TrackConflict.
+   *
+   * @param track             the track both trains use.
+   * @param firstTrainNumber  the train that leaves first.
+   * @param secondTrainNumber the train that leaves last.
+   */
+  TrackConflict(int track, int firstTrainNumber, int secondTrainNumber) {
+    this.track = track;
+    this.firstTrainNumber = firstTrainNumber;
+    this.secondTrainNumber = secondTrainNumber;
+  }
+
+  // Getters
+
+  /**
+   * Gets the track both trains use.
+   *
+   * @return the track.
+   */
+  public int getTrack() {
+    return track;
+  }
+
+  /**
+   * Gets the train that leaves first.
+   *
+   * @return the train number.
+   */
+  public int getFirstTrainNumber() {
+    return firstTrainNumber;
+  }
+
+  /**
+   * Gets the train that leaves last.
+   *
+   * @return the train number.
+   */
+  public int getSecondTrainNumber() {
+    return secondTrainNumber;
+  }
+
+  /**
+   * Checks whether another object is a conflict between the same trains on the same track.
+   *
+   * @param o the other object.
+   * @return true if the conflicts are equal.
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof TrackConflict other)) {
+      return false;
+    }
+    return track == other.track && firstTrainNumber == other.firstTrainNumber
+        && secondTrainNumber == other.secondTrainNumber;
+  }
+
+  /**
+   * A hash code that agrees with {@link #equals(Object)}.
+   *
+   * @return the hash code.
+   */
+  @Override
+  public int hashCode() {
+    return Objects.hash(track, firstTrainNumber, secondTrainNumber);
+  }
+
+  /**
+   * A string representation of the conflict.
+   *
+   * @return the trains and the track.
+   */
+  @Override
+  public String toString() {
+    return "Train " + firstTrainNumber + " and train " + secondTrainNumber
+        + " both use track " + track + ".";
+  }
+}
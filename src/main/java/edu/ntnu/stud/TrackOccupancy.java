@@ -0,0 +1,158 @@
+package edu.ntnu.stud;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Knows which departures use which track when. A departure holds its track for a dwell time
+ * before it leaves, so it occupies the window from its departure time with delay minus the dwell
+ * time up to its departure time with delay. Two departures on the same track conflict when their
+ * windows overlap.
+ *
+ * <p>Every window has the same length, so two windows overlap exactly when the departures leave
+ * less than one dwell time apart. Each track therefore has a TreeMap of its departures, ordered
+ * by departure time with delay, and the departures that conflict with one departure are found by
+ * a range query in logarithmic time, instead of comparing it with every other departure.
+ *
+ * <p>The index is not thread safe. The register guards it with its lock.
+ *
+ * @author Jonathan Hubertz
+ * @version 0.1
+ * @since 17. october 2026
+ */
+final class TrackOccupancy {
+
+  private final int dwellSeconds;
+  private final Map<Integer, NavigableMap<Long, Integer>> tracks;
+  private final int[] trackOf;
+  private final long[] keyOf;
+
+  /** The dwell time of a register made without one: five minutes. */
+  static final int DEFAULT_DWELL_SECONDS = 300;
+
+  private static final int NO_TRACK = -1;
+
+  /**
+   * Constructor for an empty TrackOccupancy.
+   *
+   * @param dwellSeconds how long a departure holds its track before it leaves, in seconds.
+   * @throws IllegalArgumentException if the dwell time is negative.
+   */
+  TrackOccupancy(int dwellSeconds) {
+    if (dwellSeconds < 0) {
+      throw new IllegalArgumentException("dwell time cannot be negative");
+    }
+    this.dwellSeconds = dwellSeconds;
+    this.tracks = new HashMap<>();
+    this.trackOf = new int[TrainDeparture.MAX_TRAIN_NUMBER + 1];
+    this.keyOf = new long[TrainDeparture.MAX_TRAIN_NUMBER + 1];
+    Arrays.fill(trackOf, NO_TRACK);
+  }
+
+  /**
+   * Gets the dwell time.
+   *
+   * @return how long a departure holds its track before it leaves, in seconds.
+   */
+  int getDwellSeconds() {
+    return dwellSeconds;
+  }
+
+  // Methods for changing the index
+
+  /**
+   * Puts a departure on a track, or moves it if it was already on one.
+   *
+   * @param trainNumber     the train number.
+   * @param track           the track, or -1 if the departure has no track.
+   * @param departureSecond the departure time with delay, in seconds.
+   */
+  void put(int trainNumber, int track, long departureSecond) {
+    remove(trainNumber);
+    if (track == NO_TRACK) {
+      return;
+    }
+    long key = DepartureBoardSnapshot.timeKey(departureSecond, trainNumber);
+    tracks.computeIfAbsent(track, t -> new TreeMap<>()).put(key, trainNumber);
+    trackOf[trainNumber] = track;
+    keyOf[trainNumber] = key;
+  }
+
+  /**
+   * Takes a departure off its track.
+   *
+   * @param trainNumber the train number.
+   */
+  void remove(int trainNumber) {
+    int track = trackOf[trainNumber];
+    if (track != NO_TRACK) {
+      tracks.get(track).remove(keyOf[trainNumber]);
+      trackOf[trainNumber] = NO_TRACK;
+    }
+  }
+
+  /**
+   * Takes every departure off its track.
+   */
+  void clear() {
+    tracks.clear();
+    Arrays.fill(trackOf, NO_TRACK);
+  }
+
+  // Methods for finding conflicts
+
+  /**
+   * Finds the departures that use the track of a departure while it does.
+   *
+   * @param trainNumber the train number.
+   * @return the train numbers of the conflicting departures, in the order they leave. Empty if
+   *         the departure has no track.
+   */
+  List<Integer> findConflicts(int trainNumber) {
+    List<Integer> conflicts = new ArrayList<>();
+    int track = trackOf[trainNumber];
+    if (track == NO_TRACK || dwellSeconds == 0) {
+      return conflicts;
+    }
+    long second = DepartureBoardSnapshot.secondOf(keyOf[trainNumber]);
+    NavigableMap<Long, Integer> overlapping = tracks.get(track).subMap(
+        DepartureBoardSnapshot.timeKey(second - dwellSeconds + 1, 0), true,
+        DepartureBoardSnapshot.timeKey(second + dwellSeconds, 0), false);
+    for (int other : overlapping.values()) {
+      if (other != trainNumber) {
+        conflicts.add(other);
+      }
+    }
+    return conflicts;
+  }
+
+  /**
+   * Finds every pair of departures that use the same track at the same time. Each track is swept
+   * once in departure order, and each departure is only compared with the departures that leave
+   * less than one dwell time after it.
+   *
+   * @return the conflicts, ordered by track and then by the first train to leave.
+   */
+  List<TrackConflict> getConflicts() {
+    List<TrackConflict> conflicts = new ArrayList<>();
+    if (dwellSeconds == 0) {
+      return conflicts;
+    }
+    for (Map.Entry<Integer, NavigableMap<Long, Integer>> track
+        : new TreeMap<>(tracks).entrySet()) {
+      for (Map.Entry<Long, Integer> first : track.getValue().entrySet()) {
+        long end = DepartureBoardSnapshot.timeKey(
+            DepartureBoardSnapshot.secondOf(first.getKey()) + dwellSeconds, 0);
+        for (int second : track.getValue().subMap(first.getKey(), false, end, false).values()) {
+          conflicts.add(new TrackConflict(track.getKey(), first.getValue(), second));
+        }
+      }
+    }
+    return conflicts;
+  }
+}
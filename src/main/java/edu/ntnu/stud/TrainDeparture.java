@@ -12,12 +12,24 @@ import java.time.LocalTime;
  */
 public class TrainDeparture {
 
+  /**
+   * The highest train number a departure can have. Train numbers range from 1 to this value.
+   */
+  public static final int MAX_TRAIN_NUMBER = 999;
+
+  /**
+   * The number of seconds in a day.
+   */
+  public static final int SECONDS_PER_DAY = 24 * 60 * 60;
+
   private final LocalTime departureTime;
+  private final int departureSecond;
   private final String line;
   private final int trainNumber;
   private final String destination;
   private int track;
-  private LocalTime delay;
+  private int delayMinutes;
+  private final boolean readOnly;
   // Constructors
 
   /**
@@ -47,16 +59,19 @@ public class TrainDeparture {
     if (destination == null || destination.trim().isEmpty()) {
       throw new IllegalArgumentException("destination cannot be null or empty");
     }
-    if (trainNumber <= 0 || trainNumber > 999) {
-      throw new IllegalArgumentException("train number must be between 1 and 999");
+    if (trainNumber <= 0 || trainNumber > MAX_TRAIN_NUMBER) {
+      throw new IllegalArgumentException("train number must be between 1 and "
+          + MAX_TRAIN_NUMBER);
     }
 
     this.departureTime = departureTime;
+    this.departureSecond = departureTime.toSecondOfDay();
     this.line = line;
     this.trainNumber = trainNumber;
     this.destination = destination;
     this.track = -1;
-    this.delay = delay;
+    this.delayMinutes = toMinutes(delay);
+    this.readOnly = false;
   }
 
   /**
@@ -87,16 +102,76 @@ public class TrainDeparture {
     if (destination == null || destination.trim().isEmpty()) {
       throw new IllegalArgumentException("destination cannot be null or empty");
     }
-    if (trainNumber <= 0 || trainNumber > 999) {
-      throw new IllegalArgumentException("train number must be between 1 and 999");
+    if (trainNumber <= 0 || trainNumber > MAX_TRAIN_NUMBER) {
+      throw new IllegalArgumentException("train number must be between 1 and "
+          + MAX_TRAIN_NUMBER);
     }
 
     this.departureTime = departureTime;
+    this.departureSecond = departureTime.toSecondOfDay();
     this.line = line;
     this.trainNumber = trainNumber;
     this.destination = destination;
     this.track = track;
-    this.delay = delay;
+    this.delayMinutes = toMinutes(delay);
+    this.readOnly = false;
+  }
+
+  /**
+   * Constructor that copies another TrainDeparture.
+   *
+   * @param departure the departure to copy.
+   * @param readOnly  whether the track and delay of the copy are fixed.
+   */
+  private TrainDeparture(TrainDeparture departure, boolean readOnly) {
+    this.departureTime = departure.departureTime;
+    this.departureSecond = departure.departureSecond;
+    this.line = departure.line;
+    this.trainNumber = departure.trainNumber;
+    this.destination = departure.destination;
+    this.track = departure.track;
+    this.delayMinutes = departure.delayMinutes;
+    this.readOnly = readOnly;
+  }
+
+  /**
+   * Constructor for a read-only TrainDeparture made from values that were checked when they were
+   * stored, so they are not checked again.
+   *
+   * @param departureSecond the departure time in seconds of the day.
+   * @param line            the line.
+   * @param trainNumber     the train number.
+   * @param destination     the destination.
+   * @param track           the track, or -1 if none is set.
+   * @param delayMinutes    the delay in minutes.
+   */
+  private TrainDeparture(int departureSecond, String line, int trainNumber, String destination,
+      int track, int delayMinutes) {
+    this.departureTime = LocalTime.ofSecondOfDay(departureSecond);
+    this.departureSecond = departureSecond;
+    this.line = line;
+    this.trainNumber = trainNumber;
+    this.destination = destination;
+    this.track = track;
+    this.delayMinutes = delayMinutes;
+    this.readOnly = true;
+  }
+
+  /**
+   * Makes a read-only departure out of stored values, such as a row of a {@link DepartureTable}.
+   *
+   * @param departureSecond the departure time in seconds of the day.
+   * @param line            the line.
+   * @param trainNumber     the train number.
+   * @param destination     the destination.
+   * @param track           the track, or -1 if none is set.
+   * @param delayMinutes    the delay in minutes.
+   * @return the read-only departure.
+   */
+  static TrainDeparture readOnly(int departureSecond, String line, int trainNumber,
+      String destination, int track, int delayMinutes) {
+    return new TrainDeparture(departureSecond, line, trainNumber, destination, track,
+        delayMinutes);
   }
 
   // Getters
@@ -147,12 +222,22 @@ public class TrainDeparture {
   }
 
   /**
-   * Gets the delay of the train.
+   * Gets the delay of the train. A delay of a day or more doesn't fit in a LocalTime, and is
+   * given modulo 24 hours; use {@link #getDelayMinutes()} to get the whole delay.
    *
    * @return the delay.
    */
   public LocalTime getDelay() {
-    return delay;
+    return LocalTime.of(delayMinutes / 60 % 24, delayMinutes % 60);
+  }
+
+  /**
+   * Gets the delay of the train in minutes.
+   *
+   * @return the delay in minutes.
+   */
+  public int getDelayMinutes() {
+    return delayMinutes;
   }
 
   // Setters
@@ -162,8 +247,10 @@ public class TrainDeparture {
    *
    * @param track the track.
    * @throws IllegalArgumentException if the track is not between 1 and 99.
+   * @throws UnsupportedOperationException if the departure is a read-only copy.
    */
   public void setTrack(int track) throws IllegalArgumentException {
+    checkWritable();
     if (track <= 0 || track > 99) {
       throw new IllegalArgumentException("track must be between 1 and 99");
     }
@@ -174,20 +261,74 @@ public class TrainDeparture {
    * Sets the delay of the train.
    *
    * @param delay the delay.
+   * @throws IllegalArgumentException      if delay is null.
+   * @throws UnsupportedOperationException if the departure is read-only.
    */
   public void setDelay(LocalTime delay) {
-    this.delay = delay;
+    checkWritable();
+    if (delay == null) {
+      throw new IllegalArgumentException("delay cannot be null");
+    }
+    this.delayMinutes = toMinutes(delay);
+  }
+
+  /**
+   * Sets the delay of the train in minutes. Unlike {@link #setDelay(LocalTime)}, this allows a
+   * delay of a day or more.
+   *
+   * @param delayMinutes the delay in minutes.
+   * @throws IllegalArgumentException      if the delay is negative.
+   * @throws UnsupportedOperationException if the departure is read-only.
+   */
+  public void setDelayMinutes(int delayMinutes) {
+    checkWritable();
+    if (delayMinutes < 0) {
+      throw new IllegalArgumentException("delay cannot be negative");
+    }
+    this.delayMinutes = delayMinutes;
   }
 
   // Other methods
 
+  /**
+   * Makes a copy of the departure whose track and delay can't be changed. A read-only copy can be
+   * shared between threads safely, since it never changes after it is made.
+   *
+   * @return a read-only copy of the departure.
+   */
+  public TrainDeparture readOnlyCopy() {
+    return readOnly ? this : new TrainDeparture(this, true);
+  }
+
+  /**
+   * Checks whether the departure is a read-only copy.
+   *
+   * @return true if the track and delay of the departure can't be changed.
+   */
+  public boolean isReadOnly() {
+    return readOnly;
+  }
+
   /**
    * Gets the departure time with the delay added.
    *
    * @return the updated departure time.
    */
   public LocalTime getDepartureTimeWithDelay() {
-    return departureTime.plusHours(delay.getHour()).plusMinutes(delay.getMinute());
+    return LocalTime.ofSecondOfDay(getDepartureSecondWithDelay() % SECONDS_PER_DAY);
+  }
+
+  /**
+   * Gets the number of seconds from the start of the day the train is scheduled on until it
+   * leaves, with the delay added. Unlike {@link #getDepartureTimeWithDelay()}, this doesn't wrap
+   * around at midnight, so a train that is delayed into the next day leaves after every train of
+   * the day, and departures can be ordered by comparing the numbers.
+   *
+   * @return the number of seconds until the train leaves, which is a day or more if the delay
+   *     moves it past midnight.
+   */
+  public long getDepartureSecondWithDelay() {
+    return departureSecond + delayMinutes * 60L;
   }
 
   /**
@@ -195,19 +336,78 @@ public class TrainDeparture {
    *
    * @return A string detailing the information about the departure.
    */
-  // Help from ChatGPT --
   public String toUiString() {
-    String trackStr = this.getTrack() == -1 ? "    " : String.format("%-5d", this.getTrack());
-    String delayStr =
-        this.getDelay() == LocalTime.of(0, 0) ? "     " : String.format("%-5s", this.getDelay());
-    return String.format("%-4d | %-15s | %-18s | %-5s | %-5s%n",
-        this.getTrainNumber(),
-        this.getDepartureTime(),
-        this.getLine() + " " + this.getDestination().substring(0, 1).toUpperCase()
-            + this.getDestination().substring(1),
-        trackStr,
-        delayStr);
-  }
-  // --
+    return DepartureBoardRenderer.appendRow(new StringBuilder(64), this).toString();
+  }
+
+  /**
+   * Checks whether two departures hold the same values.
+   *
+   * @param known     a departure, or null.
+   * @param departure another departure.
+   * @return true if the departures hold the same values.
+   */
+  static boolean sameValues(TrainDeparture known, TrainDeparture departure) {
+    return known != null
+        && known.getDepartureTime().equals(departure.getDepartureTime())
+        && known.getLine().equals(departure.getLine())
+        && known.getDestination().equals(departure.getDestination())
+        && known.getTrack() == departure.getTrack()
+        && known.getDelayMinutes() == departure.getDelayMinutes();
+  }
 
+  /**
+   * Formats a number of minutes as hours and minutes, in the form HH:mm. The hours have more than
+   * two digits if needed, and go beyond 23 for a delay of a day or more.
+   *
+   * @param minutes the number of minutes.
+   * @return the formatted minutes.
+   */
+  static String formatMinutes(int minutes) {
+    int hours = minutes / 60;
+    int rest = minutes % 60;
+    return (hours < 10 ? "0" : "") + hours + (rest < 10 ? ":0" : ":") + rest;
+  }
+
+  /**
+   * Parses a number of minutes in the form written by {@link #formatMinutes(int)}. Seconds in the
+   * form HH:mm:ss are accepted and ignored, so delays written as a LocalTime can still be read.
+   *
+   * @param text the text to parse.
+   * @return the number of minutes.
+   * @throws IllegalArgumentException if the text is not in the form HH:mm or HH:mm:ss.
+   */
+  static int parseMinutes(String text) {
+    int colon = text.indexOf(':');
+    if (colon < 1 || (text.length() != colon + 3 && text.length() != colon + 6)) {
+      throw new IllegalArgumentException("invalid time: " + text);
+    }
+    int hours = Integer.parseInt(text, 0, colon, 10);
+    int minutes = Integer.parseInt(text, colon + 1, colon + 3, 10);
+    if (hours < 0 || minutes < 0 || minutes > 59) {
+      throw new IllegalArgumentException("invalid time: " + text);
+    }
+    return hours * 60 + minutes;
+  }
+
+  /**
+   * Turns a delay into minutes. Only the hours and minutes of a delay count.
+   *
+   * @param delay the delay.
+   * @return the delay in minutes.
+   */
+  private static int toMinutes(LocalTime delay) {
+    return delay.getHour() * 60 + delay.getMinute();
+  }
+
+  /**
+   * Checks that the track and delay of the departure can be changed.
+   *
+   * @throws UnsupportedOperationException if the departure is a read-only copy.
+   */
+  private void checkWritable() {
+    if (readOnly) {
+      throw new UnsupportedOperationException("a read-only departure cannot be changed");
+    }
+  }
 }
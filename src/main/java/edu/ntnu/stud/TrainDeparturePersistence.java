@@ -1,6 +1,7 @@
 package edu.ntnu.stud;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -17,4 +18,54 @@ public interface TrainDeparturePersistence {
   void updateDeparture(TrainDeparture departure) throws IOException;
 
   void clearDepartures() throws IOException;
+
+  /**
+   * Creates an empty store if it doesn't exist yet. A store that exists is left as it is. Stores
+   * that are created the first time they are used don't need to do anything.
+   *
+   * @throws IOException if the store could not be created.
+   */
+  default void createStore() throws IOException {
+  }
+
+  // Batch operations
+
+  /**
+   * Writes several new departures at once. Implementations should write the whole batch with a
+   * single write, instead of one write per departure.
+   *
+   * @param departures the departures to write.
+   * @throws IOException if the departures could not be written.
+   */
+  default void writeDepartures(List<TrainDeparture> departures) throws IOException {
+    for (TrainDeparture departure : departures) {
+      writeDeparture(departure);
+    }
+  }
+
+  /**
+   * Updates several departures at once. Implementations should write the whole batch with a
+   * single write, instead of one write per departure.
+   *
+   * @param departures the departures to update.
+   * @throws IOException if the departures could not be updated.
+   */
+  default void updateDepartures(List<TrainDeparture> departures) throws IOException {
+    for (TrainDeparture departure : departures) {
+      updateDeparture(departure);
+    }
+  }
+
+  /**
+   * Removes several departures at once. Implementations should write the whole batch with a
+   * single write, instead of one write per departure.
+   *
+   * @param trainNumbers the train numbers of the departures to remove.
+   * @throws IOException if the departures could not be removed.
+   */
+  default void removeDepartures(Collection<Integer> trainNumbers) throws IOException {
+    for (int trainNumber : trainNumbers) {
+      removeDeparture(trainNumber);
+    }
+  }
 }
@@ -1,14 +1,44 @@
 package edu.ntnu.stud;
 
 import java.io.IOException;
+import java.text.Normalizer;
 import java.time.LocalTime;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
 
 
 /**
- * This class represents a register of TrainDeparture objects.
+ * This class represents a register of TrainDeparture objects. The departures are read from the
+ * persistence once and kept in memory. Every read is served from memory, while every change is
+ * written through to the persistence. In memory, the departures are held in a
+ * {@link DepartureTable}, which stores them in primitive columns with one row per possible train
+ * number, so lookups, duplicate checks and removals take constant time, and a search by
+ * destination or line reads the train numbers the table keeps for it.
+ *
+ * <p>Every change also publishes a new immutable {@link DepartureBoardSnapshot} through a single
+ * atomic reference. The snapshot shares the columns of the table instead of copying the
+ * departures, and keeps them ordered by their departure time with delay, so the departures
+ * after a given time are found by a binary search instead of sorting the whole register. Boards
+ * are rendered from the snapshot, so they never wait for a change to be written and never show a
+ * change that is only half applied.
+ *
+ * <p>The register is safe to use from several threads. Reads run in parallel, and the cheapest of
+ * them, such as a search by train number, use an optimistic read that doesn't lock at all unless
+ * a write happened at the same time. Changes are serialized by a write lock that is held while
+ * the change is written to the persistence, so two changes can never overwrite each other.
+ *
+ * <p>After a change is published, it is also announced on the {@link DepartureEventBus} of the
+ * register, so other parts of the program can react to it without reading the whole register.
+ * The events are queued while the write lock is held and handed to the bus after it is released,
+ * in the order the changes were made, so a listener that holds up the bus can still read the
+ * register without waiting for the writer it holds up.
  *
  * @author Jonathan Hubertz
  * @version 1.0
@@ -17,9 +47,19 @@ import java.util.stream.Collectors;
 public class TrainDepartureRegister {
 
   private final TrainDeparturePersistence persistence;
+  private final DepartureTable table;
+  private final AtomicReference<DepartureBoardSnapshot> snapshot;
+  private final DepartureEventBus events;
+  private long version;
+  private volatile boolean loaded;
+  private volatile long writeStamp;
   private LocalTime systemTime;
+  private final StampedLock lock;
+  private final Queue<PendingEvent> pendingEvents;
+  private final ReentrantLock publishing;
 
   private static final String ERROR = "Error: ";
+  private static final DepartureRemovalHook NO_HOOK = departures -> { };
 
   // Constructor
 
@@ -27,8 +67,29 @@ public class TrainDepartureRegister {
    * Constructor with file path and name.
    */
   public TrainDepartureRegister(TrainDeparturePersistence persistence) {
+    this(persistence, TrackOccupancy.DEFAULT_DWELL_SECONDS);
+  }
+
+  /**
+   * Constructor with a dwell time for the track occupancy. A departure holds its track for the
+   * dwell time before it leaves, and two departures on the same track conflict when they hold it
+   * at the same time.
+   *
+   * @param persistence  the persistence of the departures.
+   * @param dwellSeconds how long a departure holds its track before it leaves, in seconds.
+   * @throws IllegalArgumentException if the dwell time is negative.
+   */
+  public TrainDepartureRegister(TrainDeparturePersistence persistence, int dwellSeconds) {
     this.persistence = persistence;
+    this.table = new DepartureTable(dwellSeconds);
+    this.snapshot = new AtomicReference<>(DepartureBoardSnapshot.EMPTY);
+    this.events = new DepartureEventBus();
+    this.version = 0;
+    this.loaded = false;
     this.systemTime = LocalTime.of(0, 0);
+    this.lock = new StampedLock();
+    this.pendingEvents = new ConcurrentLinkedQueue<>();
+    this.publishing = new ReentrantLock();
   }
 
   // Getters
@@ -40,19 +101,52 @@ public class TrainDepartureRegister {
    */
 
   public LocalTime getSystemTime() {
-    return systemTime;
+    long stamp = lock.tryOptimisticRead();
+    LocalTime time = systemTime;
+    if (!lock.validate(stamp)) {
+      stamp = lock.readLock();
+      try {
+        time = systemTime;
+      } finally {
+        lock.unlockRead(stamp);
+      }
+    }
+    return time;
   }
 
   /**
-   * Sorts the train departures by ascending departure times.
+   * Gets the latest snapshot of the departure board. Getting a snapshot never blocks, and the
+   * snapshot never changes, even if the register changes while it is being read.
    *
-   * @return a sorted list of train departures.
+   * @return the latest snapshot.
+   * @throws IOException if the register had to be loaded and the departures could not be read.
    */
+  public DepartureBoardSnapshot getSnapshot() throws IOException {
+    loadDepartures();
+    return snapshot.get();
+  }
 
-  private List<TrainDeparture> getSortedDepartures() throws IOException {
-    return persistence.readDepartures().stream()
-        .sorted(Comparator.comparing(TrainDeparture::getDepartureTime))
-        .toList();
+  /**
+   * Gets the event bus that announces every change to the register. Subscribe to it to be told
+   * when a departure is added, delayed, given a track, removed or has departed.
+   *
+   * @return the event bus.
+   */
+  public DepartureEventBus getEventBus() {
+    return events;
+  }
+
+  /**
+   * The train departures that leave between two points in time, both included, in ascending
+   * order of departure time with delay. The points are given in seconds from the start of the day
+   * the trains are scheduled on, and may be a day or more.
+   *
+   * @param fromSecond the earliest departure time with delay, in seconds.
+   * @param toSecond   the latest departure time with delay, in seconds.
+   * @return a sorted list of read-only train departures.
+   */
+  List<TrainDeparture> getDeparturesBetween(long fromSecond, long toSecond) throws IOException {
+    return getSnapshot().getDeparturesBetween(fromSecond, toSecond);
   }
 
   // Methods for adding departures to the register
@@ -71,22 +165,24 @@ public class TrainDepartureRegister {
 
   public void addTrainDeparture(LocalTime departureTime, String line, int trainNumber,
       String destination, LocalTime delay) throws IllegalArgumentException, IOException {
-    if (searchByTrainNumber(trainNumber) != null) {
-      throw new IllegalArgumentException("A train with number " + trainNumber + " already exists.");
-    }
-    if (departureTime.isBefore(systemTime)) {
-      throw new IllegalArgumentException(
-          "Cannot assign a train departure time before the current time.");
-    }
-
+    long stamp = lock.writeLock();
     try {
-      TrainDeparture newDeparture = new TrainDeparture(departureTime, line, trainNumber,
-          destination, delay);
-      persistence.writeDeparture(newDeparture);
-    } catch (Exception e) {
-      System.out.println(ERROR + e.getMessage());
-    }
+      loadDeparturesLocked();
+      checkCanAdd(trainNumber, departureTime);
 
+      try {
+        TrainDeparture newDeparture = new TrainDeparture(departureTime, line, trainNumber,
+            destination, delay);
+        persistence.writeDeparture(newDeparture);
+        table.put(newDeparture);
+        publish(trainNumber);
+        announce(DepartureEvent.Type.ADDED, trainNumber);
+      } catch (Exception e) {
+        System.out.println(ERROR + e.getMessage());
+      }
+    } finally {
+      unlockAfterPersisting(stamp);
+    }
   }
 
   /**
@@ -103,16 +199,59 @@ public class TrainDepartureRegister {
    */
   public void addTrainDeparture(LocalTime departureTime, String line, int trainNumber,
       String destination, int track, LocalTime delay) throws IllegalArgumentException, IOException {
-    if (searchByTrainNumber(trainNumber) != null) {
-      throw new IllegalArgumentException("A train with number " + trainNumber + " already exists.");
+    long stamp = lock.writeLock();
+    try {
+      loadDeparturesLocked();
+      checkCanAdd(trainNumber, departureTime);
+
+      TrainDeparture newDeparture = new TrainDeparture(departureTime, line, trainNumber,
+          destination, track, delay);
+      persistence.writeDeparture(newDeparture);
+      table.put(newDeparture);
+      publish(trainNumber);
+      announce(DepartureEvent.Type.ADDED, trainNumber);
+    } finally {
+      unlockAfterPersisting(stamp);
     }
-    if (departureTime.isBefore(systemTime)) {
-      throw new IllegalArgumentException(
-          "Cannot assign a train departure time before the current time.");
+  }
+
+  /**
+   * Adds several train departures to the register at once, for example a full day's timetable.
+   * Every departure is checked before anything is written, and the whole batch is written to the
+   * persistence with a single write. If one departure is invalid, none of them are added.
+   *
+   * @param newDepartures the departures to add.
+   * @throws IllegalArgumentException if a train number already exists in the register, or occurs
+   *                                  more than once in the batch.
+   * @throws IllegalArgumentException if a departure time is before the current system time.
+   */
+  public void addTrainDepartures(List<TrainDeparture> newDepartures)
+      throws IllegalArgumentException, IOException {
+    long stamp = lock.writeLock();
+    try {
+      loadDeparturesLocked();
+      boolean[] inBatch = new boolean[TrainDeparture.MAX_TRAIN_NUMBER + 1];
+      for (TrainDeparture departure : newDepartures) {
+        int trainNumber = departure.getTrainNumber();
+        if (inBatch[trainNumber]) {
+          throw new IllegalArgumentException(
+              "A train with number " + trainNumber + " already exists.");
+        }
+        checkCanAdd(trainNumber, departure.getDepartureTime());
+        inBatch[trainNumber] = true;
+      }
+
+      persistence.writeDepartures(newDepartures);
+      for (TrainDeparture departure : newDepartures) {
+        table.put(departure);
+      }
+      publishAll();
+      for (TrainDeparture departure : newDepartures) {
+        announce(DepartureEvent.Type.ADDED, departure.getTrainNumber());
+      }
+    } finally {
+      unlockAfterPersisting(stamp);
     }
-    TrainDeparture newDeparture = new TrainDeparture(departureTime, line, trainNumber,
-        destination, track, delay);
-    persistence.writeDeparture(newDeparture);
   }
 
   // Methods related to removing departures from the register
@@ -123,7 +262,19 @@ public class TrainDepartureRegister {
    * @param trainNumber the train number to remove.
    */
   public void removeDeparture(int trainNumber) throws IOException {
-    persistence.removeDeparture(trainNumber);
+    long stamp = lock.writeLock();
+    try {
+      loadDeparturesLocked();
+      persistence.removeDeparture(trainNumber);
+      table.remove(trainNumber);
+      TrainDeparture removed = snapshot.get().get(trainNumber);
+      publish(trainNumber);
+      if (removed != null) {
+        queueEvent(DepartureEvent.Type.REMOVED, removed);
+      }
+    } finally {
+      unlockAfterPersisting(stamp);
+    }
   }
 
   // Setters
@@ -135,22 +286,26 @@ public class TrainDepartureRegister {
    * @param track       the track.
    */
   public void setTrack(int trainNumber, int track) throws IOException {
-    for (TrainDeparture departure : persistence.readDepartures()) {
-      if (departure.getTrainNumber() == trainNumber) {
-        try {
-          departure.setTrack(track);
-          persistence.updateDeparture(departure);
-          return;
-        } catch (IOException e) {
-          System.out.println(ERROR + "didn't update Csv file - " + e.getMessage());
-          return;
-        } catch (IllegalArgumentException e) {
-          System.out.println(ERROR + e.getMessage());
-          return;
-        }
+    long stamp = lock.writeLock();
+    try {
+      loadDeparturesLocked();
+      TrainDeparture updated = table.get(trainNumber);
+      if (updated == null) {
+        System.out.println(ERROR + "train number not found.");
+        return;
       }
+      updated.setTrack(track);
+      persistence.updateDeparture(updated);
+      table.setTrack(trainNumber, track);
+      publish(trainNumber);
+      announce(DepartureEvent.Type.TRACK_ASSIGNED, trainNumber);
+    } catch (IOException e) {
+      System.out.println(ERROR + "didn't update Csv file - " + e.getMessage());
+    } catch (IllegalArgumentException e) {
+      System.out.println(ERROR + e.getMessage());
+    } finally {
+      unlockAfterPersisting(stamp);
     }
-    System.out.println(ERROR + "train number not found.");
   }
 
 
@@ -161,59 +316,299 @@ public class TrainDepartureRegister {
    * @param delay       the delay.
    */
   public void setDelay(int trainNumber, LocalTime delay) throws IOException {
-    for (TrainDeparture departure : persistence.readDepartures()) {
-      if (departure.getTrainNumber() == trainNumber) {
-        try {
-          departure.setDelay(delay);
-          persistence.updateDeparture(departure);
-          return;
-        } catch (IOException e) {
-          System.out.println(ERROR + "didn't update Csv file - " + e.getMessage());
-          return;
-        } catch (IllegalArgumentException e) {
-          System.out.println(ERROR + e.getMessage());
-          return;
-        }
+    if (delay == null) {
+      System.out.println(ERROR + "delay cannot be null");
+      return;
+    }
+    setDelayMinutes(trainNumber, delay.getHour() * 60 + delay.getMinute());
+  }
+
+  /**
+   * Sets the delay of a train departure in minutes. Unlike {@link #setDelay(int, LocalTime)}, this
+   * allows a delay of a day or more.
+   *
+   * @param trainNumber  the train number.
+   * @param delayMinutes the delay in minutes.
+   */
+  public void setDelayMinutes(int trainNumber, int delayMinutes) throws IOException {
+    long stamp = lock.writeLock();
+    try {
+      loadDeparturesLocked();
+      TrainDeparture updated = table.get(trainNumber);
+      if (updated == null) {
+        return;
       }
+      updated.setDelayMinutes(delayMinutes);
+      persistence.updateDeparture(updated);
+      table.setDelayMinutes(trainNumber, delayMinutes);
+      publish(trainNumber);
+      announce(DepartureEvent.Type.DELAYED, trainNumber);
+    } catch (IOException e) {
+      System.out.println(ERROR + "didn't update Csv file - " + e.getMessage());
+    } catch (IllegalArgumentException e) {
+      System.out.println(ERROR + e.getMessage());
+    } finally {
+      unlockAfterPersisting(stamp);
     }
   }
 
+  // Methods for changing many departures at once
+
   /**
-   * Sets the system time.
+   * Adds to the delay of every departure on a line that leaves at or after a given time, for
+   * example when the line is disrupted. The time is compared with the departure time with delay.
+   * The departures are found in one pass over the line column and written to the persistence as
+   * one batch. A negative number of minutes takes delay away again.
+   *
+   * @param line    the line, which must match exactly.
+   * @param from    the earliest departure time with delay to change.
+   * @param minutes the minutes to add to each delay.
+   * @return the number of departures that were changed.
+   * @throws IllegalArgumentException if the line or the time is null.
+   * @throws IllegalArgumentException if a delay would become negative. Nothing is changed then.
+   * @throws IOException              if the departures could not be written.
+   */
+  public int delayLine(String line, LocalTime from, int minutes)
+      throws IllegalArgumentException, IOException {
+    if (line == null) {
+      throw new IllegalArgumentException("line cannot be null");
+    }
+    if (from == null) {
+      throw new IllegalArgumentException("from cannot be null");
+    }
+    long stamp = lock.writeLock();
+    try {
+      loadDeparturesLocked();
+      return addDelay(table.findByLine(line), from.toSecondOfDay(), minutes);
+    } finally {
+      unlockAfterPersisting(stamp);
+    }
+  }
+
+  /**
+   * Adds to the delay of every departure to a destination. The destination is matched the same
+   * way as by {@link #searchByDestination(String)}. The departures are written to the persistence
+   * as one batch. A negative number of minutes takes delay away again.
+   *
+   * @param destination the destination.
+   * @param minutes     the minutes to add to each delay.
+   * @return the number of departures that were changed.
+   * @throws IllegalArgumentException if the destination is null.
+   * @throws IllegalArgumentException if a delay would become negative. Nothing is changed then.
+   * @throws IOException              if the departures could not be written.
+   */
+  public int delayDestination(String destination, int minutes)
+      throws IllegalArgumentException, IOException {
+    if (destination == null) {
+      throw new IllegalArgumentException("destination cannot be null");
+    }
+    long stamp = lock.writeLock();
+    try {
+      loadDeparturesLocked();
+      return addDelay(table.findByDestination(foldDestination(destination)), 0, minutes);
+    } finally {
+      unlockAfterPersisting(stamp);
+    }
+  }
+
+  /**
+   * Sets the system time. When the time moves forward, a departed event is announced for each
+   * departure that left in between, in the order they left.
    *
    * @param time the time to set.
    */
   public void setSystemTime(LocalTime time) {
-    systemTime = time;
+    long stamp = lock.writeLock();
+    try {
+      LocalTime oldTime = systemTime;
+      systemTime = time;
+      DepartureBoardSnapshot board = snapshot.get();
+      snapshot.set(board.withSystemTime(++version, time));
+      if (time.isAfter(oldTime)) {
+        for (TrainDeparture departure : board.getDeparturesBetween(
+            oldTime.toSecondOfDay() + 1L, time.toSecondOfDay())) {
+          queueEvent(DepartureEvent.Type.DEPARTED, departure);
+        }
+      }
+    } finally {
+      unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Removes every departure that has left, which is every departure whose departure time with
+   * delay is at or before the system time. The departed trains are the first ones in the time
+   * order of the snapshot, so they are found without looking at the trains that are still to
+   * leave, and they are removed from the persistence as one batch.
+   *
+   * @return the departures that were removed, in the order they left.
+   * @throws IOException if the departures could not be removed from the persistence.
+   */
+  public List<TrainDeparture> removeDeparted() throws IOException {
+    return removeDeparted(NO_HOOK);
+  }
+
+  /**
+   * Removes every departure that has left, like {@link #removeDeparted()}, and hands the
+   * departures to a hook before they are removed from the persistence.
+   *
+   * @param beforeRemoving called with the departures, in the order they left, while the write
+   *                       lock is held. If it throws, nothing is removed.
+   * @return the departures that were removed, in the order they left.
+   * @throws IOException if the hook failed, or the departures could not be removed from the
+   *                     persistence.
+   */
+  List<TrainDeparture> removeDeparted(DepartureRemovalHook beforeRemoving) throws IOException {
+    long stamp = lock.writeLock();
+    try {
+      loadDeparturesLocked();
+      DepartureBoardSnapshot board = snapshot.get();
+      int now = systemTime.toSecondOfDay();
+      List<TrainDeparture> departed = board.getDeparturesBetween(0, now);
+      if (departed.isEmpty()) {
+        return departed;
+      }
+
+      List<Integer> trainNumbers = new ArrayList<>(departed.size());
+      for (TrainDeparture departure : departed) {
+        trainNumbers.add(departure.getTrainNumber());
+      }
+      beforeRemoving.beforeRemoving(departed);
+      persistence.removeDepartures(trainNumbers);
+      for (int trainNumber : trainNumbers) {
+        table.remove(trainNumber);
+      }
+      snapshot.set(board.withoutDepartedBy(++version, table.share(), now));
+      for (TrainDeparture departure : departed) {
+        queueEvent(DepartureEvent.Type.REMOVED, departure);
+      }
+      return departed;
+    } finally {
+      unlockAfterPersisting(stamp);
+    }
+  }
+
+  /**
+   * Removes departures that still hold the values they had when they were read from a snapshot.
+   * A departure that was changed or removed in the meantime is left alone. The departures are
+   * removed from the persistence as one batch, after they are handed to a hook.
+   *
+   * @param departures     departures as they were in a snapshot of this register.
+   * @param beforeRemoving called with the departures that are about to be removed, while the
+   *                       write lock is held. If it throws, nothing is removed.
+   * @return the departures that were removed.
+   * @throws IOException if the hook failed, or the departures could not be removed from the
+   *                     persistence.
+   */
+  List<TrainDeparture> removeUnchanged(List<TrainDeparture> departures,
+      DepartureRemovalHook beforeRemoving) throws IOException {
+    long stamp = lock.writeLock();
+    try {
+      loadDeparturesLocked();
+      DepartureBoardSnapshot board = snapshot.get();
+      List<TrainDeparture> unchanged = new ArrayList<>(departures.size());
+      List<Integer> trainNumbers = new ArrayList<>(departures.size());
+      for (TrainDeparture departure : departures) {
+        if (TrainDeparture.sameValues(board.get(departure.getTrainNumber()), departure)) {
+          unchanged.add(departure);
+          trainNumbers.add(departure.getTrainNumber());
+        }
+      }
+      if (unchanged.isEmpty()) {
+        return unchanged;
+      }
+
+      beforeRemoving.beforeRemoving(unchanged);
+      persistence.removeDepartures(trainNumbers);
+      for (int trainNumber : trainNumbers) {
+        table.remove(trainNumber);
+      }
+      publishAll();
+      for (TrainDeparture departure : unchanged) {
+        queueEvent(DepartureEvent.Type.REMOVED, departure);
+      }
+      return unchanged;
+    } finally {
+      unlockAfterPersisting(stamp);
+    }
   }
 
   // Methods related to searching the register
 
   /**
-   * Retrieves a train departure from the register by train number.
+   * Retrieves a train departure from the register by train number. The departure is read-only;
+   * use {@link #setTrack(int, int)} and {@link #setDelay(int, LocalTime)} to change it.
    *
    * @param trainNumber the train number.
    * @return the TrainDeparture object with the given train number, or null if it doesn't exist.
    */
-  // Generated by Copilot --
   public TrainDeparture searchByTrainNumber(int trainNumber) throws IOException {
-    return persistence.readDepartures().stream()
-        .filter(departure -> departure.getTrainNumber() == trainNumber)
-        .findFirst()
-        .orElse(null);
+    return getSnapshot().get(trainNumber);
   }
-  // --
 
   /**
-   * Retrieves a list of train departures from the register by destination.
+   * Retrieves a list of train departures from the register by destination. The search ignores
+   * case and surrounding whitespace, so "Tromsø" and "tromsø " find the same departures.
+   *
+   * The departures are read-only.
    *
    * @param destination the destination.
    * @return a list of train departures with the given destination, or an empty list if none exist.
    */
   public List<TrainDeparture> searchByDestination(String destination) throws IOException {
-    return persistence.readDepartures().stream()
-        .filter(departure -> departure.getDestination().toLowerCase().equals(destination))
-        .toList();
+    loadDepartures();
+    if (destination == null) {
+      return List.of();
+    }
+    String key = foldDestination(destination);
+    long stamp = lock.readLock();
+    try {
+      DepartureBoardSnapshot board = snapshot.get();
+      List<TrainDeparture> departures = new ArrayList<>();
+      for (int trainNumber : table.findByDestination(key)) {
+        departures.add(board.get(trainNumber));
+      }
+      return departures;
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * Finds the departures that use the same track as a departure while it holds the track.
+   *
+   * @param trainNumber the train number.
+   * @return the train numbers of the conflicting departures, in the order they leave. Empty if
+   *         the departure doesn't exist or has no track.
+   * @throws IOException if the register had to be loaded and the departures could not be read.
+   */
+  public List<Integer> findTrackConflicts(int trainNumber) throws IOException {
+    loadDepartures();
+    long stamp = lock.readLock();
+    try {
+      if (!table.contains(trainNumber)) {
+        return List.of();
+      }
+      return table.getOccupancy().findConflicts(trainNumber);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * Finds every pair of departures that use the same track at the same time.
+   *
+   * @return the conflicts, ordered by track and then by the first train to leave.
+   * @throws IOException if the register had to be loaded and the departures could not be read.
+   */
+  public List<TrackConflict> getTrackConflicts() throws IOException {
+    loadDepartures();
+    long stamp = lock.readLock();
+    try {
+      return table.getOccupancy().getConflicts();
+    } finally {
+      lock.unlockRead(stamp);
+    }
   }
 
   // Methods related to string representations of the register
@@ -230,7 +625,7 @@ public class TrainDepartureRegister {
     if (departure == null) {
       return "No train departures with train number " + trainNumber + " found.";
     } else {
-      return formatDepartures() + departure.toUiString();
+      return DepartureBoardRenderer.appendRow(formatDepartures(), departure).toString();
     }
   }
 
@@ -246,11 +641,11 @@ public class TrainDepartureRegister {
     if (departures.isEmpty()) {
       return "No train departures with destination " + destination + " found.";
     } else {
-      String newDepartures = departures.stream()
-          .map(TrainDeparture::toUiString)
-          .collect(Collectors.joining());
-
-      return formatDepartures() + newDepartures;
+      StringBuilder table = formatDepartures();
+      for (TrainDeparture departure : departures) {
+        DepartureBoardRenderer.appendRow(table, departure);
+      }
+      return table.toString();
     }
   }
 
@@ -260,12 +655,123 @@ public class TrainDepartureRegister {
    * @return a string representation of the register.
    */
   public String toSortedTable(LocalTime systemTime) throws IOException {
-    var newDepartures = getSortedDepartures().stream()
-        .filter(departure -> departure.getDepartureTimeWithDelay().isAfter(systemTime))
-        .map(TrainDeparture::toUiString)
-        .collect(Collectors.joining());
+    StringBuilder table = formatDepartures();
+    for (TrainDeparture departure : getSnapshot().getDeparturesAfter(systemTime)) {
+      DepartureBoardRenderer.appendRow(table, departure);
+    }
+    return table.toString();
+  }
+
+  /**
+   * Writes the same table as {@link #toSortedTable(LocalTime)} straight to an output, without
+   * building the whole table as a String first.
+   *
+   * @param systemTime the time the departures must leave after.
+   * @param renderer   the renderer to write the table with.
+   * @param out        the output to write the table to.
+   * @throws IOException if the register could not be loaded, or the table could not be written.
+   */
+  public void writeSortedTable(LocalTime systemTime, DepartureBoardRenderer renderer,
+      Appendable out) throws IOException {
+    DepartureBoardSnapshot board = getSnapshot();
+    renderer.writeBoard(board.getSystemTime(), board.getDeparturesAfter(systemTime), out);
+  }
+
+  /**
+   * Gets the next departures after the system time, in order of departure time with delay. Only
+   * the departures on the page are looked at, so a station board showing the next few trains
+   * doesn't pay for the whole register.
+   *
+   * @param limit the largest number of departures to get.
+   * @return the first page of departures, with the cursor of the next page.
+   * @throws IOException if the register had to be loaded and the departures could not be read.
+   */
+  public DeparturePage getNextDepartures(int limit) throws IOException {
+    DepartureBoardSnapshot board = getSnapshot();
+    return board.getPage(DepartureCursor.after(board.getSystemTime()), limit);
+  }
+
+  /**
+   * Gets the departures after a cursor, in order of departure time with delay. Use the cursor of
+   * a page to get the page after it.
+   *
+   * @param cursor the cursor the page starts after.
+   * @param limit  the largest number of departures to get.
+   * @return the page of departures, with the cursor of the next page.
+   * @throws IOException if the register had to be loaded and the departures could not be read.
+   */
+  public DeparturePage getNextDepartures(DepartureCursor cursor, int limit) throws IOException {
+    return getSnapshot().getPage(cursor, limit);
+  }
 
-    return formatDepartures() + newDepartures;
+  // Methods for applying changes made outside the register
+
+  /**
+   * Gets a number that grows each time the register writes a change to the persistence. A
+   * reader of the persistence takes it before reading, so that
+   * {@link #applyExternalChanges(Collection, Collection, long)} can tell whether the register
+   * wrote a newer change while the persistence was being read.
+   *
+   * @return the write stamp.
+   */
+  long getWriteStamp() {
+    return writeStamp;
+  }
+
+  /**
+   * Applies changes that were made to the persistence by another program to the in-memory state
+   * of the register. The changes are not written back to the persistence, since they are already
+   * there. Departures that already hold the same values in the register, such as the register's
+   * own writes read back from the persistence, are left out, and if nothing is left, no new
+   * snapshot is published.
+   *
+   * <p>If the register wrote to the persistence after the write stamp was taken, the changes may
+   * be older than the register, so nothing is applied and the caller should read again.
+   *
+   * @param changedDepartures   departures that were added or changed, replacing any departure with
+   *                            the same train number.
+   * @param removedTrainNumbers the train numbers of departures that were removed.
+   * @param writeStamp          the write stamp taken before the persistence was read.
+   * @return false if the register wrote to the persistence since the write stamp was taken.
+   * @throws IOException if the register had to be loaded and the departures could not be read.
+   */
+  boolean applyExternalChanges(Collection<TrainDeparture> changedDepartures,
+      Collection<Integer> removedTrainNumbers, long writeStamp) throws IOException {
+    long stamp = lock.writeLock();
+    try {
+      if (this.writeStamp != writeStamp) {
+        return false;
+      }
+      loadDeparturesLocked();
+      DepartureBoardSnapshot before = snapshot.get();
+      List<Integer> removed = new ArrayList<>();
+      for (int trainNumber : removedTrainNumbers) {
+        if (table.contains(trainNumber)) {
+          removed.add(trainNumber);
+        }
+      }
+      List<TrainDeparture> changed = new ArrayList<>();
+      for (TrainDeparture departure : changedDepartures) {
+        if (!TrainDeparture.sameValues(before.get(departure.getTrainNumber()), departure)) {
+          changed.add(departure);
+        }
+      }
+      if (removed.isEmpty() && changed.isEmpty()) {
+        return true;
+      }
+
+      for (int trainNumber : removed) {
+        table.remove(trainNumber);
+      }
+      for (TrainDeparture departure : changed) {
+        table.put(departure);
+      }
+      publishAll();
+      announceChanges(before, changed, removed);
+      return true;
+    } finally {
+      unlockWrite(stamp);
+    }
   }
 
   // Methods used for testing
@@ -277,7 +783,7 @@ public class TrainDepartureRegister {
    */
 
   public int getNumberOfDepartures() throws IOException {
-    return persistence.readDepartures().size();
+    return getSnapshot().size();
   }
 
   /**
@@ -285,25 +791,272 @@ public class TrainDepartureRegister {
    */
 
   public void clearDepartures() throws IOException {
-    persistence.clearDepartures();
+    long stamp = lock.writeLock();
+    try {
+      persistence.clearDepartures();
+      table.clear();
+      loaded = true;
+      DepartureBoardSnapshot before = snapshot.get();
+      publishAll();
+      for (TrainDeparture departure : before.getDepartures()) {
+        queueEvent(DepartureEvent.Type.REMOVED, departure);
+      }
+    } finally {
+      unlockAfterPersisting(stamp);
+    }
   }
 
   // Helper methods
 
   /**
-   * The formatting of the header and separator of the string representations.
+   * Releases the write lock after a change was written to the persistence, and moves the write
+   * stamp on so that a read of the persistence that overlapped the change is not applied.
+   *
+   * @param stamp the stamp of the write lock.
+   */
+  private void unlockAfterPersisting(long stamp) {
+    writeStamp++;
+    unlockWrite(stamp);
+  }
+
+  /**
+   * Releases the write lock and then hands the queued events to the event bus.
    *
-   * @return the formatting of the string representation.
+   * @param stamp the stamp of the write lock.
    */
-  // Help from ChatGPT --
-  private String formatDepartures() {
-    String time = "\nTime: " + systemTime.toString() + "\n";
-    String header = String.format("%-4s | %-15s | %-18s | %-5s | %-5s%n",
-        "Nr", "Departure Time", "Destination", "Track", "Delay");
-    String separator = String.format("%-4s | %-15s | %-18s | %-5s | %-5s%n",
-        "----", "---------------", "------------------", "-----", "-----");
-    return time + header + separator;
+  private void unlockWrite(long stamp) {
+    lock.unlockWrite(stamp);
+    publishQueuedEvents();
+  }
+
+  /**
+   * Hands the queued events to the event bus, in the order they were queued. Only one thread
+   * publishes at a time. A thread that finds another one publishing leaves its events to it, so a
+   * listener that changes the register while it holds up the publisher doesn't wait for itself.
+   */
+  private void publishQueuedEvents() {
+    while (!pendingEvents.isEmpty() && publishing.tryLock()) {
+      try {
+        PendingEvent event = pendingEvents.poll();
+        while (event != null) {
+          events.publish(event.type, event.departure);
+          event = pendingEvents.poll();
+        }
+      } finally {
+        publishing.unlock();
+      }
+    }
   }
-  // --
 
+  /**
+   * Queues an event to be published once the write lock is released. The caller must hold the
+   * write lock, so the events are queued in the order of the changes.
+   *
+   * @param type      the kind of change.
+   * @param departure the read-only departure.
+   */
+  private void queueEvent(DepartureEvent.Type type, TrainDeparture departure) {
+    pendingEvents.add(new PendingEvent(type, departure));
+  }
+
+  /**
+   * Reads the departures from the persistence into memory the first time the register is used.
+   * Later calls do nothing, since every change after that is applied to memory as well.
+   *
+   * @throws IOException if the departures could not be read.
+   */
+  private void loadDepartures() throws IOException {
+    if (loaded) {
+      return;
+    }
+    long stamp = lock.writeLock();
+    try {
+      loadDeparturesLocked();
+    } finally {
+      unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Reads the departures from the persistence into memory if that hasn't been done yet. The
+   * caller must hold the write lock.
+   *
+   * @throws IOException if the departures could not be read.
+   */
+  private void loadDeparturesLocked() throws IOException {
+    if (!loaded) {
+      for (TrainDeparture departure : persistence.readDepartures()) {
+        table.put(departure);
+      }
+      loaded = true;
+      publishAll();
+    }
+  }
+
+  /**
+   * Checks that a new departure can be added. The caller must hold the write lock.
+   *
+   * @param trainNumber   the train number of the new departure.
+   * @param departureTime the departure time of the new departure.
+   * @throws IllegalArgumentException if the train number already exists in the register.
+   * @throws IllegalArgumentException if the departure time is before the current system time.
+   */
+  private void checkCanAdd(int trainNumber, LocalTime departureTime) {
+    if (table.contains(trainNumber)) {
+      throw new IllegalArgumentException("A train with number " + trainNumber + " already exists.");
+    }
+    if (departureTime.isBefore(systemTime)) {
+      throw new IllegalArgumentException(
+          "Cannot assign a train departure time before the current time.");
+    }
+  }
+
+  /**
+   * Adds to the delay of some departures that leave at or after a given second. Every new delay
+   * is checked before anything is written, then the changed departures are written as one batch,
+   * and one snapshot is published for all of them. The caller must hold the write lock.
+   *
+   * @param trainNumbers the train numbers of the departures to look at.
+   * @param fromSecond   the earliest departure time with delay to change, in seconds.
+   * @param minutes      the minutes to add to each delay.
+   * @return the number of departures that were changed.
+   * @throws IllegalArgumentException if a delay would become negative.
+   * @throws IOException              if the departures could not be written.
+   */
+  private int addDelay(int[] trainNumbers, long fromSecond, int minutes) throws IOException {
+    int count = 0;
+    for (int trainNumber : trainNumbers) {
+      if (table.getDepartureSecondWithDelay(trainNumber) >= fromSecond) {
+        if (table.getDelayMinutes(trainNumber) + minutes < 0) {
+          throw new IllegalArgumentException(
+              "The delay of train " + trainNumber + " cannot be negative.");
+        }
+        trainNumbers[count++] = trainNumber;
+      }
+    }
+    if (count == 0 || minutes == 0) {
+      return count;
+    }
+
+    List<TrainDeparture> updated = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      TrainDeparture departure = table.get(trainNumbers[i]);
+      departure.setDelayMinutes(departure.getDelayMinutes() + minutes);
+      updated.add(departure);
+    }
+    persistence.updateDepartures(updated);
+    for (TrainDeparture departure : updated) {
+      table.setDelayMinutes(departure.getTrainNumber(), departure.getDelayMinutes());
+    }
+    publishAll();
+    for (int i = 0; i < count; i++) {
+      announce(DepartureEvent.Type.DELAYED, trainNumbers[i]);
+    }
+    return count;
+  }
+
+  /**
+   * Publishes a new snapshot after the row of a departure was added, changed or removed in the
+   * table. The caller must hold the write lock.
+   *
+   * @param trainNumber the train number of the departure that changed.
+   */
+  private void publish(int trainNumber) {
+    snapshot.set(snapshot.get().withRow(++version, table.share(), trainNumber));
+  }
+
+  /**
+   * Publishes a new snapshot of every departure in the register, after a change to many
+   * departures at once. The snapshot shares the chunks of the table, so only the chunks that
+   * changed are new. The caller must hold the write lock.
+   */
+  private void publishAll() {
+    snapshot.set(DepartureBoardSnapshot.of(++version, systemTime, table.share()));
+  }
+
+  /**
+   * Queues a change to a departure for the event bus, with the departure as it is in the latest
+   * snapshot. The caller must hold the write lock.
+   *
+   * @param type        the kind of change.
+   * @param trainNumber the train number of the departure that changed.
+   */
+  private void announce(DepartureEvent.Type type, int trainNumber) {
+    queueEvent(type, snapshot.get().get(trainNumber));
+  }
+
+  /**
+   * Announces changes made outside the register, by comparing each departure with how it was
+   * before. A departure can be both given a track and delayed by the same change. The caller must
+   * hold the write lock.
+   *
+   * @param before              the snapshot from before the changes.
+   * @param changedDepartures   departures that were added or changed.
+   * @param removedTrainNumbers the train numbers of departures that were removed.
+   */
+  private void announceChanges(DepartureBoardSnapshot before,
+      Collection<TrainDeparture> changedDepartures, Collection<Integer> removedTrainNumbers) {
+    for (int trainNumber : removedTrainNumbers) {
+      TrainDeparture removed = before.get(trainNumber);
+      if (removed != null) {
+        queueEvent(DepartureEvent.Type.REMOVED, removed);
+      }
+    }
+    for (TrainDeparture departure : changedDepartures) {
+      int trainNumber = departure.getTrainNumber();
+      TrainDeparture old = before.get(trainNumber);
+      if (old == null) {
+        announce(DepartureEvent.Type.ADDED, trainNumber);
+        continue;
+      }
+      if (old.getTrack() != departure.getTrack()) {
+        announce(DepartureEvent.Type.TRACK_ASSIGNED, trainNumber);
+      }
+      if (old.getDepartureSecondWithDelay() != departure.getDepartureSecondWithDelay()) {
+        announce(DepartureEvent.Type.DELAYED, trainNumber);
+      }
+    }
+  }
+
+  /**
+   * Folds a destination into the key used by the destination index. The name is normalized to
+   * composed Unicode form and lower cased with the root locale, so that names such as "Tromsø"
+   * give the same key regardless of how they were typed or the default locale of the JVM.
+   *
+   * @param destination the destination to fold.
+   * @return the folded destination.
+   */
+  static String foldDestination(String destination) {
+    return Normalizer.normalize(destination.strip(), Normalizer.Form.NFC)
+        .toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * The header and separator of the string representations.
+   *
+   * @return a new builder holding the header.
+   */
+  private StringBuilder formatDepartures() {
+    return DepartureBoardRenderer.appendHeader(new StringBuilder(), getSystemTime());
+  }
+
+  /**
+   * An event that waits to be published.
+   */
+  private static final class PendingEvent {
+
+    private final DepartureEvent.Type type;
+    private final TrainDeparture departure;
+
+    /**
+     * Constructor for a PendingEvent.
+     *
+     * @param type      the kind of change.
+     * @param departure the read-only departure.
+     */
+    PendingEvent(DepartureEvent.Type type, TrainDeparture departure) {
+      this.type = type;
+      this.departure = departure;
+    }
+  }
 }
@@ -1,5 +1,10 @@
 package edu.ntnu.stud;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+
 /**
  * This is the main class for the train dispatch application.
  *
@@ -10,13 +15,27 @@ package edu.ntnu.stud;
 public class TrainDispatchApp {
 
   /**
-   * Runs the application.
+   * Runs the application. With the arguments {@code --http <port>}, the departures are served as
+   * JSON over HTTP instead of running the text user interface. The system time then starts at the
+   * time of day and follows the real time.
    *
    * @param args The command line arguments.
+   * @throws IOException if the HTTP server could not be started.
    */
-  public static void main(String[] args) {
-    UserInterface ui = new UserInterface(
-        new CsvTrainDeparturePersistence("src/main/resources/", "departures.csv"));
+  public static void main(String[] args) throws IOException {
+    CsvTrainDeparturePersistence persistence =
+        new CsvTrainDeparturePersistence("src/main/resources/", "departures.csv");
+    if (args.length == 2 && args[0].equals("--http")) {
+      TrainDepartureRegister register = new TrainDepartureRegister(persistence);
+      register.setSystemTime(LocalTime.now().truncatedTo(ChronoUnit.SECONDS));
+      new DepartureClock(register, 1, false).start();
+      DepartureHttpServer server = new DepartureHttpServer(register,
+          new InetSocketAddress(Integer.parseInt(args[1])));
+      server.start();
+      System.out.println("Serving departures on port " + server.getPort());
+      return;
+    }
+    UserInterface ui = new UserInterface(persistence);
     ui.init();
     ui.start();
   }
@@ -1,10 +1,12 @@
 package edu.ntnu.stud;
 
 import java.io.IOException;
+import java.io.PrintWriter;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.InputMismatchException;
+import java.util.List;
 import java.util.Scanner;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -21,6 +23,8 @@ public class UserInterface {
   private final TrainDepartureRegister register;
 
   private final Scanner input;
+  private final PrintWriter output;
+  private final DepartureBoardRenderer renderer;
   private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm");
 
   private static final String INVALID_TIME_FORMAT = "Invalid time format. Please try again.";
@@ -35,6 +39,8 @@ public class UserInterface {
   public UserInterface(TrainDeparturePersistence persistence) {
     this.register = new TrainDepartureRegister(persistence);
     this.input = new Scanner(System.in);
+    this.output = new PrintWriter(System.out);
+    this.renderer = new DepartureBoardRenderer();
   }
 
   // Methods for adding and removing train departures
@@ -58,6 +64,7 @@ public class UserInterface {
         register.addTrainDeparture(departureTime, line, trainNumber, destination, track, delay);
       }
       System.out.println("Train departure successfully added.");
+      warnAboutConflicts(trainNumber);
       displayDepartures();
     } catch (IllegalArgumentException | IOException e) {
       System.out.println(ERROR + e.getMessage());
@@ -97,6 +104,7 @@ public class UserInterface {
       } else {
         System.out.println("Track successfully set for train number " + trainNumber);
       }
+      warnAboutConflicts(trainNumber);
 
       displayDepartures();
     } catch (IllegalArgumentException | IOException e) {
@@ -122,6 +130,7 @@ public class UserInterface {
       } else {
         System.out.println("Delay successfully set for train " + trainNumber);
       }
+      warnAboutConflicts(trainNumber);
       displayDepartures();
     } catch (IllegalArgumentException | IOException e) {
       System.out.println(ERROR + e.getMessage());
@@ -173,12 +182,30 @@ public class UserInterface {
    */
   public void displayDepartures() {
     try {
-      System.out.println(register.toSortedTable(register.getSystemTime()));
+      register.writeSortedTable(register.getSystemTime(), renderer, output);
+      output.println();
+      output.flush();
     } catch (IOException e) {
       System.out.println(ERROR + e.getMessage());
     }
   }
 
+  /**
+   * Prints one warning if a departure uses its track at the same time as other departures. The
+   * change is kept, since the dispatcher may be about to move one of the trains.
+   *
+   * @param trainNumber the train number of the departure that was changed.
+   * @throws IOException if the departures could not be read.
+   */
+  private void warnAboutConflicts(int trainNumber) throws IOException {
+    List<Integer> conflicts = register.findTrackConflicts(trainNumber);
+    if (!conflicts.isEmpty()) {
+      System.out.println("Warning: train " + trainNumber + " uses track "
+          + register.searchByTrainNumber(trainNumber).getTrack()
+          + " at the same time as train(s) " + conflicts + ".");
+    }
+  }
+
   /**
    * Displays the menu of options that a user can choose from.
    */
@@ -0,0 +1,169 @@
+package edu.ntnu.stud;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvDepartureFileWatcherTest {
+
+  @TempDir
+  Path testDirectory;
+
+  private final String testFile = "departures.csv";
+  private Path testPath;
+  private TrainDepartureRegister register;
+  private CsvDepartureFileWatcher watcher;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    testPath = testDirectory.resolve(testFile);
+    Files.write(testPath, List.of(
+        "Departure time,Line,Train number,Destination,Track,Delay,",
+        "13:00,L1,1,spikkestad,4,00:00,",
+        "14:00,L2,2,lillestrøm,2,00:00,"), StandardCharsets.UTF_8);
+
+    register = new TrainDepartureRegister(
+        new CsvTrainDeparturePersistence(testDirectory + "/", testFile));
+    watcher = new CsvDepartureFileWatcher(testDirectory.toString(), testFile, register);
+    watcher.refresh();
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    watcher.close();
+  }
+
+  @Test
+  void unchangedFileIsNotReloaded() throws IOException {
+    assertFalse(watcher.refresh());
+    assertEquals(2, register.getNumberOfDepartures());
+  }
+
+  @Test
+  void appendedLinesAreApplied() throws IOException {
+    Files.write(testPath, List.of("15:00,FLY1,3,gardermoen,-1,00:00,"), StandardCharsets.UTF_8,
+        StandardOpenOption.APPEND);
+
+    assertTrue(watcher.refresh());
+    assertEquals(3, register.getNumberOfDepartures());
+    assertEquals("gardermoen", register.searchByTrainNumber(3).getDestination());
+  }
+
+  @Test
+  void incompleteAppendedLineWaitsForTheRest() throws IOException {
+    Files.writeString(testPath, "15:00,FLY1,3,garder", StandardCharsets.UTF_8,
+        StandardOpenOption.APPEND);
+    assertFalse(watcher.refresh());
+
+    Files.writeString(testPath, "moen,-1,00:00,\n", StandardCharsets.UTF_8,
+        StandardOpenOption.APPEND);
+    assertTrue(watcher.refresh());
+    assertEquals("gardermoen", register.searchByTrainNumber(3).getDestination());
+  }
+
+  @Test
+  void rewrittenFileIsDiffed() throws IOException {
+    Files.write(testPath, List.of(
+        "Departure time,Line,Train number,Destination,Track,Delay,",
+        "13:00,L1,1,spikkestad,4,00:20,"), StandardCharsets.UTF_8);
+
+    assertTrue(watcher.refresh());
+    assertEquals(1, register.getNumberOfDepartures());
+    assertNull(register.searchByTrainNumber(2));
+    assertEquals(LocalTime.of(0, 20), register.searchByTrainNumber(1).getDelay());
+  }
+
+  @Test
+  void ownWritesAreNotAppliedAgain() throws IOException {
+    register.setDelayMinutes(1, 5);
+    register.addTrainDeparture(LocalTime.of(15, 0), "FLY1", 3, "gardermoen", -1,
+        LocalTime.of(0, 0));
+    long version = register.getSnapshot().getVersion();
+
+    watcher.refresh();
+    assertEquals(version, register.getSnapshot().getVersion());
+    assertEquals(5, register.searchByTrainNumber(1).getDelayMinutes());
+  }
+
+  @Test
+  void readThatOverlapsAWriteIsNotApplied() throws IOException {
+    long writeStamp = register.getWriteStamp();
+    TrainDeparture old = register.searchByTrainNumber(1);
+    register.setDelayMinutes(1, 5);
+
+    assertFalse(register.applyExternalChanges(List.of(old), List.of(), writeStamp));
+    assertEquals(5, register.searchByTrainNumber(1).getDelayMinutes());
+  }
+
+  @Test
+  void appendsToALargeFileAreReadFromTheOldEndAndRewritesAreNoticed() throws IOException {
+    List<String> lines = new ArrayList<>(List.of(
+        "Departure time,Line,Train number,Destination,Track,Delay,"));
+    for (int trainNumber = 1; trainNumber <= 300; trainNumber++) {
+      lines.add("13:00,L1," + trainNumber + ",spikkestad,4,00:00,");
+    }
+    Files.write(testPath, lines, StandardCharsets.UTF_8);
+    assertTrue(watcher.refresh());
+    assertEquals(300, register.getNumberOfDepartures());
+
+    Files.write(testPath, List.of("15:00,FLY1,301,gardermoen,-1,00:00,"),
+        StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    assertTrue(watcher.refresh());
+    assertEquals("gardermoen", register.searchByTrainNumber(301).getDestination());
+
+    lines.set(300, "13:00,L1,300,spikkestad,4,00:30,");
+    Files.write(testPath, lines, StandardCharsets.UTF_8);
+    assertTrue(watcher.refresh());
+    assertEquals(30, register.searchByTrainNumber(300).getDelayMinutes());
+    assertNull(register.searchByTrainNumber(301));
+  }
+
+  @Test
+  void sameSizeRewriteWithSameModifiedTimeIsNoticed() throws IOException {
+    FileTime modified = Files.getLastModifiedTime(testPath);
+    Files.write(testPath, List.of(
+        "Departure time,Line,Train number,Destination,Track,Delay,",
+        "13:00,L1,1,spikkestad,4,00:20,",
+        "14:00,L2,2,lillestrøm,2,00:00,"), StandardCharsets.UTF_8);
+    Files.setLastModifiedTime(testPath, modified);
+
+    assertTrue(watcher.refresh());
+    assertEquals(20, register.searchByTrainNumber(1).getDelayMinutes());
+  }
+
+  @Test
+  void lastLineWithoutLineBreakIsAppliedOnceTheFileStopsChanging() throws IOException {
+    Files.writeString(testPath, "15:00,FLY1,3,gardermoen,-1,00:00,", StandardCharsets.UTF_8,
+        StandardOpenOption.APPEND);
+    assertFalse(watcher.refresh());
+
+    assertTrue(watcher.refresh());
+    assertEquals("gardermoen", register.searchByTrainNumber(3).getDestination());
+    assertFalse(watcher.refresh());
+  }
+
+  @Test
+  void watchesFileInBackground() throws Exception {
+    watcher.start();
+    Files.write(testPath, List.of("15:00,FLY1,3,gardermoen,-1,00:00,"), StandardCharsets.UTF_8,
+        StandardOpenOption.APPEND);
+
+    long deadline = System.currentTimeMillis() + 10_000;
+    while (register.searchByTrainNumber(3) == null && System.currentTimeMillis() < deadline) {
+      Thread.sleep(50);
+    }
+    assertNotNull(register.searchByTrainNumber(3));
+  }
+}
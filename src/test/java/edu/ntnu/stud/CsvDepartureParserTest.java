@@ -0,0 +1,79 @@
+package edu.ntnu.stud;
+
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvDepartureParserTest {
+
+  private static List<TrainDeparture> parse(String csv, boolean hasHeader) throws IOException {
+    CsvDepartureParser parser = new CsvDepartureParser(new StringReader(csv), hasHeader);
+    List<TrainDeparture> departures = new ArrayList<>();
+    TrainDeparture departure = parser.next();
+    while (departure != null) {
+      departures.add(departure);
+      departure = parser.next();
+    }
+    return departures;
+  }
+
+  @Test
+  void parsesAllFields() throws IOException {
+    List<TrainDeparture> departures = parse(
+        "Departure time,Line,Train number,Destination,Track,Delay,\n"
+            + "12:30,K9,2,tromsø,4,00:05\n", true);
+
+    assertEquals(1, departures.size());
+    TrainDeparture departure = departures.get(0);
+    assertEquals(LocalTime.of(12, 30), departure.getDepartureTime());
+    assertEquals("K9", departure.getLine());
+    assertEquals(2, departure.getTrainNumber());
+    assertEquals("tromsø", departure.getDestination());
+    assertEquals(4, departure.getTrack());
+    assertEquals(LocalTime.of(0, 5), departure.getDelay());
+  }
+
+  @Test
+  void acceptsTrailingCommaAndNegativeTrack() throws IOException {
+    List<TrainDeparture> departures = parse("14:00,FLY1,13,gardermoen,-1,00:10,\n", false);
+    assertEquals(-1, departures.get(0).getTrack());
+  }
+
+  @Test
+  void acceptsWindowsLineEndingsAndMissingFinalNewline() throws IOException {
+    List<TrainDeparture> departures = parse(
+        "header\r\n13:00,L1,4,spikkestad,1,00:00\r\n15:00,RE11,31,skien,-1,00:00", true);
+    assertEquals(2, departures.size());
+    assertEquals(31, departures.get(1).getTrainNumber());
+  }
+
+  @Test
+  void acceptsDelaysOfADayOrMore() throws IOException {
+    List<TrainDeparture> departures = parse("13:00,L1,4,spikkestad,1,25:30\n", false);
+    assertEquals(25 * 60 + 30, departures.get(0).getDelayMinutes());
+  }
+
+  @Test
+  void acceptsTimesWithSeconds() throws IOException {
+    List<TrainDeparture> departures = parse("13:00:30,L1,4,spikkestad,1,00:00\n", false);
+    assertEquals(LocalTime.of(13, 0, 30), departures.get(0).getDepartureTime());
+  }
+
+  @Test
+  void skipsBlankAndInvalidLines() throws IOException {
+    List<TrainDeparture> departures = parse("header\n\n"
+        + "13:00,L1,4,spikkestad,1\n"
+        + "25:00,L1,5,spikkestad,1,00:00\n"
+        + "13:00,L1,six,spikkestad,1,00:00\n"
+        + "13:00,L1,7,spikkestad,1,00:00,extra\n"
+        + "13:00,L1,8,spikkestad,1,00:00\n", true);
+
+    assertEquals(1, departures.size());
+    assertEquals(8, departures.get(0).getTrainNumber());
+  }
+}
@@ -39,6 +39,17 @@ class CsvTrainDeparturePersistenceTest {
     assertTrue(departures.isEmpty());
   }
 
+  @Test
+  void removeDepartureOnlyMatchesTheTrainNumber() throws IOException {
+    csvTrainDeparturePersistence.writeDeparture(new TrainDeparture(LocalTime.of(13, 0), "L1", 1,
+        "spikkestad", 4, LocalTime.of(0, 0)));
+    csvTrainDeparturePersistence.writeDeparture(new TrainDeparture(LocalTime.of(14, 0), "L2", 2,
+        "lillestrøm", 4, LocalTime.of(0, 0)));
+    csvTrainDeparturePersistence.removeDeparture(4);
+
+    assertEquals(2, csvTrainDeparturePersistence.readDepartures().size());
+  }
+
   @Test
   void testUpdateDeparture() throws IOException {
     TrainDeparture departure = new TrainDeparture(LocalTime.of(13, 0), "L1", 1, "spikkestad", 4, LocalTime.of(0, 0));
@@ -70,6 +81,25 @@ class CsvTrainDeparturePersistenceTest {
     assertTrue(departures.isEmpty());
   }
 
+  @Test
+  void testBatchOperations() throws IOException {
+    TrainDeparture first = new TrainDeparture(LocalTime.of(13, 0), "L1", 1, "spikkestad", 4, LocalTime.of(0, 0));
+    TrainDeparture second = new TrainDeparture(LocalTime.of(14, 0), "L2", 2, "lillestrøm", 1, LocalTime.of(0, 0));
+    TrainDeparture third = new TrainDeparture(LocalTime.of(15, 0), "L1", 3, "spikkestad", 2, LocalTime.of(0, 0));
+    csvTrainDeparturePersistence.writeDepartures(List.of(first, second, third));
+    assertEquals(3, csvTrainDeparturePersistence.readDepartures().size());
+
+    first.setDelay(LocalTime.of(0, 10));
+    third.setTrack(3);
+    csvTrainDeparturePersistence.updateDepartures(List.of(first, third));
+    csvTrainDeparturePersistence.removeDepartures(List.of(2));
+
+    List<TrainDeparture> departures = csvTrainDeparturePersistence.readDepartures();
+    assertEquals(2, departures.size());
+    assertEquals(LocalTime.of(0, 10), departures.get(0).getDelay());
+    assertEquals(3, departures.get(1).getTrack());
+  }
+
   @Test
   void testReadDeparturesWithInvalidFile() {
     CsvTrainDeparturePersistence invalidCsvTrainDeparturePersistence = new CsvTrainDeparturePersistence(testPath, "invalid.csv");
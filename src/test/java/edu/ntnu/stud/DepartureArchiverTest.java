@@ -0,0 +1,157 @@
+package edu.ntnu.stud;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DepartureArchiverTest {
+
+  @TempDir
+  Path testDirectory;
+
+  private CsvTrainDeparturePersistence persistence;
+  private TrainDepartureRegister register;
+  private Path archive;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    persistence = new CsvTrainDeparturePersistence(testDirectory + "/", "departures.csv");
+    persistence.writeDepartures(List.of());
+    register = new TrainDepartureRegister(persistence);
+    register.addTrainDeparture(LocalTime.of(10, 0), "L1", 1, "spikkestad", 4, LocalTime.of(0, 0));
+    register.addTrainDeparture(LocalTime.of(11, 0), "L2", 2, "lillestrøm", LocalTime.of(0, 45));
+    register.addTrainDeparture(LocalTime.of(13, 0), "R10", 3, "drammen", 1, LocalTime.of(0, 0));
+    archive = testDirectory.resolve("departures.archive");
+  }
+
+  private static List<Integer> trainNumbers(List<TrainDeparture> departures) {
+    return departures.stream().map(TrainDeparture::getTrainNumber).toList();
+  }
+
+  @Test
+  void horizonCannotBeNegative() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new DepartureArchiver(register, archive, Duration.ofMinutes(-1)));
+  }
+
+  @Test
+  void oldDeparturesAreMovedToTheArchive() throws IOException {
+    register.setSystemTime(LocalTime.of(13, 0));
+    DepartureArchiver archiver = new DepartureArchiver(register, archive, Duration.ofHours(1));
+
+    assertEquals(2, archiver.archive());
+    assertEquals(List.of(3), trainNumbers(register.getSnapshot().getDepartures()));
+    assertEquals(1, new TrainDepartureRegister(persistence).getNumberOfDepartures());
+
+    List<TrainDeparture> archived = DepartureArchiver.readArchive(archive);
+    assertEquals(List.of(1, 2), trainNumbers(archived));
+    assertEquals(45, archived.get(1).getDelayMinutes());
+    assertEquals(4, archived.get(0).getTrack());
+    assertEquals(0, archiver.archive());
+  }
+
+  @Test
+  void eachRunAppendsACompressedBlock() throws IOException {
+    DepartureArchiver archiver = new DepartureArchiver(register, archive, Duration.ZERO);
+    register.setSystemTime(LocalTime.of(10, 30));
+    assertEquals(1, archiver.archive());
+    long firstSize = Files.size(archive);
+
+    register.setSystemTime(LocalTime.of(13, 0));
+    assertEquals(2, archiver.archive());
+    assertTrue(Files.size(archive) > firstSize);
+    assertEquals(List.of(1, 2, 3), trainNumbers(DepartureArchiver.readArchive(archive)));
+    assertEquals(0, register.getNumberOfDepartures());
+  }
+
+  @Test
+  void nothingIsArchivedWithinTheHorizon() throws IOException {
+    register.setSystemTime(LocalTime.of(10, 30));
+    DepartureArchiver archiver = new DepartureArchiver(register, archive, Duration.ofHours(1));
+    assertEquals(0, archiver.archive());
+    assertFalse(Files.exists(archive));
+    assertEquals(List.of(), DepartureArchiver.readArchive(archive));
+  }
+
+  @Test
+  void changedDeparturesStayInTheRegister() throws IOException {
+    register.setSystemTime(LocalTime.of(13, 0));
+    List<TrainDeparture> old = register.getSnapshot().getDeparturesBetween(0, 11 * 3600);
+    register.setTrack(1, 7);
+
+    assertEquals(List.of(), register.removeUnchanged(old, departures -> { }));
+    assertEquals(7, register.searchByTrainNumber(1).getTrack());
+  }
+
+  @Test
+  void onlyRemovedDeparturesAreArchived() throws IOException {
+    register.setSystemTime(LocalTime.of(13, 0));
+    DepartureArchiver archiver = new DepartureArchiver(register, archive, Duration.ofHours(1));
+    List<TrainDeparture> old = register.getSnapshot().getDeparturesBetween(0, 12 * 3600);
+    register.setTrack(1, 7);
+
+    assertEquals(List.of(2), trainNumbers(register.removeUnchanged(old, archiver::archiveRemoved)));
+    assertEquals(List.of(2), trainNumbers(DepartureArchiver.readArchive(archive)));
+  }
+
+  @Test
+  void nothingIsRemovedWhenTheArchiveFails() throws IOException {
+    register.setSystemTime(LocalTime.of(13, 0));
+    assertThrows(IOException.class, () -> register.removeDeparted(departures -> {
+      throw new IOException("disk full");
+    }));
+    assertEquals(3, register.getSnapshot().size());
+  }
+
+  @Test
+  void damagedArchiveIsReported() throws IOException {
+    Files.write(archive, new byte[] {0, 0, 0, 10, 0, 0, 0, 20, 1, 2});
+    assertThrows(IOException.class, () -> DepartureArchiver.readArchive(archive));
+  }
+
+  @Test
+  void backgroundArchivingRuns() throws Exception {
+    register.setSystemTime(LocalTime.of(13, 0));
+    try (DepartureArchiver archiver = new DepartureArchiver(register, archive,
+        Duration.ofHours(1))) {
+      archiver.start(Duration.ofMillis(10));
+      long deadline = System.nanoTime() + 5_000_000_000L;
+      while (register.getNumberOfDepartures() > 1 && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+    }
+    assertEquals(1, register.getNumberOfDepartures());
+    assertEquals(List.of(1, 2), trainNumbers(DepartureArchiver.readArchive(archive)));
+  }
+
+  @Test
+  void departuresArchivedAgainAreReadFromTheirLastCopy() throws IOException {
+    register.setSystemTime(LocalTime.of(13, 0));
+    DepartureArchiver archiver = new DepartureArchiver(register, archive, Duration.ofHours(1));
+    archiver.archiveRemoved(register.getSnapshot().getDeparturesBetween(0, 11 * 3600));
+    register.setTrack(1, 7);
+
+    assertEquals(2, archiver.archive());
+    List<TrainDeparture> archived = DepartureArchiver.readArchive(archive);
+    assertEquals(List.of(1, 2), trainNumbers(archived));
+    assertEquals(7, archived.get(0).getTrack());
+  }
+
+  @Test
+  void closedArchiverDoesNotArchive() throws IOException {
+    register.setSystemTime(LocalTime.of(13, 0));
+    DepartureArchiver archiver = new DepartureArchiver(register, archive, Duration.ofHours(1));
+    archiver.close();
+
+    assertThrows(IOException.class, archiver::archive);
+    assertEquals(3, register.getNumberOfDepartures());
+  }
+}
@@ -0,0 +1,76 @@
+package edu.ntnu.stud;
+
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DepartureBoardRendererTest {
+
+  private static final String ROW_FORMAT = "%-4d | %-15s | %-18s | %-5s | %-5s%n";
+
+  private static String formattedRow(TrainDeparture departure) {
+    String track = departure.getTrack() == -1 ? "" : String.valueOf(departure.getTrack());
+    String delay = departure.getDelayMinutes() == 0 ? ""
+        : TrainDeparture.formatMinutes(departure.getDelayMinutes());
+    String destination = departure.getDestination();
+    return String.format(ROW_FORMAT, departure.getTrainNumber(), departure.getDepartureTime(),
+        departure.getLine() + " " + destination.substring(0, 1).toUpperCase()
+            + destination.substring(1), track, delay);
+  }
+
+  @Test
+  void rowsMatchTheFormattedLayout() {
+    List<TrainDeparture> departures = List.of(
+        new TrainDeparture(LocalTime.of(13, 0), "L1", 1, "spikkestad", 4, LocalTime.of(0, 0)),
+        new TrainDeparture(LocalTime.of(9, 5, 30), "FLY1", 42, "gardermoen", LocalTime.of(1, 5)),
+        new TrainDeparture(LocalTime.of(23, 59), "RE11", 999, "a very long destination", 12,
+            LocalTime.of(0, 0)));
+
+    for (TrainDeparture departure : departures) {
+      assertEquals(formattedRow(departure), departure.toUiString());
+    }
+  }
+
+  @Test
+  void longDelaysAreShownInHours() {
+    TrainDeparture departure = new TrainDeparture(LocalTime.of(13, 0), "L1", 1, "spikkestad",
+        LocalTime.of(0, 0));
+    departure.setDelayMinutes(25 * 60 + 30);
+    assertTrue(departure.toUiString().endsWith("| 25:30" + System.lineSeparator()));
+  }
+
+  @Test
+  void boardIsStreamedInChunks() throws IOException {
+    List<TrainDeparture> departures = new ArrayList<>();
+    StringBuilder expected = DepartureBoardRenderer.appendHeader(new StringBuilder(),
+        LocalTime.of(8, 0));
+    for (int trainNumber = 1; trainNumber <= 500; trainNumber++) {
+      TrainDeparture departure = new TrainDeparture(LocalTime.of(trainNumber % 24, 0), "L1",
+          trainNumber, "spikkestad", LocalTime.of(0, 0));
+      departures.add(departure);
+      expected.append(formattedRow(departure));
+    }
+
+    DepartureBoardRenderer renderer = new DepartureBoardRenderer();
+    StringWriter writer = new StringWriter();
+    renderer.writeBoard(LocalTime.of(8, 0), departures, writer);
+    assertEquals(expected.toString(), writer.toString());
+
+    StringBuilder builder = new StringBuilder();
+    renderer.writeBoard(LocalTime.of(8, 0), departures, builder);
+    assertEquals(expected.toString(), builder.toString());
+  }
+
+  @Test
+  void headerShowsSystemTime() {
+    String header = DepartureBoardRenderer.appendHeader(new StringBuilder(), LocalTime.of(8, 0))
+        .toString();
+    assertTrue(header.startsWith("\nTime: 08:00\n"));
+    assertTrue(header.contains("Nr   | Departure Time"));
+  }
+}
@@ -0,0 +1,153 @@
+package edu.ntnu.stud;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DepartureBoardTrackerTest {
+
+  @TempDir
+  Path testDirectory;
+
+  private TrainDepartureRegister register;
+  private DepartureBoardTracker tracker;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    register = new TrainDepartureRegister(
+        new MappedTrainDeparturePersistence(testDirectory + "/", "departures.bin"));
+    register.addTrainDeparture(LocalTime.of(13, 0), "L1", 1, "spikkestad", 4, LocalTime.of(0, 0));
+    register.addTrainDeparture(LocalTime.of(14, 0), "L2", 2, "lillestrøm", 2, LocalTime.of(0, 0));
+    register.addTrainDeparture(LocalTime.of(15, 0), "R10", 3, "drammen", 1, LocalTime.of(0, 0));
+    tracker = new DepartureBoardTracker(register);
+  }
+
+  private static List<TrainDeparture> apply(List<TrainDeparture> board,
+      List<BoardRowChange> changes) {
+    List<TrainDeparture> rows = new ArrayList<>(board);
+    for (BoardRowChange change : changes) {
+      switch (change.getKind()) {
+        case DROPPED -> assertSame(change.getDeparture(), rows.remove(change.getPosition()));
+        case INSERTED -> rows.add(change.getPosition(), change.getDeparture());
+        case CHANGED -> rows.set(change.getPosition(), change.getDeparture());
+        default -> fail();
+      }
+    }
+    return rows;
+  }
+
+  @Test
+  void firstRefreshInsertsEveryRow() throws IOException {
+    List<BoardRowChange> changes = tracker.refresh();
+    assertEquals(3, changes.size());
+    assertTrue(changes.stream().allMatch(c -> c.getKind() == BoardRowChange.Kind.INSERTED));
+    assertEquals(List.of(), tracker.refresh());
+  }
+
+  @Test
+  void trackChangeIsAChangeInPlace() throws IOException {
+    tracker.refresh();
+    register.setTrack(2, 7);
+
+    List<BoardRowChange> changes = tracker.refresh();
+    assertEquals(1, changes.size());
+    assertEquals(BoardRowChange.Kind.CHANGED, changes.get(0).getKind());
+    assertEquals(1, changes.get(0).getPosition());
+    assertEquals(7, changes.get(0).getDeparture().getTrack());
+  }
+
+  @Test
+  void delayedTrainMoves() throws IOException {
+    tracker.refresh();
+    List<TrainDeparture> before = tracker.getShownBoard();
+    register.setDelay(1, LocalTime.of(1, 30));
+
+    List<BoardRowChange> changes = tracker.refresh();
+    assertEquals(BoardRowChange.Kind.DROPPED, changes.get(0).getKind());
+    assertEquals(0, changes.get(0).getPosition());
+    assertEquals(BoardRowChange.Kind.INSERTED, changes.get(1).getKind());
+    assertEquals(1, changes.get(1).getPosition());
+    assertEquals(tracker.getShownBoard(), apply(before, changes));
+  }
+
+  @Test
+  void departedTrainsAreDropped() throws IOException {
+    tracker.refresh();
+    register.setSystemTime(LocalTime.of(14, 30));
+
+    List<BoardRowChange> changes = tracker.refresh();
+    assertEquals(2, changes.size());
+    assertEquals(BoardRowChange.Kind.DROPPED, changes.get(0).getKind());
+    assertEquals(1, changes.get(0).getPosition());
+    assertEquals(0, changes.get(1).getPosition());
+  }
+
+  @Test
+  void changesTurnTheOldBoardIntoTheNewOne() throws IOException {
+    Random random = new Random(17);
+    tracker.refresh();
+    for (int round = 0; round < 200; round++) {
+      int trainNumber = 1 + random.nextInt(20);
+      switch (random.nextInt(4)) {
+        case 0 -> {
+          if (register.searchByTrainNumber(trainNumber) == null) {
+            register.addTrainDeparture(LocalTime.of(12 + random.nextInt(10), random.nextInt(60)),
+                "L1", trainNumber, "spikkestad", LocalTime.of(0, 0));
+          }
+        }
+        case 1 -> register.removeDeparture(trainNumber);
+        case 2 -> register.setDelay(trainNumber, LocalTime.of(0, random.nextInt(90) % 60));
+        default -> register.setTrack(trainNumber, 1 + random.nextInt(9));
+      }
+      List<TrainDeparture> before = tracker.getShownBoard();
+      List<BoardRowChange> changes = tracker.refresh();
+      assertEquals(tracker.getShownBoard(), apply(before, changes));
+    }
+  }
+
+  @Test
+  void bulkDelayOnlyMovesTheDelayedTrain() throws IOException {
+    register.addTrainDeparture(LocalTime.of(16, 0), "L2", 4, "asker", 3, LocalTime.of(0, 0));
+    tracker.refresh();
+    List<TrainDeparture> before = tracker.getShownBoard();
+    register.delayLine("L1", LocalTime.of(0, 0), 90);
+
+    List<BoardRowChange> changes = tracker.refresh();
+    assertEquals(2, changes.size());
+    assertTrue(changes.stream().allMatch(c -> c.getDeparture().getTrainNumber() == 1));
+    assertEquals(tracker.getShownBoard(), apply(before, changes));
+  }
+
+  @Test
+  void batchAddOnlyInsertsTheNewTrains() throws IOException {
+    tracker.refresh();
+    register.addTrainDepartures(List.of(
+        new TrainDeparture(LocalTime.of(16, 0), "L2", 4, "asker", 3, LocalTime.of(0, 0))));
+
+    List<BoardRowChange> changes = tracker.refresh();
+    assertEquals(1, changes.size());
+    assertEquals(BoardRowChange.Kind.INSERTED, changes.get(0).getKind());
+    assertEquals(4, changes.get(0).getDeparture().getTrainNumber());
+  }
+
+  @Test
+  void changesCanBeWritten() throws IOException {
+    tracker.refresh();
+    register.setTrack(2, 7);
+    register.removeDeparture(3);
+
+    StringBuilder out = new StringBuilder();
+    new DepartureBoardRenderer().writeChanges(tracker.refresh(), out);
+    String[] lines = out.toString().split(System.lineSeparator());
+    assertEquals("-2", lines[0]);
+    assertTrue(lines[1].startsWith("~1 2    | 14:00"));
+  }
+}
@@ -0,0 +1,151 @@
+package edu.ntnu.stud;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DepartureClockTest {
+
+  private static final long SECOND = 1_000_000_000L;
+
+  @TempDir
+  Path testDirectory;
+
+  private TrainDepartureRegister register;
+  private final AtomicLong nanos = new AtomicLong();
+  private DepartureClock clock;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    register = new TrainDepartureRegister(
+        new MappedTrainDeparturePersistence(testDirectory + "/", "departures.bin"));
+    register.addTrainDeparture(LocalTime.of(13, 0), "L1", 1, "spikkestad", 4, LocalTime.of(0, 0));
+    register.addTrainDeparture(LocalTime.of(13, 30), "L2", 2, "lillestrøm", LocalTime.of(0, 0));
+    register.addTrainDeparture(LocalTime.of(13, 10), "R10", 3, "drammen", LocalTime.of(0, 30));
+    register.setSystemTime(LocalTime.of(12, 50));
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (clock != null) {
+      clock.close();
+    }
+  }
+
+  @Test
+  void speedMustBePositive() {
+    assertThrows(IllegalArgumentException.class, () -> new DepartureClock(register, 0, false));
+    assertThrows(IllegalArgumentException.class,
+        () -> new DepartureClock(register, Double.NaN, false));
+  }
+
+  @Test
+  void acceleratedClockMovesTheSystemTime() {
+    clock = new DepartureClock(register, 60, false, null, nanos::get);
+    clock.start();
+    nanos.set(10 * SECOND);
+    clock.tick();
+    assertEquals(LocalTime.of(13, 0), register.getSystemTime());
+
+    nanos.set(10 * SECOND + SECOND / 2);
+    clock.tick();
+    assertEquals(LocalTime.of(13, 0, 30), register.getSystemTime());
+  }
+
+  @Test
+  void departedTrainsAreRemoved() throws IOException {
+    clock = new DepartureClock(register, 60, true, null, nanos::get);
+    clock.start();
+    nanos.set(25 * SECOND);
+    clock.tick();
+
+    assertEquals(LocalTime.of(13, 15), register.getSystemTime());
+    assertNull(register.searchByTrainNumber(1));
+    assertEquals(2, register.getNumberOfDepartures());
+    assertEquals(List.of(2, 3), register.getSnapshot().getDepartures().stream()
+        .map(TrainDeparture::getTrainNumber).toList());
+    assertEquals(2, new TrainDepartureRegister(new MappedTrainDeparturePersistence(
+        testDirectory + "/", "departures.bin")).getNumberOfDepartures());
+
+    nanos.set(55 * SECOND);
+    clock.tick();
+    assertEquals(0, register.getNumberOfDepartures());
+  }
+
+  @Test
+  void departedTrainsAreHandedToTheArchiver() throws IOException {
+    Path archive = testDirectory.resolve("departures.archive");
+    DepartureArchiver archiver = new DepartureArchiver(register, archive, Duration.ofHours(1));
+    clock = new DepartureClock(register, 60, true, archiver, nanos::get);
+    clock.start();
+    nanos.set(25 * SECOND);
+    clock.tick();
+
+    assertNull(register.searchByTrainNumber(1));
+    assertEquals(List.of(1), DepartureArchiver.readArchive(archive).stream()
+        .map(TrainDeparture::getTrainNumber).toList());
+  }
+
+  @Test
+  void departedEventsComeBeforeRemovals() throws Exception {
+    BlockingQueue<String> received = new LinkedBlockingQueue<>();
+    DepartureEventSubscription subscription = register.getEventBus().subscribe(
+        (event, endOfBatch) -> received.add(
+            event.getType() + " " + event.getDeparture().getTrainNumber()),
+        DepartureEventBus.OverflowPolicy.BLOCK);
+    try {
+      clock = new DepartureClock(register, 60, true, null, nanos::get);
+      clock.start();
+      nanos.set(25 * SECOND);
+      clock.tick();
+
+      assertEquals("DEPARTED 1", received.poll(5, TimeUnit.SECONDS));
+      assertEquals("REMOVED 1", received.poll(5, TimeUnit.SECONDS));
+      assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+    } finally {
+      subscription.close();
+    }
+  }
+
+  @Test
+  void clockStopsAtTheEndOfTheDay() {
+    clock = new DepartureClock(register, 3600, false, null, nanos::get);
+    clock.start();
+    nanos.set(20 * SECOND);
+    clock.tick();
+    assertEquals(LocalTime.of(23, 59, 59), register.getSystemTime());
+  }
+
+  @Test
+  void removeDepartedKeepsTrainsStillToLeave() throws IOException {
+    register.setSystemTime(LocalTime.of(13, 30));
+    List<TrainDeparture> departed = register.removeDeparted();
+    assertEquals(List.of(1, 2), departed.stream().map(TrainDeparture::getTrainNumber).toList());
+    assertEquals(3, register.getSnapshot().get(3).getTrainNumber());
+    assertEquals(List.of(), register.removeDeparted());
+  }
+
+  @Test
+  void realTimeClockTicksByItself() throws Exception {
+    clock = new DepartureClock(register, 600, false);
+    clock.start();
+    long deadline = System.nanoTime() + 5 * SECOND;
+    while (!register.getSystemTime().isAfter(LocalTime.of(12, 50))
+        && System.nanoTime() < deadline) {
+      Thread.sleep(20);
+    }
+    assertTrue(register.getSystemTime().isAfter(LocalTime.of(12, 50)));
+  }
+}
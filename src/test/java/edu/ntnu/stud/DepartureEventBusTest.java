@@ -0,0 +1,199 @@
+package edu.ntnu.stud;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DepartureEventBusTest {
+
+  @TempDir
+  Path testDirectory;
+
+  private final List<DepartureEventSubscription> subscriptions = new ArrayList<>();
+
+  private static TrainDeparture departure(int trainNumber) {
+    return new TrainDeparture(LocalTime.of(12, 0), "L1", trainNumber, "oslo", 1,
+        LocalTime.of(0, 0)).readOnlyCopy();
+  }
+
+  private BlockingQueue<String> collect(DepartureEventBus bus,
+      DepartureEventBus.OverflowPolicy policy) {
+    BlockingQueue<String> received = new LinkedBlockingQueue<>();
+    subscriptions.add(bus.subscribe((event, endOfBatch) -> received.add(
+        event.getType() + " " + event.getDeparture().getTrainNumber()), policy));
+    return received;
+  }
+
+  private static List<String> take(BlockingQueue<String> received, int count)
+      throws InterruptedException {
+    List<String> events = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      String event = received.poll(5, TimeUnit.SECONDS);
+      assertNotNull(event, "timed out after " + events);
+      events.add(event);
+    }
+    return events;
+  }
+
+  @BeforeEach
+  void setUp() {
+    subscriptions.clear();
+  }
+
+  @AfterEach
+  void tearDown() {
+    subscriptions.forEach(DepartureEventSubscription::close);
+  }
+
+  @Test
+  void capacityMustBeAPowerOfTwo() {
+    assertThrows(IllegalArgumentException.class, () -> new DepartureEventBus(3));
+    assertThrows(IllegalArgumentException.class, () -> new DepartureEventBus(0));
+    assertEquals(8, new DepartureEventBus(8).getCapacity());
+  }
+
+  @Test
+  void registerAnnouncesEveryChange() throws Exception {
+    TrainDepartureRegister register = new TrainDepartureRegister(
+        new MappedTrainDeparturePersistence(testDirectory + "/", "departures.bin"));
+    register.clearDepartures();
+    BlockingQueue<String> received =
+        collect(register.getEventBus(), DepartureEventBus.OverflowPolicy.BLOCK);
+
+    register.addTrainDeparture(LocalTime.of(13, 0), "L1", 1, "spikkestad", 4, LocalTime.of(0, 0));
+    register.addTrainDeparture(LocalTime.of(14, 0), "L2", 2, "lillestrøm", LocalTime.of(0, 0));
+    register.setDelay(1, LocalTime.of(0, 5));
+    register.setTrack(2, 3);
+    register.removeDeparture(2);
+    register.setSystemTime(LocalTime.of(13, 5));
+
+    assertEquals(List.of("ADDED 1", "ADDED 2", "DELAYED 1", "TRACK_ASSIGNED 2", "REMOVED 2",
+        "DEPARTED 1"), take(received, 6));
+  }
+
+  @Test
+  void eventsCarryTheChangedDeparture() throws Exception {
+    TrainDepartureRegister register = new TrainDepartureRegister(
+        new MappedTrainDeparturePersistence(testDirectory + "/", "departures.bin"));
+    register.clearDepartures();
+    BlockingQueue<TrainDeparture> received = new LinkedBlockingQueue<>();
+    subscriptions.add(register.getEventBus().subscribe(
+        (event, endOfBatch) -> received.add(event.getDeparture()),
+        DepartureEventBus.OverflowPolicy.BLOCK));
+
+    register.addTrainDeparture(LocalTime.of(13, 0), "L1", 1, "spikkestad", 4, LocalTime.of(0, 0));
+    register.setDelayMinutes(1, 20);
+
+    assertEquals(0, received.poll(5, TimeUnit.SECONDS).getDelayMinutes());
+    TrainDeparture delayed = received.poll(5, TimeUnit.SECONDS);
+    assertEquals(20, delayed.getDelayMinutes());
+    assertTrue(delayed.isReadOnly());
+  }
+
+  @Test
+  void blockingListenerGetsEveryEventInOrder() throws Exception {
+    DepartureEventBus bus = new DepartureEventBus(4);
+    BlockingQueue<String> received = new LinkedBlockingQueue<>();
+    subscriptions.add(bus.subscribe((event, endOfBatch) -> {
+      LockSupport.parkNanos(100_000);
+      received.add(event.getType() + " " + event.getDeparture().getTrainNumber());
+    }, DepartureEventBus.OverflowPolicy.BLOCK));
+
+    List<String> expected = new ArrayList<>();
+    for (int i = 1; i <= 50; i++) {
+      bus.publish(DepartureEvent.Type.ADDED, departure(i));
+      expected.add("ADDED " + i);
+    }
+
+    assertEquals(expected, take(received, 50));
+    assertEquals(0, subscriptions.get(0).getMissed());
+  }
+
+  @Test
+  void droppingListenerSkipsOverwrittenEvents() throws Exception {
+    DepartureEventBus bus = new DepartureEventBus(4);
+    CountDownLatch entered = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    BlockingQueue<Integer> received = new LinkedBlockingQueue<>();
+    subscriptions.add(bus.subscribe((event, endOfBatch) -> {
+      entered.countDown();
+      awaitQuietly(release);
+      received.add(event.getDeparture().getTrainNumber());
+    }, DepartureEventBus.OverflowPolicy.DROP));
+
+    bus.publish(DepartureEvent.Type.ADDED, departure(1));
+    assertTrue(entered.await(5, TimeUnit.SECONDS));
+    for (int i = 2; i <= 20; i++) {
+      bus.publish(DepartureEvent.Type.ADDED, departure(i));
+    }
+    release.countDown();
+
+    assertEquals(1, received.poll(5, TimeUnit.SECONDS));
+    List<Integer> rest = new ArrayList<>();
+    Integer next;
+    while ((next = received.poll(1, TimeUnit.SECONDS)) != null) {
+      rest.add(next);
+    }
+    assertEquals(List.of(17, 18, 19, 20), rest);
+    assertEquals(15, subscriptions.get(0).getMissed());
+  }
+
+  @Test
+  void coalescingListenerGetsTheLastEventOfEachTrain() throws Exception {
+    DepartureEventBus bus = new DepartureEventBus(8);
+    CountDownLatch entered = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    BlockingQueue<String> received = new LinkedBlockingQueue<>();
+    subscriptions.add(bus.subscribe((event, endOfBatch) -> {
+      entered.countDown();
+      awaitQuietly(release);
+      received.add(event.getType() + " " + event.getDeparture().getTrainNumber());
+    }, DepartureEventBus.OverflowPolicy.COALESCE));
+
+    bus.publish(DepartureEvent.Type.ADDED, departure(9));
+    assertTrue(entered.await(5, TimeUnit.SECONDS));
+    bus.publish(DepartureEvent.Type.ADDED, departure(1));
+    bus.publish(DepartureEvent.Type.DELAYED, departure(1));
+    bus.publish(DepartureEvent.Type.ADDED, departure(2));
+    bus.publish(DepartureEvent.Type.TRACK_ASSIGNED, departure(1));
+    release.countDown();
+
+    assertEquals(List.of("ADDED 9", "ADDED 2", "TRACK_ASSIGNED 1"), take(received, 3));
+    assertNull(received.poll(200, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  void closedSubscriptionGetsNoMoreEvents() throws Exception {
+    DepartureEventBus bus = new DepartureEventBus(4);
+    BlockingQueue<String> received = collect(bus, DepartureEventBus.OverflowPolicy.BLOCK);
+    bus.publish(DepartureEvent.Type.ADDED, departure(1));
+    assertEquals(List.of("ADDED 1"), take(received, 1));
+
+    subscriptions.get(0).close();
+    for (int i = 2; i <= 10; i++) {
+      bus.publish(DepartureEvent.Type.ADDED, departure(i));
+    }
+    assertNull(received.poll(200, TimeUnit.MILLISECONDS));
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
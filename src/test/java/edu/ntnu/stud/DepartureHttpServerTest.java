@@ -0,0 +1,171 @@
+package edu.ntnu.stud;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DepartureHttpServerTest {
+
+  @TempDir
+  Path testDirectory;
+
+  private TrainDepartureRegister register;
+  private DepartureHttpServer server;
+  private HttpClient client;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    register = new TrainDepartureRegister(
+        new MappedTrainDeparturePersistence(testDirectory + "/", "departures.bin"));
+    register.addTrainDeparture(LocalTime.of(13, 0), "L1", 1, "spikkestad", 4, LocalTime.of(0, 0));
+    register.addTrainDeparture(LocalTime.of(14, 0), "L2", 2, "Lillestrøm", LocalTime.of(0, 5));
+    register.addTrainDeparture(LocalTime.of(15, 0), "R10", 3, "drammen", 1, LocalTime.of(0, 0));
+    server = new DepartureHttpServer(register,
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    server.start();
+    client = HttpClient.newHttpClient();
+  }
+
+  @AfterEach
+  void tearDown() {
+    server.close();
+  }
+
+  private HttpResponse<String> get(String path, String ifNoneMatch) throws Exception {
+    HttpRequest.Builder request = HttpRequest.newBuilder(
+        URI.create("http://localhost:" + server.getPort() + path));
+    if (ifNoneMatch != null) {
+      request.header("If-None-Match", ifNoneMatch);
+    }
+    return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+  }
+
+  @Test
+  void departureByTrainNumber() throws Exception {
+    HttpResponse<String> response = get("/departures/2", null);
+    assertEquals(200, response.statusCode());
+    assertEquals("{\"trainNumber\":2,\"line\":\"L2\",\"destination\":\"Lillestrøm\","
+        + "\"departureTime\":\"14:00\",\"delay\":\"00:05\",\"delayMinutes\":5,"
+        + "\"departureTimeWithDelay\":\"14:05\",\"track\":null}", response.body());
+    assertTrue(response.headers().firstValue("Content-Type").orElseThrow()
+        .startsWith("application/json"));
+  }
+
+  @Test
+  void unknownOrInvalidTrainNumber() throws Exception {
+    assertEquals(404, get("/departures/42", null).statusCode());
+    assertEquals(400, get("/departures/abc", null).statusCode());
+  }
+
+  @Test
+  void departuresByDestination() throws Exception {
+    HttpResponse<String> response = get("/departures?destination=lillestr%C3%B8m", null);
+    assertEquals(200, response.statusCode());
+    assertTrue(response.body().startsWith("[{\"trainNumber\":2,"));
+    assertEquals("[]", get("/departures?destination=bergen", null).body());
+    assertEquals(400, get("/departures", null).statusCode());
+  }
+
+  @Test
+  void boardIsPagedWithCursors() throws Exception {
+    register.setSystemTime(LocalTime.of(13, 30));
+    String first = get("/board?limit=1", null).body();
+    assertTrue(first.contains("\"systemTime\":\"13:30\""));
+    assertTrue(first.contains("\"departures\":[{\"trainNumber\":2,"));
+    String token = first.substring(first.indexOf("\"next\":\"") + 8, first.lastIndexOf('"'));
+
+    String second = get("/board?limit=5&cursor=" + token, null).body();
+    assertTrue(second.contains("\"departures\":[{\"trainNumber\":3,"));
+    assertTrue(second.endsWith("\"next\":null}"));
+
+    assertEquals(400, get("/board?limit=-1", null).statusCode());
+    assertEquals(400, get("/board?cursor=!", null).statusCode());
+  }
+
+  @Test
+  void unchangedBoardGivesNotModified() throws Exception {
+    HttpResponse<String> response = get("/board", null);
+    String etag = response.headers().firstValue("ETag").orElseThrow();
+    assertTrue(etag.endsWith("-" + register.getSnapshot().getVersion() + "\""));
+    assertEquals(String.valueOf(register.getSnapshot().getVersion()),
+        response.headers().firstValue("X-Board-Version").orElseThrow());
+
+    HttpResponse<String> unchanged = get("/board", etag);
+    assertEquals(304, unchanged.statusCode());
+    assertEquals("", unchanged.body());
+
+    register.setDelay(1, LocalTime.of(0, 10));
+    HttpResponse<String> changed = get("/board", etag);
+    assertEquals(200, changed.statusCode());
+    assertNotEquals(etag, changed.headers().firstValue("ETag").orElseThrow());
+  }
+
+  @Test
+  void restartedServerDoesNotMatchOldETags() throws Exception {
+    String etag = get("/board", null).headers().firstValue("ETag").orElseThrow();
+    server.close();
+    server = new DepartureHttpServer(register,
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    server.start();
+
+    HttpResponse<String> response = get("/board", etag);
+    assertEquals(200, response.statusCode());
+    assertNotEquals(etag, response.headers().firstValue("ETag").orElseThrow());
+  }
+
+  @Test
+  void ifNoneMatchAcceptsListsAndWeakETags() throws Exception {
+    String etag = get("/board", null).headers().firstValue("ETag").orElseThrow();
+    assertEquals(304, get("/board", "\"other\", W/" + etag).statusCode());
+    assertEquals(304, get("/board", "*").statusCode());
+    assertEquals(200, get("/board", "\"other\"").statusCode());
+    assertFalse(DepartureHttpServer.matches(null, etag));
+    assertTrue(DepartureHttpServer.matches(List.of("\"a\"", " " + etag + " ,\"b\""), etag));
+  }
+
+  @Test
+  void badRequestsAreNotAnsweredWithNotModified() throws Exception {
+    assertEquals(404, get("/departures/42", "*").statusCode());
+    assertEquals(400, get("/departures/abc", "*").statusCode());
+    assertEquals(400, get("/departures", "*").statusCode());
+    assertEquals(400, get("/board?limit=x", "*").statusCode());
+    assertEquals(404, get("/boards", "*").statusCode());
+    assertEquals(404, get("/departuresx", "*").statusCode());
+    assertEquals(304, get("/departures/1", "*").statusCode());
+  }
+
+  @Test
+  void departuresByDestinationAreInTimeOrder() throws Exception {
+    register.addTrainDeparture(LocalTime.of(12, 0), "L2", 9, "lillestrøm", LocalTime.of(0, 0));
+    String body = get("/departures?destination=Lillestr%C3%B8m", null).body();
+    assertTrue(body.indexOf("\"trainNumber\":9") < body.indexOf("\"trainNumber\":2"));
+  }
+
+  @Test
+  void onlyGetIsAllowed() throws Exception {
+    HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+            URI.create("http://localhost:" + server.getPort() + "/board"))
+        .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+    assertEquals(405, response.statusCode());
+  }
+
+  @Test
+  void stringsAreEscaped() {
+    StringBuilder json = new StringBuilder();
+    DepartureHttpServer.appendString(json, "a\"b\\c\n\u0001");
+    assertEquals("\"a\\\"b\\\\c\\n\\u0001\"", json.toString());
+  }
+}
@@ -0,0 +1,112 @@
+package edu.ntnu.stud;
+
+import java.time.LocalTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DepartureTableTest {
+
+  private DepartureTable table;
+
+  @BeforeEach
+  void setUp() {
+    table = new DepartureTable();
+    table.put(new TrainDeparture(LocalTime.of(13, 0, 30), "L1", 1, "Spikkestad", 4,
+        LocalTime.of(0, 10)));
+    table.put(new TrainDeparture(LocalTime.of(14, 0), "L2", 2, "Lillestrøm", LocalTime.of(0, 0)));
+  }
+
+  @Test
+  void rowsKeepTheirValues() {
+    TrainDeparture departure = table.get(1);
+    assertEquals(LocalTime.of(13, 0, 30), departure.getDepartureTime());
+    assertEquals("L1", departure.getLine());
+    assertEquals("Spikkestad", departure.getDestination());
+    assertEquals(4, departure.getTrack());
+    assertEquals(LocalTime.of(0, 10), departure.getDelay());
+    assertEquals(-1, table.get(2).getTrack());
+  }
+
+  @Test
+  void changingAHandedOutDepartureDoesNotChangeTheTable() {
+    table.get(1).setTrack(9);
+    assertEquals(4, table.get(1).getTrack());
+  }
+
+  @Test
+  void putReplacesARow() {
+    table.put(new TrainDeparture(LocalTime.of(15, 0), "R10", 1, "drammen", LocalTime.of(0, 0)));
+    assertEquals(2, table.size());
+    assertEquals("drammen", table.get(1).getDestination());
+    assertArrayEquals(new int[0], table.findByDestination("spikkestad"));
+  }
+
+  @Test
+  void removeEmptiesARow() {
+    table.remove(1);
+    table.remove(1);
+    assertEquals(1, table.size());
+    assertFalse(table.contains(1));
+    assertNull(table.get(1));
+  }
+
+  @Test
+  void findByDestinationUsesFoldedDestinations() {
+    table.put(new TrainDeparture(LocalTime.of(15, 0), "L1", 3, "spikkestad ", LocalTime.of(0, 0)));
+    assertArrayEquals(new int[] {1, 3}, table.findByDestination("spikkestad"));
+    assertArrayEquals(new int[0], table.findByDestination("oslo"));
+  }
+
+  @Test
+  void findByLineFollowsChangedRows() {
+    table.put(new TrainDeparture(LocalTime.of(15, 0), "L1", 3, "Drammen", LocalTime.of(0, 0)));
+    table.put(new TrainDeparture(LocalTime.of(16, 0), "L1", 2, "Drammen", LocalTime.of(0, 0)));
+    assertArrayEquals(new int[] {1, 2, 3}, table.findByLine("L1"));
+    table.remove(1);
+    assertArrayEquals(new int[] {2, 3}, table.findByLine("L1"));
+    assertArrayEquals(new int[0], table.findByLine("L2"));
+  }
+
+  @Test
+  void unusedDictionaryEntriesAreRemoved() {
+    int before = table.dictionarySize();
+    for (int trainNumber = 10; trainNumber < 20; trainNumber++) {
+      table.put(new TrainDeparture(LocalTime.of(15, 0), "R" + trainNumber, trainNumber,
+          "Stop " + trainNumber, LocalTime.of(0, 0)));
+      table.remove(trainNumber);
+    }
+    assertEquals(before, table.dictionarySize());
+    table.put(new TrainDeparture(LocalTime.of(15, 0), "L2", 2, "Spikkestad", LocalTime.of(0, 0)));
+    assertEquals(before - 2, table.dictionarySize());
+    assertEquals("Spikkestad", table.get(2).getDestination());
+  }
+
+  @Test
+  void sharedChunksAreCopiedBeforeTheyChange() {
+    DepartureBoardSnapshot before = DepartureBoardSnapshot.of(1, LocalTime.MIDNIGHT,
+        table.share());
+    table.setDelayMinutes(2, 5);
+    table.remove(1);
+    table.put(new TrainDeparture(LocalTime.of(9, 0), "R10", 3, "drammen", LocalTime.of(0, 0)));
+
+    assertEquals(2, before.size());
+    assertEquals(0, before.get(2).getDelayMinutes());
+    assertEquals("Spikkestad", before.get(1).getDestination());
+    assertNull(before.get(3));
+    DepartureBoardSnapshot after = DepartureBoardSnapshot.of(2, LocalTime.MIDNIGHT,
+        table.share());
+    assertEquals(List.of(3, 2), after.getDepartures().stream()
+        .map(TrainDeparture::getTrainNumber).toList());
+    assertEquals(5, after.get(2).getDelayMinutes());
+  }
+
+  @Test
+  void clearEmptiesTheTable() {
+    table.clear();
+    assertEquals(0, table.size());
+    assertArrayEquals(new int[0], table.findByDestination("spikkestad"));
+  }
+}
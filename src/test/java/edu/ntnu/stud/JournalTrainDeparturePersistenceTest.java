@@ -0,0 +1,126 @@
+package edu.ntnu.stud;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalTrainDeparturePersistenceTest {
+
+  @TempDir
+  Path testDirectory;
+
+  private JournalTrainDeparturePersistence journalTrainDeparturePersistence;
+  private final String testFile = "test.journal";
+
+  @BeforeEach
+  void setUp() throws IOException {
+    journalTrainDeparturePersistence = new JournalTrainDeparturePersistence(
+        testDirectory.toString(), testFile, 10);
+    journalTrainDeparturePersistence.clearDepartures();
+  }
+
+  @Test
+  void testWriteDeparture() throws IOException {
+    TrainDeparture departure = new TrainDeparture(LocalTime.of(13, 0), "L1", 1, "spikkestad", 4, LocalTime.of(0, 0));
+    journalTrainDeparturePersistence.writeDeparture(departure);
+
+    List<TrainDeparture> departures = journalTrainDeparturePersistence.readDepartures();
+    assertEquals(1, departures.size());
+    assertEquals("spikkestad", departures.get(0).getDestination());
+  }
+
+  @Test
+  void testRemoveDeparture() throws IOException {
+    TrainDeparture departure = new TrainDeparture(LocalTime.of(13, 0), "L1", 1, "spikkestad", 4, LocalTime.of(0, 0));
+    journalTrainDeparturePersistence.writeDeparture(departure);
+    journalTrainDeparturePersistence.removeDeparture(1);
+
+    assertTrue(journalTrainDeparturePersistence.readDepartures().isEmpty());
+  }
+
+  @Test
+  void testUpdateDeparture() throws IOException {
+    TrainDeparture departure = new TrainDeparture(LocalTime.of(13, 0), "L1", 1, "spikkestad", 4, LocalTime.of(0, 0));
+    journalTrainDeparturePersistence.writeDeparture(departure);
+
+    departure.setDelay(LocalTime.of(0, 10));
+    journalTrainDeparturePersistence.updateDeparture(departure);
+
+    List<TrainDeparture> departures = journalTrainDeparturePersistence.readDepartures();
+    assertEquals(LocalTime.of(0, 10), departures.get(0).getDelay());
+  }
+
+  @Test
+  void updateAppendsSingleRecord() throws IOException {
+    TrainDeparture departure = new TrainDeparture(LocalTime.of(13, 0), "L1", 1, "spikkestad", 4, LocalTime.of(0, 0));
+    journalTrainDeparturePersistence.writeDeparture(departure);
+    departure.setTrack(2);
+    journalTrainDeparturePersistence.updateDeparture(departure);
+
+    List<String> records = Files.readAllLines(testDirectory.resolve(testFile));
+    assertEquals(2, records.size());
+    assertTrue(records.get(1).startsWith("U,"));
+  }
+
+  @Test
+  void journalIsCompactedAfterThreshold() throws IOException {
+    TrainDeparture departure = new TrainDeparture(LocalTime.of(13, 0), "L1", 1, "spikkestad", 4, LocalTime.of(0, 0));
+    journalTrainDeparturePersistence.writeDeparture(departure);
+    for (int i = 0; i < 20; i++) {
+      departure.setTrack(i % 9 + 1);
+      journalTrainDeparturePersistence.updateDeparture(departure);
+    }
+
+    assertTrue(Files.readAllLines(testDirectory.resolve(testFile)).size() < 10);
+    assertEquals(departure.getTrack(),
+        journalTrainDeparturePersistence.readDepartures().get(0).getTrack());
+  }
+
+  @Test
+  void departuresWrittenTwiceAreCountedOnce() throws IOException {
+    List<TrainDeparture> departures = new ArrayList<>();
+    for (int trainNumber = 1; trainNumber <= 6; trainNumber++) {
+      departures.add(new TrainDeparture(LocalTime.of(13, 0), "L1", trainNumber, "spikkestad",
+          LocalTime.of(0, 0)));
+    }
+    journalTrainDeparturePersistence.writeDepartures(departures);
+    journalTrainDeparturePersistence.writeDepartures(departures);
+
+    assertEquals(6, Files.readAllLines(testDirectory.resolve(testFile)).size());
+    assertEquals(6, journalTrainDeparturePersistence.readDepartures().size());
+  }
+
+  @Test
+  void testClearDepartures() throws IOException {
+    TrainDeparture departure = new TrainDeparture(LocalTime.of(13, 0), "L1", 1, "spikkestad", 4, LocalTime.of(0, 0));
+    journalTrainDeparturePersistence.writeDeparture(departure);
+    journalTrainDeparturePersistence.clearDepartures();
+
+    assertTrue(journalTrainDeparturePersistence.readDepartures().isEmpty());
+  }
+
+  @Test
+  void testReadDeparturesWithInvalidFile() {
+    JournalTrainDeparturePersistence invalidJournalTrainDeparturePersistence =
+        new JournalTrainDeparturePersistence(testDirectory.toString(), "invalid.journal");
+    assertThrows(IOException.class, invalidJournalTrainDeparturePersistence::readDepartures);
+  }
+
+  @Test
+  void worksWithRegister() throws IOException {
+    TrainDepartureRegister register = new TrainDepartureRegister(journalTrainDeparturePersistence);
+    register.addTrainDeparture(LocalTime.of(13, 0), "L1", 1, "spikkestad", 4, LocalTime.of(0, 0));
+    register.setDelay(1, LocalTime.of(0, 5));
+
+    TrainDepartureRegister reloaded = new TrainDepartureRegister(journalTrainDeparturePersistence);
+    assertEquals(LocalTime.of(0, 5), reloaded.searchByTrainNumber(1).getDelay());
+  }
+}
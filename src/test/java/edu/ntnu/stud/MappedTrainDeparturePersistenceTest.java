@@ -0,0 +1,164 @@
+package edu.ntnu.stud;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedTrainDeparturePersistenceTest {
+
+  @TempDir
+  Path testDirectory;
+
+  private MappedTrainDeparturePersistence mappedTrainDeparturePersistence;
+  private final String testFile = "test.bin";
+
+  @BeforeEach
+  void setUp() throws IOException {
+    mappedTrainDeparturePersistence = new MappedTrainDeparturePersistence(
+        testDirectory.toString(), testFile);
+    mappedTrainDeparturePersistence.clearDepartures();
+  }
+
+  @Test
+  void testWriteDeparture() throws IOException {
+    TrainDeparture departure = new TrainDeparture(LocalTime.of(13, 0), "L1", 1, "tromsø", 4, LocalTime.of(0, 0));
+    mappedTrainDeparturePersistence.writeDeparture(departure);
+
+    List<TrainDeparture> departures = mappedTrainDeparturePersistence.readDepartures();
+    assertEquals(1, departures.size());
+    assertEquals(LocalTime.of(13, 0), departures.get(0).getDepartureTime());
+    assertEquals("L1", departures.get(0).getLine());
+    assertEquals("tromsø", departures.get(0).getDestination());
+    assertEquals(4, departures.get(0).getTrack());
+  }
+
+  @Test
+  void testRemoveDeparture() throws IOException {
+    TrainDeparture departure = new TrainDeparture(LocalTime.of(13, 0), "L1", 1, "spikkestad", 4, LocalTime.of(0, 0));
+    mappedTrainDeparturePersistence.writeDeparture(departure);
+    mappedTrainDeparturePersistence.removeDeparture(1);
+
+    assertTrue(mappedTrainDeparturePersistence.readDepartures().isEmpty());
+  }
+
+  @Test
+  void testUpdateDeparture() throws IOException {
+    TrainDeparture departure = new TrainDeparture(LocalTime.of(13, 0), "L1", 1, "spikkestad", 4, LocalTime.of(0, 0));
+    mappedTrainDeparturePersistence.writeDeparture(departure);
+
+    departure.setTrack(5);
+    departure.setDelay(LocalTime.of(0, 20));
+    mappedTrainDeparturePersistence.updateDeparture(departure);
+
+    TrainDeparture updated = mappedTrainDeparturePersistence.readDepartures().get(0);
+    assertEquals(5, updated.getTrack());
+    assertEquals(LocalTime.of(0, 20), updated.getDelay());
+  }
+
+  @Test
+  void departuresSurviveReopening() throws IOException {
+    TrainDeparture departure = new TrainDeparture(LocalTime.of(13, 0), "L1", 1, "spikkestad", LocalTime.of(0, 5));
+    mappedTrainDeparturePersistence.writeDeparture(departure);
+    mappedTrainDeparturePersistence.flush();
+
+    MappedTrainDeparturePersistence reopened = new MappedTrainDeparturePersistence(
+        testDirectory.toString(), testFile);
+    List<TrainDeparture> departures = reopened.readDepartures();
+    assertEquals(1, departures.size());
+    assertEquals(-1, departures.get(0).getTrack());
+    assertEquals(LocalTime.of(0, 5), departures.get(0).getDelay());
+  }
+
+  @Test
+  void tooLongDestination() {
+    TrainDeparture departure = new TrainDeparture(LocalTime.of(13, 0), "L1", 1,
+        "a".repeat(48), LocalTime.of(0, 0));
+    assertThrows(IllegalArgumentException.class,
+        () -> mappedTrainDeparturePersistence.writeDeparture(departure));
+  }
+
+  @Test
+  void testClearDepartures() throws IOException {
+    TrainDeparture departure = new TrainDeparture(LocalTime.of(13, 0), "L1", 1, "spikkestad", 4, LocalTime.of(0, 0));
+    mappedTrainDeparturePersistence.writeDeparture(departure);
+    mappedTrainDeparturePersistence.clearDepartures();
+
+    assertTrue(mappedTrainDeparturePersistence.readDepartures().isEmpty());
+  }
+
+  @Test
+  void testReadDeparturesWithInvalidFile() throws IOException {
+    Files.writeString(testDirectory.resolve("invalid.bin"), "not a departure store");
+    MappedTrainDeparturePersistence invalidMappedTrainDeparturePersistence =
+        new MappedTrainDeparturePersistence(testDirectory.toString(), "invalid.bin");
+    assertThrows(IOException.class, invalidMappedTrainDeparturePersistence::readDepartures);
+  }
+
+  @Test
+  void firstVersionFileIsUpgraded() throws IOException {
+    TrainDeparture departure = new TrainDeparture(LocalTime.of(13, 0), "L1", 1, "spikkestad",
+        LocalTime.of(0, 5));
+    mappedTrainDeparturePersistence.writeDeparture(departure);
+    mappedTrainDeparturePersistence.flush();
+    assertEquals(2, readVersion());
+    writeVersion(1);
+
+    MappedTrainDeparturePersistence reopened = new MappedTrainDeparturePersistence(
+        testDirectory.toString(), testFile);
+    assertEquals(5, reopened.readDepartures().get(0).getDelayMinutes());
+    reopened.flush();
+    assertEquals(2, readVersion());
+  }
+
+  @Test
+  void unknownVersionIsRejected() throws IOException {
+    mappedTrainDeparturePersistence.flush();
+    writeVersion(3);
+    MappedTrainDeparturePersistence reopened = new MappedTrainDeparturePersistence(
+        testDirectory.toString(), testFile);
+    assertThrows(IOException.class, reopened::readDepartures);
+  }
+
+  @Test
+  void unreadableSlotsAreSkipped() throws IOException {
+    mappedTrainDeparturePersistence.writeDeparture(new TrainDeparture(LocalTime.of(13, 0), "L1",
+        1, "spikkestad", 4, LocalTime.of(0, 0)));
+    mappedTrainDeparturePersistence.writeDeparture(new TrainDeparture(LocalTime.of(14, 0), "L2",
+        2, "lillestrøm", 2, LocalTime.of(0, 0)));
+    try (FileChannel channel = FileChannel.open(testDirectory.resolve(testFile),
+        StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, 999999), 16 + 2 * 80 + 1);
+    }
+
+    MappedTrainDeparturePersistence reopened = new MappedTrainDeparturePersistence(
+        testDirectory.toString(), testFile);
+    List<TrainDeparture> departures = reopened.readDepartures();
+    assertEquals(1, departures.size());
+    assertEquals(1, departures.get(0).getTrainNumber());
+  }
+
+  private int readVersion() throws IOException {
+    try (FileChannel channel = FileChannel.open(testDirectory.resolve(testFile))) {
+      ByteBuffer version = ByteBuffer.allocate(Integer.BYTES);
+      channel.read(version, 4);
+      return version.getInt(0);
+    }
+  }
+
+  private void writeVersion(int version) throws IOException {
+    try (FileChannel channel = FileChannel.open(testDirectory.resolve(testFile),
+        StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, version), 4);
+    }
+  }
+}
@@ -0,0 +1,145 @@
+package edu.ntnu.stud;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiDayDepartureRegisterTest {
+
+  @TempDir
+  Path testDirectory;
+
+  private final LocalDate monday = LocalDate.of(2026, 10, 12);
+  private final LocalDate tuesday = monday.plusDays(1);
+  private final LocalDate wednesday = monday.plusDays(2);
+  private MultiDayDepartureRegister register;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    register = new MultiDayDepartureRegister(
+        MultiDayDepartureRegister.csvFilePerDay(testDirectory + "/"));
+    register.addTrainDeparture(monday, LocalTime.of(23, 50), "L1", 1, "spikkestad", 1,
+        LocalTime.of(0, 30));
+    register.addTrainDeparture(tuesday, LocalTime.of(0, 10), "L2", 1, "lillestrøm", 2,
+        LocalTime.of(0, 0));
+    register.addTrainDeparture(tuesday, LocalTime.of(12, 0), "L1", 2, "spikkestad", 3,
+        LocalTime.of(0, 0));
+    register.addTrainDeparture(wednesday, LocalTime.of(8, 0), "L1", 3, "spikkestad", 4,
+        LocalTime.of(0, 0));
+  }
+
+  @Test
+  void eachDayHasItsOwnTrainNumbers() throws IOException {
+    assertEquals("spikkestad", register.searchByTrainNumber(monday, 1).getDestination());
+    assertEquals("lillestrøm", register.searchByTrainNumber(tuesday, 1).getDestination());
+    assertTrue(Files.exists(testDirectory.resolve("departures-" + monday + ".csv")));
+  }
+
+  @Test
+  void departuresDelayedPastMidnightSortAfterEarlierOnes() throws IOException {
+    List<ServiceDayDeparture> departures = register.getDeparturesBetween(
+        tuesday.atStartOfDay(), tuesday.atTime(1, 0));
+
+    assertEquals(2, departures.size());
+    assertEquals(tuesday, departures.get(0).getServiceDate());
+    assertEquals(monday, departures.get(1).getServiceDate());
+    assertEquals(tuesday.atTime(0, 20), departures.get(1).getDepartureDateTimeWithDelay());
+  }
+
+  @Test
+  void departuresDelayedByMoreThanADay() throws IOException {
+    register.getDay(monday).setDelayMinutes(1, 36 * 60);
+    List<ServiceDayDeparture> departures = register.getDeparturesBetween(
+        wednesday.atStartOfDay(), wednesday.atTime(12, 0));
+
+    assertEquals(2, departures.size());
+    assertEquals(3, departures.get(0).getDeparture().getTrainNumber());
+    assertEquals(monday, departures.get(1).getServiceDate());
+    assertEquals(wednesday.atTime(11, 50), departures.get(1).getDepartureDateTimeWithDelay());
+  }
+
+  @Test
+  void windowSpanningDays() throws IOException {
+    List<ServiceDayDeparture> departures = register.getDeparturesBetween(
+        LocalDateTime.of(tuesday, LocalTime.of(6, 0)), wednesday.atTime(23, 59));
+
+    assertEquals(2, departures.size());
+    assertEquals(2, departures.get(0).getDeparture().getTrainNumber());
+    assertEquals(3, departures.get(1).getDeparture().getTrainNumber());
+  }
+
+  @Test
+  void dropOldDays() throws IOException {
+    assertEquals(1, register.dropDaysBefore(tuesday));
+    assertEquals(List.of(tuesday, wednesday), register.getServiceDates());
+    assertNull(register.searchByTrainNumber(monday, 1));
+    assertEquals(1, register.getDeparturesBetween(
+        tuesday.atStartOfDay(), tuesday.atTime(1, 0)).size());
+  }
+
+  @Test
+  void reloadedDayReadsItsFile() throws IOException {
+    register.dropDay(tuesday);
+    assertNotNull(register.getDay(tuesday).searchByTrainNumber(2));
+  }
+
+  @Test
+  void newDayKeepsAnExistingStore() throws IOException {
+    LocalDate thursday = monday.plusDays(3);
+    new CsvTrainDeparturePersistence(testDirectory + "/", "departures-" + thursday + ".csv")
+        .writeDeparture(new TrainDeparture(LocalTime.of(9, 0), "R10", 7, "drammen",
+            LocalTime.of(0, 0)));
+
+    assertNotNull(register.getDay(thursday).searchByTrainNumber(7));
+    assertEquals(1, register.getDay(thursday).getSnapshot().getDepartures().size());
+  }
+
+  @Test
+  void newDayWithoutStoreIsEmpty() throws IOException {
+    LocalDate thursday = monday.plusDays(3);
+    assertTrue(register.getDay(thursday).getSnapshot().getDepartures().isEmpty());
+    assertTrue(Files.exists(testDirectory.resolve("departures-" + thursday + ".csv")));
+  }
+
+  @Test
+  void daysThatEndBeforeTheWindowAreSkipped() throws IOException {
+    assertEquals(20 * 60 + 24 * 3600,
+        register.getDay(monday).getSnapshot().getLatestDepartureSecond());
+    List<ServiceDayDeparture> departures = register.getDeparturesBetween(
+        wednesday.atStartOfDay(), wednesday.atTime(23, 59));
+
+    assertEquals(1, departures.size());
+    assertEquals(wednesday, departures.get(0).getServiceDate());
+  }
+
+  @Test
+  void threadsAskingForTheSameNewDayShareOneRegister() throws Exception {
+    LocalDate thursday = monday.plusDays(3);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<TrainDepartureRegister>> days = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        days.add(executor.submit(() -> register.getDay(thursday)));
+      }
+      for (Future<TrainDepartureRegister> day : days) {
+        assertSame(days.get(0).get(), day.get());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(List.of(monday, tuesday, wednesday, thursday), register.getServiceDates());
+  }
+}
@@ -0,0 +1,128 @@
+package edu.ntnu.stud;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StationRegistryTest {
+
+  @TempDir
+  Path testDirectory;
+
+  private StationRegistry registry;
+
+  @BeforeEach
+  void setUp() {
+    registry = new StationRegistry(4, StationRegistry.csvFilePerStation(testDirectory + "/"));
+  }
+
+  @AfterEach
+  void tearDown() {
+    registry.close();
+  }
+
+  @Test
+  void shardCountMustBePositive() {
+    assertThrows(IllegalArgumentException.class, () -> new StationRegistry(0, station -> null));
+  }
+
+  @Test
+  void loadStationsCreatesAStorePerStation() throws IOException {
+    Files.writeString(testDirectory.resolve("departures-oslo.csv"),
+        "Departure time,Line,Train number,Destination,Track,Delay,\n"
+            + "13:00,L1,1,spikkestad,4,00:00,\n");
+    registry.loadStations(List.of("oslo", "bergen", "trondheim"));
+
+    assertEquals(List.of("bergen", "oslo", "trondheim"), registry.getStationIds());
+    assertEquals(1, registry.getStation("oslo").getNumberOfDepartures());
+    assertEquals(0, registry.getStation("bergen").getNumberOfDepartures());
+    assertTrue(Files.exists(testDirectory.resolve("departures-trondheim.csv")));
+    assertNull(registry.getStation("stavanger"));
+  }
+
+  @Test
+  void stationIdsThatLeaveThePathAreRejected() {
+    assertThrows(IllegalArgumentException.class,
+        () -> registry.loadStations(List.of("../oslo")));
+    assertThrows(IllegalArgumentException.class,
+        () -> registry.loadStations(List.of("a/b")));
+    assertThrows(IllegalArgumentException.class,
+        () -> registry.loadStations(List.of("a\\b")));
+    assertEquals(List.of(), registry.getStationIds());
+    assertFalse(Files.exists(testDirectory.resolve("../departures-oslo.csv")));
+  }
+
+  @Test
+  void changesAreMadeOnTheShardOfTheStation() throws Exception {
+    CompletableFuture<String> thread = registry.submit("oslo", register -> {
+      register.addTrainDeparture(LocalTime.of(13, 0), "L1", 1, "spikkestad", 4,
+          LocalTime.of(0, 0));
+      return Thread.currentThread().getName();
+    });
+    assertEquals("station-shard-" + registry.shardOf("oslo"), thread.get(5, TimeUnit.SECONDS));
+
+    assertEquals(1, registry.submit("oslo", TrainDepartureRegister::getNumberOfDepartures)
+        .get(5, TimeUnit.SECONDS));
+    assertEquals("L1", registry.getStation("oslo").searchByTrainNumber(1).getLine());
+  }
+
+  @Test
+  void tasksForOneStationRunInOrder() throws Exception {
+    List<CompletableFuture<Void>> tasks = new ArrayList<>();
+    for (int trainNumber = 1; trainNumber <= 50; trainNumber++) {
+      int number = trainNumber;
+      tasks.add(registry.submit("oslo", register -> {
+        register.addTrainDeparture(LocalTime.of(13, 0), "L1", number, "spikkestad",
+            LocalTime.of(0, 0));
+        register.setDelayMinutes(number, number);
+        return null;
+      }));
+    }
+    CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+
+    TrainDepartureRegister oslo = registry.getStation("oslo");
+    assertEquals(50, oslo.getNumberOfDepartures());
+    assertEquals(50, oslo.searchByTrainNumber(50).getDelayMinutes());
+  }
+
+  @Test
+  void failedTaskFailsItsFuture() throws Exception {
+    registry.submit("oslo", register -> {
+      register.addTrainDeparture(LocalTime.of(13, 0), "L1", 1, "spikkestad", LocalTime.of(0, 0));
+      return null;
+    }).get(5, TimeUnit.SECONDS);
+
+    CompletableFuture<Void> duplicate = registry.submit("oslo", register -> {
+      register.addTrainDeparture(LocalTime.of(14, 0), "L1", 1, "spikkestad", LocalTime.of(0, 0));
+      return null;
+    });
+    ExecutionException e = assertThrows(ExecutionException.class,
+        () -> duplicate.get(5, TimeUnit.SECONDS));
+    assertInstanceOf(IllegalArgumentException.class, e.getCause());
+  }
+
+  @Test
+  void stationsAreSpreadOverTheShards() {
+    boolean[] used = new boolean[registry.getShardCount()];
+    for (int i = 0; i < 100; i++) {
+      int shard = registry.shardOf("station-" + i);
+      assertEquals(shard, registry.shardOf("station-" + i));
+      used[shard] = true;
+    }
+    for (boolean shard : used) {
+      assertTrue(shard);
+    }
+  }
+}
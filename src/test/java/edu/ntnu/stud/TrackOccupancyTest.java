@@ -0,0 +1,94 @@
+package edu.ntnu.stud;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrackOccupancyTest {
+
+  @Test
+  void departuresLessThanADwellTimeApartConflict() {
+    TrackOccupancy occupancy = new TrackOccupancy(300);
+    occupancy.put(1, 4, 13 * 3600);
+    occupancy.put(2, 4, 13 * 3600 + 299);
+    occupancy.put(3, 4, 13 * 3600 + 300);
+    occupancy.put(4, 5, 13 * 3600);
+
+    assertEquals(List.of(2), occupancy.findConflicts(1));
+    assertEquals(List.of(1, 3), occupancy.findConflicts(2));
+    assertEquals(List.of(2), occupancy.findConflicts(3));
+    assertEquals(List.of(), occupancy.findConflicts(4));
+  }
+
+  @Test
+  void departuresWithoutATrackNeverConflict() {
+    TrackOccupancy occupancy = new TrackOccupancy(300);
+    occupancy.put(1, -1, 13 * 3600);
+    occupancy.put(2, -1, 13 * 3600);
+    assertEquals(List.of(), occupancy.findConflicts(1));
+    assertEquals(List.of(), occupancy.getConflicts());
+  }
+
+  @Test
+  void movingAndRemovingDeparturesUpdatesTheIndex() {
+    TrackOccupancy occupancy = new TrackOccupancy(300);
+    occupancy.put(1, 4, 13 * 3600);
+    occupancy.put(2, 4, 13 * 3600 + 60);
+    assertEquals(List.of(new TrackConflict(4, 1, 2)), occupancy.getConflicts());
+
+    occupancy.put(2, 5, 13 * 3600 + 60);
+    assertEquals(List.of(), occupancy.getConflicts());
+
+    occupancy.put(2, 4, 13 * 3600 + 600);
+    assertEquals(List.of(), occupancy.getConflicts());
+
+    occupancy.put(2, 4, 13 * 3600);
+    occupancy.remove(1);
+    assertEquals(List.of(), occupancy.findConflicts(2));
+
+    occupancy.put(1, 4, 13 * 3600);
+    occupancy.clear();
+    assertEquals(List.of(), occupancy.getConflicts());
+  }
+
+  @Test
+  void dwellTimeCannotBeNegative() {
+    assertThrows(IllegalArgumentException.class, () -> new TrackOccupancy(-1));
+    TrackOccupancy none = new TrackOccupancy(0);
+    none.put(1, 4, 100);
+    none.put(2, 4, 100);
+    assertEquals(List.of(), none.getConflicts());
+  }
+
+  @Test
+  void conflictsMatchAPairwiseCheck() {
+    Random random = new Random(23);
+    TrackOccupancy occupancy = new TrackOccupancy(240);
+    int[] tracks = new int[201];
+    long[] seconds = new long[201];
+    for (int trainNumber = 1; trainNumber <= 200; trainNumber++) {
+      tracks[trainNumber] = 1 + random.nextInt(6);
+      seconds[trainNumber] = random.nextInt(6 * 3600);
+      occupancy.put(trainNumber, tracks[trainNumber], seconds[trainNumber]);
+    }
+
+    List<TrackConflict> expected = new ArrayList<>();
+    for (int track = 1; track <= 6; track++) {
+      for (int a = 1; a <= 200; a++) {
+        for (int b = 1; b <= 200; b++) {
+          boolean before = seconds[a] < seconds[b] || seconds[a] == seconds[b] && a < b;
+          if (tracks[a] == track && tracks[b] == track && before
+              && seconds[b] - seconds[a] < 240) {
+            expected.add(new TrackConflict(track, a, b));
+          }
+        }
+      }
+    }
+    List<TrackConflict> actual = occupancy.getConflicts();
+    assertEquals(expected.size(), actual.size());
+    assertTrue(actual.containsAll(expected));
+  }
+}
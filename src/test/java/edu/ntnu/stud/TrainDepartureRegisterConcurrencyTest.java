@@ -0,0 +1,223 @@
+package edu.ntnu.stud;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrainDepartureRegisterConcurrencyTest {
+
+  @TempDir
+  Path testDirectory;
+
+  private static final int WRITERS = 8;
+  private static final int TRAINS_PER_WRITER = 100;
+  private static final int READERS = 4;
+
+  private MappedTrainDeparturePersistence persistence;
+  private TrainDepartureRegister register;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    persistence = new MappedTrainDeparturePersistence(testDirectory.toString(), "stress.bin");
+    persistence.clearDepartures();
+    register = new TrainDepartureRegister(persistence);
+  }
+
+  @Test
+  void concurrentWritersLoseNoUpdates() throws Exception {
+    AtomicBoolean writing = new AtomicBoolean(true);
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS);
+    List<Future<?>> writers = new ArrayList<>();
+    List<Future<?>> readers = new ArrayList<>();
+
+    for (int writer = 0; writer < WRITERS; writer++) {
+      int firstTrainNumber = writer * TRAINS_PER_WRITER + 1;
+      writers.add(executor.submit((Callable<Void>) () -> {
+        start.await();
+        for (int i = 0; i < TRAINS_PER_WRITER; i++) {
+          int trainNumber = firstTrainNumber + i;
+          register.addTrainDeparture(LocalTime.of(12, 0), "L1", trainNumber, "spikkestad",
+              LocalTime.of(0, 0));
+          register.setTrack(trainNumber, trainNumber % 99 + 1);
+          register.setDelay(trainNumber, LocalTime.of(0, trainNumber % 60));
+        }
+        return null;
+      }));
+    }
+    for (int reader = 0; reader < READERS; reader++) {
+      readers.add(executor.submit((Callable<Void>) () -> {
+        start.await();
+        while (writing.get()) {
+          register.toSortedTable(LocalTime.of(0, 0));
+          register.searchByDestination("spikkestad");
+          register.searchByTrainNumber(1);
+          register.getNumberOfDepartures();
+        }
+        return null;
+      }));
+    }
+
+    start.countDown();
+    for (Future<?> writer : writers) {
+      writer.get(60, TimeUnit.SECONDS);
+    }
+    writing.set(false);
+    for (Future<?> reader : readers) {
+      reader.get(60, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+
+    int expected = WRITERS * TRAINS_PER_WRITER;
+    assertEquals(expected, register.getNumberOfDepartures());
+    assertEquals(expected, register.searchByDestination("spikkestad").size());
+
+    TrainDepartureRegister reloaded = new TrainDepartureRegister(persistence);
+    assertEquals(expected, reloaded.getNumberOfDepartures());
+    for (int trainNumber = 1; trainNumber <= expected; trainNumber++) {
+      TrainDeparture departure = reloaded.searchByTrainNumber(trainNumber);
+      assertEquals(trainNumber % 99 + 1, departure.getTrack());
+      assertEquals(LocalTime.of(0, trainNumber % 60), departure.getDelay());
+    }
+  }
+
+  @Test
+  void sameTrainNumberIsOnlyAddedOnce() throws Exception {
+    AtomicInteger added = new AtomicInteger();
+    AtomicInteger rejected = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+    List<Future<?>> writers = new ArrayList<>();
+
+    for (int writer = 0; writer < WRITERS; writer++) {
+      writers.add(executor.submit((Callable<Void>) () -> {
+        start.await();
+        try {
+          register.addTrainDeparture(LocalTime.of(12, 0), "L1", 1, "spikkestad", 1,
+              LocalTime.of(0, 0));
+          added.incrementAndGet();
+        } catch (IllegalArgumentException e) {
+          rejected.incrementAndGet();
+        }
+        return null;
+      }));
+    }
+
+    start.countDown();
+    for (Future<?> writer : writers) {
+      writer.get(60, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+
+    assertEquals(1, added.get());
+    assertEquals(WRITERS - 1, rejected.get());
+    assertEquals(1, register.getNumberOfDepartures());
+  }
+
+  @Test
+  void changesToTheSameTrainsAreNotLostOnCsv() throws Exception {
+    CsvTrainDeparturePersistence csv =
+        new CsvTrainDeparturePersistence(testDirectory + "/", "contended.csv");
+    csv.createStore();
+    TrainDepartureRegister shared = new TrainDepartureRegister(csv);
+    int trains = 20;
+    int rounds = 25;
+    for (int trainNumber = 1; trainNumber <= trains; trainNumber++) {
+      shared.addTrainDeparture(LocalTime.of(12, 0), "L1", trainNumber, "spikkestad",
+          LocalTime.of(0, 0));
+    }
+
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+    List<Future<?>> writers = new ArrayList<>();
+    for (int writer = 0; writer < WRITERS; writer++) {
+      int track = writer + 1;
+      boolean delays = writer % 2 == 0;
+      writers.add(executor.submit((Callable<Void>) () -> {
+        start.await();
+        for (int round = 0; round < rounds; round++) {
+          if (delays) {
+            shared.delayLine("L1", LocalTime.of(0, 0), 1);
+          } else {
+            for (int trainNumber = 1; trainNumber <= trains; trainNumber++) {
+              shared.setTrack(trainNumber, track);
+            }
+          }
+        }
+        return null;
+      }));
+    }
+
+    start.countDown();
+    for (Future<?> writer : writers) {
+      writer.get(60, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+
+    int expectedDelay = WRITERS / 2 * rounds;
+    TrainDepartureRegister reloaded = new TrainDepartureRegister(csv);
+    for (int trainNumber = 1; trainNumber <= trains; trainNumber++) {
+      TrainDeparture inMemory = shared.searchByTrainNumber(trainNumber);
+      TrainDeparture onDisk = reloaded.searchByTrainNumber(trainNumber);
+      assertEquals(expectedDelay, inMemory.getDelayMinutes());
+      assertEquals(0, inMemory.getTrack() % 2);
+      assertTrue(TrainDeparture.sameValues(inMemory, onDisk));
+    }
+  }
+
+  @Test
+  void blockingListenerCanReadTheRegister() throws Exception {
+    register.addTrainDeparture(LocalTime.of(12, 0), "L1", 1, "spikkestad", LocalTime.of(0, 0));
+    int changes = DepartureEventBus.DEFAULT_CAPACITY + 100;
+    AtomicInteger received = new AtomicInteger();
+    DepartureEventSubscription subscription = register.getEventBus().subscribe(
+        (event, endOfBatch) -> {
+          try {
+            if (received.getAndIncrement() == 0) {
+              Thread.sleep(200);
+            }
+            register.searchByDestination("spikkestad");
+            register.findTrackConflicts(1);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }, DepartureEventBus.OverflowPolicy.BLOCK);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<?> writer = executor.submit((Callable<Void>) () -> {
+        for (int i = 0; i < changes; i++) {
+          register.setTrack(1, i % 2 + 1);
+        }
+        return null;
+      });
+      writer.get(60, TimeUnit.SECONDS);
+
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+      while (received.get() < changes && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+      assertEquals(changes, received.get());
+    } finally {
+      subscription.close();
+      executor.shutdownNow();
+    }
+  }
+}
@@ -1,6 +1,9 @@
 package edu.ntnu.stud;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import java.time.LocalTime;
@@ -38,6 +41,27 @@ class TrainDepartureRegisterTest {
     assertEquals(3, register.getNumberOfDepartures());
   }
 
+  @Test
+  void addTrainDeparturesInBatch() throws IOException {
+    register.addTrainDepartures(List.of(
+        new TrainDeparture(LocalTime.of(15, 0), "FLY1", 3, "gardermoen", LocalTime.of(0, 0)),
+        new TrainDeparture(LocalTime.of(16, 0), "R10", 4, "drammen", 3, LocalTime.of(0, 0))));
+
+    assertEquals(4, register.getNumberOfDepartures());
+    assertEquals(4, new TrainDepartureRegister(csvTrainDeparturePersistence)
+        .getNumberOfDepartures());
+  }
+
+  @Test
+  void addTrainDeparturesWithDuplicateAddsNothing() throws IOException {
+    List<TrainDeparture> batch = List.of(
+        new TrainDeparture(LocalTime.of(15, 0), "FLY1", 3, "gardermoen", LocalTime.of(0, 0)),
+        new TrainDeparture(LocalTime.of(16, 0), "R10", 3, "drammen", LocalTime.of(0, 0)));
+
+    assertThrows(IllegalArgumentException.class, () -> register.addTrainDepartures(batch));
+    assertEquals(2, register.getNumberOfDepartures());
+  }
+
   @Test
   void testRemoveDeparture() throws IOException {
     register.removeDeparture(1);
@@ -82,6 +106,20 @@ class TrainDepartureRegisterTest {
     assertNull(register.searchByTrainNumber(3));
   }
 
+  @Test
+  void searchByTrainNumberOutsideValidRange() throws IOException {
+    assertNull(register.searchByTrainNumber(0));
+    assertNull(register.searchByTrainNumber(1000));
+  }
+
+  @Test
+  void trainNumberCanBeReusedAfterRemoval() throws IOException {
+    register.removeDeparture(1);
+    register.addTrainDeparture(LocalTime.of(16, 0), "R10", 1, "drammen", LocalTime.of(0, 0));
+    assertEquals("drammen", register.searchByTrainNumber(1).getDestination());
+    assertEquals(2, register.getNumberOfDepartures());
+  }
+
   @Test
   void testSearchByDestination() throws IOException {
     List<TrainDeparture> departures = register.searchByDestination("spikkestad");
@@ -90,6 +128,260 @@ class TrainDepartureRegisterTest {
     assertEquals(0, departures.size());
   }
 
+  @Test
+  void readsAreServedFromMemory() throws IOException {
+    csvTrainDeparturePersistence.clearDepartures();
+    assertEquals(2, register.getNumberOfDepartures());
+    assertNotNull(register.searchByTrainNumber(1));
+  }
+
+  @Test
+  void changesAreWrittenThrough() throws IOException {
+    register.setTrack(1, 7);
+    register.setDelay(2, LocalTime.of(0, 15));
+    register.removeDeparture(2);
+
+    TrainDepartureRegister reloaded = new TrainDepartureRegister(csvTrainDeparturePersistence);
+    assertEquals(1, reloaded.getNumberOfDepartures());
+    assertEquals(7, reloaded.searchByTrainNumber(1).getTrack());
+  }
+
+  @Test
+  void searchByDestinationIgnoresCase() throws IOException {
+    assertEquals(1, register.searchByDestination("lillestrøm").size());
+    assertEquals(1, register.searchByDestination("SPIKKESTAD").size());
+    assertEquals(1, register.searchByDestination(" Lillestr\u00D8m ").size());
+  }
+
+  @Test
+  void searchByDestinationAfterRemoval() throws IOException {
+    register.removeDeparture(1);
+    assertTrue(register.searchByDestination("spikkestad").isEmpty());
+  }
+
+  @Test
+  void sortedTableIsOrderedByDepartureTimeWithDelay() throws IOException {
+    register.setDelay(1, LocalTime.of(1, 30));
+    String table = register.toSortedTable(LocalTime.of(0, 0));
+    assertTrue(table.indexOf("14:00") < table.indexOf("13:00"));
+  }
+
+  @Test
+  void sortedTableHidesDepartedTrains() throws IOException {
+    String table = register.toSortedTable(LocalTime.of(13, 30));
+    assertFalse(table.contains("Spikkestad"));
+    assertTrue(table.contains("Lillestrøm"));
+
+    register.setDelay(1, LocalTime.of(1, 0));
+    table = register.toSortedTable(LocalTime.of(13, 30));
+    assertTrue(table.contains("Spikkestad"));
+  }
+
+  @Test
+  void snapshotIsNotChangedByLaterChanges() throws IOException {
+    DepartureBoardSnapshot before = register.getSnapshot();
+    register.setDelay(1, LocalTime.of(2, 0));
+    register.removeDeparture(2);
+    DepartureBoardSnapshot after = register.getSnapshot();
+
+    assertEquals(2, before.size());
+    assertEquals(LocalTime.of(0, 0), before.get(1).getDelay());
+    assertEquals(1, after.size());
+    assertEquals(LocalTime.of(2, 0), after.get(1).getDelay());
+    assertNull(after.get(2));
+    assertTrue(after.getVersion() > before.getVersion());
+  }
+
+  @Test
+  void snapshotIsOrderedByDepartureTimeWithDelay() throws IOException {
+    register.addTrainDeparture(LocalTime.of(12, 0), "R10", 3, "drammen", LocalTime.of(0, 0));
+    register.setDelay(3, LocalTime.of(1, 30));
+
+    List<TrainDeparture> departures = register.getSnapshot().getDepartures();
+    assertEquals(List.of(1, 3, 2),
+        departures.stream().map(TrainDeparture::getTrainNumber).toList());
+    assertEquals(List.of(2), register.getSnapshot().getDeparturesAfter(LocalTime.of(13, 30))
+        .stream().map(TrainDeparture::getTrainNumber).toList());
+  }
+
+  @Test
+  void snapshotDeparturesAreReadOnly() throws IOException {
+    TrainDeparture departure = register.getSnapshot().get(1);
+    assertTrue(departure.isReadOnly());
+    assertThrows(UnsupportedOperationException.class, () -> departure.setTrack(3));
+    assertTrue(register.searchByTrainNumber(1).isReadOnly());
+    assertTrue(register.searchByDestination("spikkestad").get(0).isReadOnly());
+  }
+
+  @Test
+  void snapshotFindsDeparturesToADestinationInTimeOrder() throws IOException {
+    register.addTrainDeparture(LocalTime.of(12, 0), "L2", 3, "lillestrøm ", LocalTime.of(0, 0));
+    register.addTrainDeparture(LocalTime.of(11, 0), "L2", 4, "LILLESTRØM", LocalTime.of(0, 0));
+    register.setDelayMinutes(4, 200);
+    register.removeDeparture(3);
+    register.setSystemTime(LocalTime.of(13, 0));
+    register.removeDeparted();
+
+    DepartureBoardSnapshot board = register.getSnapshot();
+    assertEquals(List.of(2, 4), board.getDeparturesTo("Lillestrøm").stream()
+        .map(TrainDeparture::getTrainNumber).toList());
+    assertEquals(List.of(), board.getDeparturesTo("spikkestad"));
+    assertEquals(List.of(), board.getDeparturesTo("bergen"));
+  }
+
+  @Test
+  void snapshotFollowsSystemTime() throws IOException {
+    register.setSystemTime(LocalTime.of(10, 0));
+    assertEquals(LocalTime.of(10, 0), register.getSnapshot().getSystemTime());
+  }
+
+  @Test
+  void trainsDelayedPastMidnightStayOnTheBoard() throws IOException {
+    register.addTrainDeparture(LocalTime.of(23, 30), "L1", 3, "drammen", LocalTime.of(0, 0));
+    register.setDelayMinutes(3, 60);
+
+    String table = register.toSortedTable(LocalTime.of(23, 45));
+    assertTrue(table.contains("Drammen"));
+    assertTrue(table.contains("01:00"));
+    assertEquals(60, new TrainDepartureRegister(csvTrainDeparturePersistence)
+        .searchByTrainNumber(3).getDelayMinutes());
+  }
+
+  @Test
+  void writtenTableMatchesSortedTable() throws IOException {
+    StringBuilder out = new StringBuilder();
+    register.writeSortedTable(LocalTime.of(0, 0), new DepartureBoardRenderer(), out);
+    assertEquals(register.toSortedTable(LocalTime.of(0, 0)), out.toString());
+  }
+
+  @Test
+  void nextDeparturesArePaged() throws IOException {
+    for (int trainNumber = 3; trainNumber <= 25; trainNumber++) {
+      register.addTrainDeparture(LocalTime.of(15, trainNumber), "L1", trainNumber, "drammen",
+          LocalTime.of(0, 0));
+    }
+    register.setSystemTime(LocalTime.of(13, 30));
+
+    DeparturePage first = register.getNextDepartures(10);
+    assertEquals(10, first.getDepartures().size());
+    assertEquals(2, first.getDepartures().get(0).getTrainNumber());
+    assertTrue(first.hasMore());
+
+    register.removeDeparture(2);
+    DeparturePage second = register.getNextDepartures(
+        DepartureCursor.fromToken(first.getNext().toToken()), 10);
+    assertEquals(12, second.getDepartures().get(0).getTrainNumber());
+
+    DeparturePage last = register.getNextDepartures(second.getNext(), 10);
+    assertEquals(List.of(22, 23, 24, 25),
+        last.getDepartures().stream().map(TrainDeparture::getTrainNumber).toList());
+    assertFalse(last.hasMore());
+    assertTrue(register.getNextDepartures(last.getNext(), 10).getDepartures().isEmpty());
+  }
+
+  @Test
+  void invalidPagesAreRejected() {
+    assertThrows(IllegalArgumentException.class, () -> register.getNextDepartures(-1));
+    assertThrows(IllegalArgumentException.class, () -> DepartureCursor.fromToken("not a cursor"));
+  }
+
+  @Test
+  void delayLineChangesLaterDeparturesOnTheLine() throws IOException {
+    register.addTrainDeparture(LocalTime.of(12, 0), "L1", 3, "spikkestad", LocalTime.of(0, 0));
+    register.addTrainDeparture(LocalTime.of(15, 0), "L1", 4, "asker", LocalTime.of(0, 10));
+
+    assertEquals(2, register.delayLine("L1", LocalTime.of(13, 0), 15));
+    assertEquals(15, register.searchByTrainNumber(1).getDelayMinutes());
+    assertEquals(25, register.searchByTrainNumber(4).getDelayMinutes());
+    assertEquals(0, register.searchByTrainNumber(3).getDelayMinutes());
+    assertEquals(0, register.searchByTrainNumber(2).getDelayMinutes());
+    assertEquals(25, new TrainDepartureRegister(csvTrainDeparturePersistence)
+        .searchByTrainNumber(4).getDelayMinutes());
+    assertEquals(0, register.delayLine("L9", LocalTime.of(0, 0), 15));
+  }
+
+  @Test
+  void delayDestinationIsWrittenAsOneBatch() throws IOException {
+    int[] batches = new int[1];
+    TrainDepartureRegister counted = new TrainDepartureRegister(
+        new CsvTrainDeparturePersistence(testPath, testFile) {
+          @Override
+          public void updateDeparture(TrainDeparture departure) {
+            fail("departures should be written as a batch");
+          }
+
+          @Override
+          public void updateDepartures(List<TrainDeparture> departures) throws IOException {
+            batches[0]++;
+            super.updateDepartures(departures);
+          }
+        });
+    counted.addTrainDeparture(LocalTime.of(15, 0), "R10", 3, "lillestrøm", LocalTime.of(0, 0));
+
+    assertEquals(2, counted.delayDestination(" LILLESTRØM", 30));
+    assertEquals(1, batches[0]);
+    assertEquals(30, counted.searchByTrainNumber(2).getDelayMinutes());
+    assertEquals(30, counted.searchByTrainNumber(3).getDelayMinutes());
+    assertEquals(0, counted.searchByTrainNumber(1).getDelayMinutes());
+  }
+
+  @Test
+  void bulkDelayCannotMakeADelayNegative() throws IOException {
+    register.setDelay(1, LocalTime.of(0, 20));
+    assertThrows(IllegalArgumentException.class,
+        () -> register.delayLine("L1", LocalTime.of(0, 0), -30));
+    assertEquals(20, register.searchByTrainNumber(1).getDelayMinutes());
+
+    assertEquals(1, register.delayLine("L1", LocalTime.of(0, 0), -20));
+    assertEquals(0, register.searchByTrainNumber(1).getDelayMinutes());
+  }
+
+  @Test
+  void trackConflictsAreFoundWithoutPrinting() throws IOException {
+    PrintStream standardOut = System.out;
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    System.setOut(new PrintStream(out, true, StandardCharsets.UTF_8));
+    try {
+      register.addTrainDepartures(List.of(
+          new TrainDeparture(LocalTime.of(13, 2), "R10", 3, "drammen", 4, LocalTime.of(0, 0)),
+          new TrainDeparture(LocalTime.of(14, 30), "L3", 4, "asker", 2, LocalTime.of(0, 0))));
+      assertEquals(List.of(1), register.findTrackConflicts(3));
+
+      register.delayLine("L2", LocalTime.of(0, 0), 30);
+      assertEquals(List.of(4), register.findTrackConflicts(2));
+      assertEquals("", out.toString(StandardCharsets.UTF_8));
+    } finally {
+      System.setOut(standardOut);
+    }
+  }
+
+  @Test
+  void bulkDelayRejectsNullArguments() {
+    assertThrows(IllegalArgumentException.class, () -> register.delayLine("L1", null, 5));
+    assertThrows(IllegalArgumentException.class,
+        () -> register.delayLine(null, LocalTime.of(0, 0), 5));
+    assertThrows(IllegalArgumentException.class, () -> register.delayDestination(null, 5));
+  }
+
+  @Test
+  void trackConflictsFollowTracksAndDelays() throws IOException {
+    register.addTrainDeparture(LocalTime.of(13, 3), "R10", 3, "drammen", 4, LocalTime.of(0, 0));
+    assertEquals(List.of(new TrackConflict(4, 1, 3)), register.getTrackConflicts());
+    assertEquals(List.of(1), register.findTrackConflicts(3));
+
+    register.setDelay(1, LocalTime.of(0, 10));
+    assertEquals(List.of(), register.getTrackConflicts());
+
+    register.setTrack(2, 4);
+    assertEquals(List.of(), register.findTrackConflicts(2));
+    register.setDelay(3, LocalTime.of(0, 55));
+    assertEquals(List.of(new TrackConflict(4, 3, 2)), register.getTrackConflicts());
+
+    register.removeDeparture(2);
+    assertEquals(List.of(), register.getTrackConflicts());
+    assertEquals(List.of(), register.findTrackConflicts(2));
+  }
+
   @Test
   void testFlushPermRegister() throws IOException {
     register.clearDepartures();
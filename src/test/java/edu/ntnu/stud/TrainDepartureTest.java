@@ -112,6 +112,63 @@ class TrainDepartureTest {
       trainDeparture.setDelay(LocalTime.of(13, 0));
       assertEquals(LocalTime.of(1, 0), trainDeparture.getDepartureTimeWithDelay());
     }
+
+    @Test
+    void delayPastMidnightCountsFromTheScheduledDay() {
+      trainDeparture.setDelay(LocalTime.of(13, 0));
+      assertEquals(25 * 60 * 60, trainDeparture.getDepartureSecondWithDelay());
+    }
+
+    @Test
+    void delayOfMoreThanADay() {
+      trainDeparture.setDelayMinutes(25 * 60 + 30);
+      assertEquals(25 * 60 + 30, trainDeparture.getDelayMinutes());
+      assertEquals(LocalTime.of(1, 30), trainDeparture.getDelay());
+      assertEquals(LocalTime.of(13, 30), trainDeparture.getDepartureTimeWithDelay());
+      assertEquals((12 + 25) * 60 * 60 + 30 * 60, trainDeparture.getDepartureSecondWithDelay());
+    }
+
+    @Test
+    void negativeDelayMinutes() {
+      assertThrows(IllegalArgumentException.class, () -> trainDeparture.setDelayMinutes(-1));
+    }
+
+    @Test
+    void minutesAreFormattedAndParsed() {
+      assertEquals("00:05", TrainDeparture.formatMinutes(5));
+      assertEquals("25:30", TrainDeparture.formatMinutes(25 * 60 + 30));
+      assertEquals(25 * 60 + 30, TrainDeparture.parseMinutes("25:30"));
+      assertEquals(5, TrainDeparture.parseMinutes("00:05:30"));
+      assertThrows(IllegalArgumentException.class, () -> TrainDeparture.parseMinutes("5"));
+    }
+  }
+
+  @Nested
+  @DisplayName("Tests for read-only copies")
+  class ReadOnlyTests {
+
+    @Test
+    void readOnlyCopyHasSameValues() {
+      TrainDeparture copy = trainDeparture.readOnlyCopy();
+      assertTrue(copy.isReadOnly());
+      assertEquals(trainDeparture.getTrainNumber(), copy.getTrainNumber());
+      assertEquals(trainDeparture.getDepartureTimeWithDelay(), copy.getDepartureTimeWithDelay());
+    }
+
+    @Test
+    void readOnlyCopyCannotBeChanged() {
+      TrainDeparture copy = trainDeparture.readOnlyCopy();
+      assertThrows(UnsupportedOperationException.class, () -> copy.setTrack(2));
+      assertThrows(UnsupportedOperationException.class, () -> copy.setDelay(LocalTime.of(0, 5)));
+    }
+
+    @Test
+    void originalIsNotReadOnly() {
+      trainDeparture.readOnlyCopy();
+      assertFalse(trainDeparture.isReadOnly());
+      trainDeparture.setTrack(2);
+      assertEquals(2, trainDeparture.getTrack());
+    }
   }
 
   @Nested